@@ -2,7 +2,9 @@ package main.java.neat.config;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import main.java.neat.functions.ActivationFunction;
 import main.java.neat.functions.ActivationFunction.ACTIVATION_FUNCTION;
+import main.java.neat.functions.FunctionRegistry;
 
 /**
  * Configuration class for neural network activation functions.
@@ -22,6 +24,11 @@ public class ActivationConfig implements Serializable {
      */
 	private ArrayList<ACTIVATION_FUNCTION> allowedActivationFunctions;
 	
+    /**
+     * Plug-in activation functions that are allowed in addition to the built-in ones.
+     */
+	private ArrayList<ActivationFunction> allowedPluginActivationFunctions;
+	
     /**
      * Threshold value for the sigmoid activation function.
      * Controls the output activation level. Default value is 0.5.
@@ -60,6 +67,13 @@ public class ActivationConfig implements Serializable {
      */
 	protected double reluLeak = 0;
 	
+    /**
+     * Whether sigmoid and tanh nodes use the fast approximations of
+     * {@link main.java.neat.functions.FastActivation} instead of the exact functions.
+     * Default value is false.
+     */
+	protected boolean fastMath = false;
+	
     /**
      * Protected constructor for the ActivationConfig.
      * Creates an empty configuration with no activation functions allowed.
@@ -67,6 +81,7 @@ public class ActivationConfig implements Serializable {
      */
 	protected ActivationConfig() {
 		allowedActivationFunctions = new ArrayList<> ();
+		allowedPluginActivationFunctions = new ArrayList<> ();
 	}
 	
 	 /**
@@ -99,6 +114,13 @@ public class ActivationConfig implements Serializable {
      * @return The ReLU leak parameter
      */
 	public double getReluLeak() { return reluLeak; }
+    /**
+     * Checks whether sigmoid and tanh nodes use fast approximations, within
+     * {@link main.java.neat.functions.FastActivation#MAX_SIGMOID_ERROR} and
+     * {@link main.java.neat.functions.FastActivation#MAX_TANH_ERROR} of the exact functions.
+     * @return True if fast math is enabled
+     */
+	public boolean isFastMath() { return fastMath; }
 	
     /**
      * Adds an activation function to the list of allowed functions.
@@ -121,4 +143,29 @@ public class ActivationConfig implements Serializable {
 		return allowedActivationFunctions;
 	}
 	
+    /**
+     * Registers a plug-in activation function with {@link FunctionRegistry} and adds it to
+     * the list of allowed plug-in functions.
+     * 
+     * @param activationFunction The plug-in activation function to add
+     */
+	protected void addActivationFunction(ActivationFunction activationFunction) {
+		ActivationFunction registered = FunctionRegistry.register(activationFunction);
+		if (!getAllowedPluginActivationFunctions().contains(registered))
+			allowedPluginActivationFunctions.add(registered);
+	}
+	
+    /**
+     * Gets the list of allowed plug-in activation functions. Mutation picks among these and
+     * the allowed built-in functions alike.
+     * Configurations saved before plug-in functions existed report an empty list.
+     * 
+     * @return ArrayList of allowed plug-in activation functions
+     */
+	public ArrayList<ActivationFunction> getAllowedPluginActivationFunctions() {
+		if (allowedPluginActivationFunctions == null)
+			allowedPluginActivationFunctions = new ArrayList<> ();
+		return allowedPluginActivationFunctions;
+	}
+	
 }
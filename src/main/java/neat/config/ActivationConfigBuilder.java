@@ -1,5 +1,6 @@
 package main.java.neat.config;
 
+import main.java.neat.functions.ActivationFunction;
 import main.java.neat.functions.ActivationFunction.ACTIVATION_FUNCTION;
 
 /**
@@ -52,6 +53,19 @@ public class ActivationConfigBuilder {
 			return this;
 		}
 		
+        /**
+         * Adds a plug-in activation function to the list of allowed functions and registers it
+         * with {@link main.java.neat.functions.FunctionRegistry}.
+         * 
+         * @param activationFunction The plug-in activation function to allow in the network
+         * @return This builder instance for method chaining
+         * @throws IllegalArgumentException if the function's opcode is outside the plug-in range or taken by a different function
+         */
+		public ActivationConfigBuilder addActivationFunction(ActivationFunction activationFunction) {
+			activationConfig.addActivationFunction(activationFunction);
+			return this;
+		}
+		
         /**
          * Sets the activation threshold for the sigmoid function.
          * 
@@ -141,6 +155,22 @@ public class ActivationConfigBuilder {
 			return this;
 		}
 		
+        /**
+         * Enables the fast-math mode, in which new sigmoid and tanh nodes use a table-based
+         * approximation instead of {@link Math#exp(double)} and {@link Math#tanh(double)}.
+         * The maximum absolute error is 3e-6 for sigmoid and 6e-6 for tanh; see
+         * {@link main.java.neat.functions.FastActivation}. Compiled networks keep whichever
+         * variant their genome's nodes use.
+         * Default value is false (exact functions).
+         * 
+         * @param fastMath True to approximate sigmoid and tanh
+         * @return This builder instance for method chaining
+         */
+		public ActivationConfigBuilder setFastMath(boolean fastMath) {
+			activationConfig.fastMath = fastMath;
+			return this;
+		}
+		
         /**
          * Builds and returns the configured ActivationConfig instance.
          * 
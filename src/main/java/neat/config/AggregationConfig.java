@@ -2,7 +2,9 @@ package main.java.neat.config;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import main.java.neat.functions.AggregationFunction;
 import main.java.neat.functions.AggregationFunction.AGGREGATION_FUNCTION;
+import main.java.neat.functions.FunctionRegistry;
 
 /**
  * Configuration class for neural network aggregation functions.
@@ -27,6 +29,11 @@ public class AggregationConfig implements Serializable {
      */
 	private ArrayList<AGGREGATION_FUNCTION> allowedAggregationFunctions;
 	
+    /**
+     * Plug-in aggregation functions that are allowed in addition to the built-in ones.
+     */
+	private ArrayList<AggregationFunction> allowedPluginAggregationFunctions;
+	
     /**
      * Creates a new AggregationConfig with the specified allowed aggregation functions.
      * 
@@ -47,6 +54,7 @@ public class AggregationConfig implements Serializable {
      */
 	public AggregationConfig(AGGREGATION_FUNCTION... allowedAggregationFunctions) {
 		this.allowedAggregationFunctions = new ArrayList<> ();
+		this.allowedPluginAggregationFunctions = new ArrayList<> ();
 		for (AGGREGATION_FUNCTION aggFunc: allowedAggregationFunctions)
 			addAggregationFunction(aggFunc);
 	}
@@ -78,4 +86,32 @@ public class AggregationConfig implements Serializable {
 		return allowedAggregationFunctions;
 	}
 	
+    /**
+     * Registers a plug-in aggregation function with {@link FunctionRegistry} and allows it
+     * during network creation and mutation.
+     * 
+     * @param aggregationFunction The plug-in aggregation function to allow
+     * @return This configuration for method chaining
+     * @throws IllegalArgumentException if the function's opcode is outside the plug-in range or taken by a different function
+     */
+	public AggregationConfig addAggregationFunction(AggregationFunction aggregationFunction) {
+		AggregationFunction registered = FunctionRegistry.register(aggregationFunction);
+		if (!getAllowedPluginAggregationFunctions().contains(registered))
+			allowedPluginAggregationFunctions.add(registered);
+		return this;
+	}
+	
+    /**
+     * Gets the list of allowed plug-in aggregation functions. Mutation picks among these and
+     * the allowed built-in functions alike.
+     * Configurations saved before plug-in functions existed report an empty list.
+     * 
+     * @return ArrayList of allowed plug-in aggregation functions
+     */
+	public ArrayList<AggregationFunction> getAllowedPluginAggregationFunctions() {
+		if (allowedPluginAggregationFunctions == null)
+			allowedPluginAggregationFunctions = new ArrayList<> ();
+		return allowedPluginAggregationFunctions;
+	}
+	
 }
@@ -173,6 +173,73 @@ public class NEATConfig implements Serializable {
 		TOURNAMENT
 	}
 	
+    /**
+     * Defines how innovation numbers are assigned to new connections.
+     */
+	public static enum INNOVATION_NUMBERING {
+        /**
+         * Numbers are handed out by a process-wide counter, reusing the number of an
+         * identical connection created earlier in the same process.
+         * Genomes from different processes cannot be compared or crossed over.
+         */
+		SEQUENTIAL,
+		
+        /**
+         * Numbers are a 64-bit hash of the split innovation numbers of the connection's end nodes,
+         * and hidden nodes inherit the number of the connection they split. Identical structure
+         * therefore gets identical numbers in every process, so populations evolved independently
+         * (on other machines or islands) can be merged without a central registry.
+         * Since hashed numbers carry no creation order, the split between excess and disjoint genes
+         * in the compatibility distance is arbitrary; use equal excess and disjoint coefficients.
+         */
+		HASHED
+	}
+	
+    /**
+     * Defines how the inference cost of a genome is measured.
+     */
+	public static enum INFERENCE_COST {
+        /**
+         * Inference cost is ignored.
+         */
+		NONE,
+		
+        /**
+         * Estimated arithmetic operations per evaluation of the compiled network: one multiply and one
+         * accumulate per connection, the response and bias of every node, and the cost of its
+         * activation and aggregation functions (exponential-based activations and the selection done
+         * by MEDIAN aggregation are the expensive ones). Deterministic and cheap to compute.
+         */
+		OPERATIONS,
+		
+        /**
+         * Measured nanoseconds per evaluation of the compiled network on random inputs.
+         * Reflects the actual machine, but is noisy and costs a benchmark of about 20 microseconds per
+         * new genome on the evolving thread.
+         */
+		NANOSECONDS
+	}
+	
+    /**
+     * Defines how the inference cost of a genome takes part in selection.
+     */
+	public static enum INFERENCE_COST_USAGE {
+        /**
+         * The cost above the budget, multiplied by the inference cost penalty, is subtracted from the
+         * fitness (added when minimizing) that agents are ranked, selected and speciated by. When
+         * maximizing, the penalty never takes that fitness below 0, since fitness sharing and roulette
+         * selection need non-negative values; a fitness already below 0 is left as is. Agent fitness
+         * itself, the best agent and fitness termination are left unpenalized.
+         */
+		PENALTY,
+		
+        /**
+         * Fitness is left unchanged; among genomes of equal fitness, the one with the lower cost above
+         * the budget ranks first. Costs within the budget count as equal.
+         */
+		TIE_BREAKER
+	}
+	
     /**
      * The total number of genomes in the population.
      * Larger populations provide more genetic diversity but require more computation.
@@ -587,6 +654,48 @@ public class NEATConfig implements Serializable {
      * Default is 0.5 (50% chance per potential connection).
      */
 	protected double probConnectInit = 0.5d;
+	
+    /**
+     * How innovation numbers are assigned to new connections.
+     * Default is SEQUENTIAL.
+     */
+	protected INNOVATION_NUMBERING innovationNumbering = INNOVATION_NUMBERING.SEQUENTIAL;
+	
+    /**
+     * How the inference cost of each genome is measured.
+     * Default is NONE (inference cost does not affect selection).
+     */
+	protected INFERENCE_COST inferenceCost = INFERENCE_COST.NONE;
+	
+    /**
+     * How the inference cost takes part in selection.
+     * Default is PENALTY.
+     */
+	protected INFERENCE_COST_USAGE inferenceCostUsage = INFERENCE_COST_USAGE.PENALTY;
+	
+    /**
+     * Inference cost that is free of charge, in the unit of the inference cost measure
+     * (operations or nanoseconds). Only the cost above the budget is penalized or compared.
+     * Default is 0.
+     */
+	protected double inferenceCostBudget = 0;
+	
+    /**
+     * Fitness penalty per unit of inference cost above the budget.
+     * Default is 0.001.
+     */
+	protected double inferenceCostPenalty = 0.001;
+	
+    /**
+     * Whether the random decisions of the run are drawn from the seed.
+     * Default is false (generators are seeded by the platform).
+     */
+	protected boolean seeded;
+	
+    /**
+     * Seed of the run, used if the run is seeded.
+     */
+	protected long seed;
 
     /**
      * Creates a new NEATConfig with the specified core parameters.
@@ -1160,4 +1269,65 @@ public class NEATConfig implements Serializable {
 	 */
 	public double getProbConnectInit() { return probConnectInit; }
 	
+	/**
+	 * Returns how innovation numbers are assigned to new connections.
+	 * Configurations saved before this setting existed report SEQUENTIAL.
+	 * 
+	 * @return The innovation numbering mode
+	 */
+	public INNOVATION_NUMBERING getInnovationNumbering() {
+		return innovationNumbering == null ? INNOVATION_NUMBERING.SEQUENTIAL : innovationNumbering;
+	}
+	
+	/**
+	 * Returns how the inference cost of each genome is measured.
+	 * Configurations saved before this setting existed report NONE.
+	 * 
+	 * @return The inference cost measure
+	 */
+	public INFERENCE_COST getInferenceCost() {
+		return inferenceCost == null ? INFERENCE_COST.NONE : inferenceCost;
+	}
+	
+	/**
+	 * Returns how the inference cost takes part in selection.
+	 * Configurations saved before this setting existed report PENALTY.
+	 * 
+	 * @return The inference cost usage
+	 */
+	public INFERENCE_COST_USAGE getInferenceCostUsage() {
+		return inferenceCostUsage == null ? INFERENCE_COST_USAGE.PENALTY : inferenceCostUsage;
+	}
+	
+	/**
+	 * Returns the inference cost that is free of charge, in operations or nanoseconds
+	 * depending on the inference cost measure.
+	 * 
+	 * @return The inference cost budget
+	 */
+	public double getInferenceCostBudget() { return inferenceCostBudget; }
+	
+	/**
+	 * Returns the fitness penalty per unit of inference cost above the budget.
+	 * Configurations saved before this setting existed report 0, which disables the penalty.
+	 * 
+	 * @return The inference cost penalty
+	 */
+	public double getInferenceCostPenalty() { return inferenceCostPenalty; }
+	
+	/**
+	 * Returns whether the run is seeded. A seeded run draws every random decision of the
+	 * evolution from its seed, so the same seed and the same fitness values repeat the run.
+	 * 
+	 * @return True if the run is seeded
+	 */
+	public boolean isSeeded() { return seeded; }
+	
+	/**
+	 * Returns the seed of the run; only meaningful if the run is seeded.
+	 * 
+	 * @return The seed
+	 */
+	public long getSeed() { return seed; }
+	
 }
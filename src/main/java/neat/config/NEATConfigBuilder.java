@@ -3,6 +3,9 @@ package main.java.neat.config;
 import main.java.neat.config.NEATConfig.CONNECTIVITY;
 import main.java.neat.config.NEATConfig.DISTRIBUTION;
 import main.java.neat.config.NEATConfig.FITNESS_CRITERION;
+import main.java.neat.config.NEATConfig.INFERENCE_COST;
+import main.java.neat.config.NEATConfig.INFERENCE_COST_USAGE;
+import main.java.neat.config.NEATConfig.INNOVATION_NUMBERING;
 import main.java.neat.config.NEATConfig.SELECTION_TYPE;
 import main.java.neat.config.NEATConfig.SPECIES_FITNESS_FUNCTION;
 import main.java.neat.functions.ActivationFunction;
@@ -1074,6 +1077,87 @@ public class NEATConfigBuilder {
 			neatConfig.probConnectInit = probConnectInit;
 		return this;
 	}
+	
+    /**
+     * Sets how innovation numbers are assigned to new connections.
+     * 
+     * HASHED derives innovation numbers from the connection's end nodes so that runs on
+     * different machines or islands produce compatible genomes.
+     * Default value is SEQUENTIAL.
+     * 
+     * @param innovationNumbering The innovation numbering mode (SEQUENTIAL or HASHED). If null, then the new value will not be set.
+     * @return This builder instance for method chaining.
+     */
+	public NEATConfigBuilder setInnovationNumbering(INNOVATION_NUMBERING innovationNumbering) {
+		if (innovationNumbering != null)
+			neatConfig.innovationNumbering = innovationNumbering;
+		return this;
+	}
+	
+    /**
+     * Sets how the inference cost of each genome is measured.
+     * Default value is NONE.
+     * 
+     * @param inferenceCost The inference cost measure (NONE, OPERATIONS or NANOSECONDS). If null, then the new value will not be set.
+     * @return This builder instance for method chaining.
+     */
+	public NEATConfigBuilder setInferenceCost(INFERENCE_COST inferenceCost) {
+		if (inferenceCost != null)
+			neatConfig.inferenceCost = inferenceCost;
+		return this;
+	}
+	
+    /**
+     * Sets how the inference cost takes part in selection.
+     * Default value is PENALTY.
+     * 
+     * @param inferenceCostUsage The inference cost usage (PENALTY or TIE_BREAKER). If null, then the new value will not be set.
+     * @return This builder instance for method chaining.
+     */
+	public NEATConfigBuilder setInferenceCostUsage(INFERENCE_COST_USAGE inferenceCostUsage) {
+		if (inferenceCostUsage != null)
+			neatConfig.inferenceCostUsage = inferenceCostUsage;
+		return this;
+	}
+	
+    /**
+     * Sets the inference cost that is free of charge, e.g. the latency limit in nanoseconds.
+     * Default value is 0.
+     * 
+     * @param inferenceCostBudget The inference cost budget. If less than 0, then the new value will not be set.
+     * @return This builder instance for method chaining.
+     */
+	public NEATConfigBuilder setInferenceCostBudget(double inferenceCostBudget) {
+		if (inferenceCostBudget >= 0)
+			neatConfig.inferenceCostBudget = inferenceCostBudget;
+		return this;
+	}
+	
+    /**
+     * Sets the fitness penalty per unit of inference cost above the budget.
+     * Default value is 0.001.
+     * 
+     * @param inferenceCostPenalty The inference cost penalty. If less than 0, then the new value will not be set.
+     * @return This builder instance for method chaining.
+     */
+	public NEATConfigBuilder setInferenceCostPenalty(double inferenceCostPenalty) {
+		if (inferenceCostPenalty >= 0)
+			neatConfig.inferenceCostPenalty = inferenceCostPenalty;
+		return this;
+	}
+	
+    /**
+     * Seeds the run, so that the same seed and the same fitness values repeat it.
+     * Default is unseeded.
+     * 
+     * @param seed The seed of the run.
+     * @return This builder instance for method chaining.
+     */
+	public NEATConfigBuilder setSeed(long seed) {
+		neatConfig.seeded = true;
+		neatConfig.seed = seed;
+		return this;
+	}
 
     /**
      * Builds and returns the configured {@link NEATConfig} .
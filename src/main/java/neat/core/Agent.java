@@ -34,6 +34,11 @@ public class Agent implements Serializable {
 	 */
 	private double adjustedFitness;
 	
+	/**
+	 * Fitness the agent is ranked and selected by: the fitness, less any inference-cost penalty.
+	 */
+	private double selectionFitness;
+	
     /**
      * Constructs a new Agent with a randomly initialized genome based on the
      * provided NEAT configuration.
@@ -102,6 +107,19 @@ public class Agent implements Serializable {
      */
 	protected void setAdjustedFitness(double adjustedFitness) { this.adjustedFitness = adjustedFitness; }
 	
+    /**
+     * Gets the fitness used to rank and select the agent: its fitness with the inference-cost
+     * penalty applied. The fitness itself is never changed by the penalty.
+     * @return The selection fitness value.
+     */
+	protected double getSelectionFitness() { return selectionFitness; }
+	
+    /**
+     * Sets the fitness used internally to rank and select the agent.
+     * @param selectionFitness The selection fitness value to assign.
+     */
+	protected void setSelectionFitness(double selectionFitness) { this.selectionFitness = selectionFitness; }
+	
     /**
      * Processes input values through the agent's neural network.
      * 
@@ -0,0 +1,337 @@
+package main.java.neat.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import main.java.neat.config.NEATConfig;
+
+/**
+ * Immutable snapshot of a {@link Neat} run and its streaming binary checkpoint format.
+ *
+ * <p>A snapshot only copies the scalar state of agents and species; genomes are shared
+ * with the live run, which is safe because a genome is never modified once it joined the
+ * population (offspring are mutated before they replace the previous generation).
+ *
+ * <p>The random number generators that outlive a generation, the seed sequence of a seeded run
+ * and the generator of every species, are stored as seeds: the snapshot reseeds each of them
+ * with a seed drawn from it and stores that seed, so the live run and a run resumed from the
+ * checkpoint continue from the same generator states.
+ *
+ * <p>File layout (big endian, as written by {@link DataOutputStream}):
+ * <pre>
+ * int magic, int version
+ * int configLength, byte[configLength] serialized NEATConfig
+ * int state, int generation, int speciesNumber
+ * double compatibilityThreshold, double populationFitness, double populationAdjustedFitness
+ * long nextInnovationNumber, int historyLength, long[historyLength] innovation history
+ * boolean seeded, long seederSeed (version 2)
+ * int populationSize, agent[populationSize]
+ * boolean hasBest, agent best, boolean hasCurrentBest, agent currentBest
+ * int numberOfSpecies, species[numberOfSpecies]
+ *
+ * agent:   int speciesNumber, double fitness, double adjustedFitness, genome
+ * species: int number, int stagnationCounter, double fitness, double adjustedFitness,
+ *          double maxFitness, double maxHighscore, long randomSeed (version 2), genome representative,
+ *          int members, int[members] population indices
+ * genome:  int length, byte[length] {@link GenomeCodec} encoding
+ * </pre>
+ *
+ * @author Taher Joudeh
+ */
+final class Checkpoint {
+
+	private static final int MAGIC = 0x4E434B50;
+	private static final int VERSION = 2;
+	private static final String PREFIX = "checkpoint-", SUFFIX = ".neatckpt";
+
+	final NEATConfig neatConfig;
+	final int state, generation, speciesNumber;
+	final double compatibilityThreshold, populationFitness, populationAdjustedFitness;
+	final long nextInnovationNumber;
+	final long[] innovationHistory;
+	final boolean seeded;
+	final long seederSeed;
+	final AgentState[] population;
+	final AgentState best, currentBest;
+	final SpeciesState[] species;
+
+	Checkpoint(NEATConfig neatConfig, int state, int generation, int speciesNumber,
+			double compatibilityThreshold, double populationFitness, double populationAdjustedFitness,
+			long nextInnovationNumber, long[] innovationHistory, boolean seeded, long seederSeed,
+			AgentState[] population, AgentState best, AgentState currentBest, SpeciesState[] species) {
+		this.neatConfig = neatConfig;
+		this.state = state;
+		this.generation = generation;
+		this.speciesNumber = speciesNumber;
+		this.compatibilityThreshold = compatibilityThreshold;
+		this.populationFitness = populationFitness;
+		this.populationAdjustedFitness = populationAdjustedFitness;
+		this.nextInnovationNumber = nextInnovationNumber;
+		this.innovationHistory = innovationHistory;
+		this.seeded = seeded;
+		this.seederSeed = seederSeed;
+		this.population = population;
+		this.best = best;
+		this.currentBest = currentBest;
+		this.species = species;
+	}
+
+	/**
+	 * Scalar state of an agent.
+	 */
+	static final class AgentState {
+
+		final Genome genome;
+		final int speciesNumber;
+		final double fitness, adjustedFitness;
+
+		AgentState(Agent agent) {
+			this(agent.getGenome(), agent.getSpeciesNumber(), agent.getFitness(), agent.getAdjustedFitness());
+		}
+
+		private AgentState(Genome genome, int speciesNumber, double fitness, double adjustedFitness) {
+			this.genome = genome;
+			this.speciesNumber = speciesNumber;
+			this.fitness = fitness;
+			this.adjustedFitness = adjustedFitness;
+		}
+
+		Agent toAgent() {
+			Agent agent = new Agent(genome);
+			agent.setSpeciesNumber(speciesNumber);
+			agent.setFitness(fitness);
+			agent.setAdjustedFitness(adjustedFitness);
+			return agent;
+		}
+
+	}
+
+	/**
+	 * Scalar state of a species; its agents are referenced by population index.
+	 */
+	static final class SpeciesState {
+
+		final int number, stagnationCounter;
+		final double fitness, adjustedFitness, maxFitness, maxHighscore;
+		final long randomSeed;
+		final Genome representative;
+		final int[] members;
+
+		SpeciesState(int number, int stagnationCounter, double fitness, double adjustedFitness,
+				double maxFitness, double maxHighscore, long randomSeed, Genome representative, int[] members) {
+			this.number = number;
+			this.stagnationCounter = stagnationCounter;
+			this.fitness = fitness;
+			this.adjustedFitness = adjustedFitness;
+			this.maxFitness = maxFitness;
+			this.maxHighscore = maxHighscore;
+			this.randomSeed = randomSeed;
+			this.representative = representative;
+			this.members = members;
+		}
+
+	}
+
+	/**
+	 * Writes the snapshot into a directory as {@code checkpoint-<generation>.neatckpt}.
+	 * The file is written under a temporary name and moved into place, so a crash never
+	 * leaves a partial checkpoint behind. Older checkpoints beyond the retention are deleted
+	 * afterwards.
+	 * @param directory Checkpoint directory; created if missing.
+	 * @param retention Number of most recent checkpoints kept in the directory.
+	 * @return Path of the written checkpoint.
+	 * @throws IOException If writing fails.
+	 */
+	Path write(Path directory, int retention) throws IOException {
+		Files.createDirectories(directory);
+		Path file = directory.resolve(String.format("%s%010d%s", PREFIX, generation, SUFFIX));
+		Path temporary = directory.resolve(file.getFileName() + ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+			write(out);
+		}
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		ArrayList<Path> checkpoints = list(directory);
+		for (int i = 0; i < checkpoints.size() - retention; i++)
+			Files.deleteIfExists(checkpoints.get(i));
+		return file;
+	}
+
+	private void write(DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+
+		ByteArrayOutputStream config = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(config)) {
+			oos.writeObject(neatConfig);
+		}
+		out.writeInt(config.size());
+		config.writeTo(out);
+
+		out.writeInt(state);
+		out.writeInt(generation);
+		out.writeInt(speciesNumber);
+		out.writeDouble(compatibilityThreshold);
+		out.writeDouble(populationFitness);
+		out.writeDouble(populationAdjustedFitness);
+
+		out.writeLong(nextInnovationNumber);
+		out.writeInt(innovationHistory.length);
+		for (long value: innovationHistory)
+			out.writeLong(value);
+		out.writeBoolean(seeded);
+		out.writeLong(seederSeed);
+
+		long configHash = GenomeCodec.configHash(neatConfig);
+		out.writeInt(population.length);
+		for (AgentState agent: population)
+			writeAgent(out, agent, configHash);
+		out.writeBoolean(best != null);
+		if (best != null)
+			writeAgent(out, best, configHash);
+		out.writeBoolean(currentBest != null);
+		if (currentBest != null)
+			writeAgent(out, currentBest, configHash);
+
+		out.writeInt(species.length);
+		for (SpeciesState s: species) {
+			out.writeInt(s.number);
+			out.writeInt(s.stagnationCounter);
+			out.writeDouble(s.fitness);
+			out.writeDouble(s.adjustedFitness);
+			out.writeDouble(s.maxFitness);
+			out.writeDouble(s.maxHighscore);
+			out.writeLong(s.randomSeed);
+			writeGenome(out, s.representative, configHash);
+			out.writeInt(s.members.length);
+			for (int member: s.members)
+				out.writeInt(member);
+		}
+	}
+
+	private static void writeAgent(DataOutputStream out, AgentState agent, long configHash) throws IOException {
+		out.writeInt(agent.speciesNumber);
+		out.writeDouble(agent.fitness);
+		out.writeDouble(agent.adjustedFitness);
+		writeGenome(out, agent.genome, configHash);
+	}
+
+	private static void writeGenome(DataOutputStream out, Genome genome, long configHash) throws IOException {
+		byte[] bytes = GenomeCodec.encode(genome, configHash, false);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a checkpoint.
+	 * @param path A checkpoint file, or a checkpoint directory to read its latest checkpoint.
+	 * @return The snapshot stored in the checkpoint.
+	 * @throws IOException If no checkpoint exists or it cannot be read.
+	 */
+	static Checkpoint read(Path path) throws IOException {
+		if (Files.isDirectory(path)) {
+			ArrayList<Path> checkpoints = list(path);
+			if (checkpoints.isEmpty())
+				throw new IOException("No checkpoint in " + path);
+			path = checkpoints.get(checkpoints.size()-1);
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+			if (in.readInt() != MAGIC)
+				throw new IOException("Not a checkpoint: " + path);
+			int version = in.readInt();
+			if (version != 1 && version != VERSION)
+				throw new IOException("Unsupported checkpoint version: " + version);
+
+			byte[] config = new byte[in.readInt()];
+			in.readFully(config);
+			NEATConfig neatConfig;
+			try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(config))) {
+				neatConfig = (NEATConfig) ois.readObject();
+			} catch (ClassNotFoundException e) {
+				throw new IOException(e);
+			}
+			long configHash = GenomeCodec.configHash(neatConfig);
+
+			int state = in.readInt();
+			int generation = in.readInt();
+			int speciesNumber = in.readInt();
+			double compatibilityThreshold = in.readDouble();
+			double populationFitness = in.readDouble();
+			double populationAdjustedFitness = in.readDouble();
+
+			long nextInnovationNumber = in.readLong();
+			long[] innovationHistory = new long[in.readInt()];
+			for (int i = 0; i < innovationHistory.length; i++)
+				innovationHistory[i] = in.readLong();
+			boolean seeded = version >= 2 ? in.readBoolean() : neatConfig.isSeeded();
+			long seederSeed = version >= 2 ? in.readLong() : neatConfig.getSeed();
+
+			AgentState[] population = new AgentState[in.readInt()];
+			for (int i = 0; i < population.length; i++)
+				population[i] = readAgent(in, neatConfig, configHash);
+			AgentState best = in.readBoolean() ? readAgent(in, neatConfig, configHash) : null;
+			AgentState currentBest = in.readBoolean() ? readAgent(in, neatConfig, configHash) : null;
+
+			SpeciesState[] species = new SpeciesState[in.readInt()];
+			for (int i = 0; i < species.length; i++) {
+				int number = in.readInt();
+				int stagnationCounter = in.readInt();
+				double fitness = in.readDouble();
+				double adjustedFitness = in.readDouble();
+				double maxFitness = in.readDouble();
+				double maxHighscore = in.readDouble();
+				long randomSeed = version >= 2 ? in.readLong() : new Random().nextLong();
+				Genome representative = readGenome(in, neatConfig, configHash);
+				int[] members = new int[in.readInt()];
+				for (int j = 0; j < members.length; j++)
+					members[j] = in.readInt();
+				species[i] = new SpeciesState(number, stagnationCounter, fitness, adjustedFitness,
+						maxFitness, maxHighscore, randomSeed, representative, members);
+			}
+
+			return new Checkpoint(neatConfig, state, generation, speciesNumber,
+					compatibilityThreshold, populationFitness, populationAdjustedFitness,
+					nextInnovationNumber, innovationHistory, seeded, seederSeed, population, best, currentBest, species);
+		}
+	}
+
+	private static AgentState readAgent(DataInputStream in, NEATConfig neatConfig, long configHash) throws IOException {
+		int speciesNumber = in.readInt();
+		double fitness = in.readDouble();
+		double adjustedFitness = in.readDouble();
+		return new AgentState(readGenome(in, neatConfig, configHash), speciesNumber, fitness, adjustedFitness);
+	}
+
+	private static Genome readGenome(DataInputStream in, NEATConfig neatConfig, long configHash) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return GenomeCodec.decode(bytes, neatConfig, configHash);
+	}
+
+	private static ArrayList<Path> list(Path directory) throws IOException {
+		ArrayList<Path> checkpoints = new ArrayList<> ();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+			for (Path path: stream)
+				checkpoints.add(path);
+		}
+		Collections.sort(checkpoints);
+		return checkpoints;
+	}
+
+}
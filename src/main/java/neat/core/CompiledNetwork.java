@@ -0,0 +1,741 @@
+package main.java.neat.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import main.java.neat.functions.ActivationFunction;
+import main.java.neat.functions.AggregationFunction;
+import main.java.neat.functions.FastActivation;
+import main.java.neat.functions.FunctionRegistry;
+
+/**
+ * Immutable, flattened phenotype of a {@link Genome}.
+ *
+ * <p>The node graph is laid out as primitive arrays in evaluation order:
+ * <ul>
+ * <li>Input nodes occupy indices [0, numberOfInputs) in input order.
+ * <li>Every other node follows in the same layer-by-layer order used by {@link Genome#feed(double[])}.
+ * <li>Enabled incoming connections of each node are stored in compressed sparse rows
+ * ({@code inStart}, {@code inSource}, {@code inWeight}).
+ * </ul>
+ *
+ * <p>Runs of sum-aggregating nodes that read a common range of earlier nodes through at least
+ * {@link #DEFAULT_DENSE_THRESHOLD} of all possible connections, typically a layer after
+ * {@code FULL_DIRECT} or {@code LAYER_BY_LAYER} initialization, are additionally stored as dense
+ * row-major weight matrices. {@link #feed(double[], double[], double[])} evaluates them with a
+ * blocked matrix-vector kernel that streams the weights and the source values without index
+ * arrays, and every other node from the sparse rows. Dense rows sum their inputs in node order
+ * instead of connection order, so results can differ in the last bits. A block reading an
+ * infinite or NaN value is evaluated from its sparse rows, since the zero weights of its absent
+ * connections would turn that value into NaN.
+ *
+ * <p>A compiled network holds no mutable state, so a single instance can be shared between threads.
+ * Node values live in a caller-owned state array obtained from {@link #newState()}; keeping the same
+ * state array between calls preserves the values read by recurrent connections, exactly like
+ * repeatedly feeding the source genome.
+ *
+ * @author Taher Joudeh
+ */
+public final class CompiledNetwork {
+
+	final int numberOfInputs;
+	final int numberOfOutputs;
+	final int numberOfNodes;
+	final int maxFanIn;
+
+	/**
+	 * Leak used by RELU nodes (taken from the genome's activation configuration).
+	 */
+	final double reluLeak;
+
+	/**
+	 * Per-node activation and aggregation function opcodes (see {@link FunctionRegistry}).
+	 */
+	final byte[] activation;
+	final byte[] aggregation;
+
+	/**
+	 * Per-node bias and response values.
+	 */
+	final double[] bias;
+	final double[] response;
+
+	/**
+	 * Compressed sparse rows of enabled incoming connections.
+	 */
+	final int[] inStart;
+	final int[] inSource;
+	final double[] inWeight;
+
+	/**
+	 * Node indices and activation thresholds of the output nodes, in output order.
+	 */
+	final int[] outputIndex;
+	final double[] outputThreshold;
+
+	/**
+	 * Default minimum density of a dense block: its connections over rows times source columns.
+	 */
+	public static final double DEFAULT_DENSE_THRESHOLD = 0.5;
+
+	/**
+	 * Minimum number of connections of a dense block; smaller runs are not worth a matrix.
+	 */
+	private static final int MIN_DENSE_CONNECTIONS = 64;
+
+	/**
+	 * Dense blocks. Block {@code b} holds nodes [blockStart[b], blockEnd[b]), which read only the
+	 * nodes [blockSource[b], blockSource[b]+blockWidth[b]), with row-major weights from
+	 * {@code blockWeight[blockOffset[b]]}. {@code denseBlock[i]} is the block starting at node i, or -1.
+	 */
+	final int[] denseBlock;
+	final int[] blockStart, blockEnd, blockSource, blockWidth, blockOffset;
+	final double[] blockWeight;
+
+	CompiledNetwork(int numberOfInputs, int numberOfOutputs, int numberOfNodes, double reluLeak,
+			byte[] activation, byte[] aggregation, double[] bias, double[] response,
+			int[] inStart, int[] inSource, double[] inWeight, int[] outputIndex, double[] outputThreshold) {
+		this(numberOfInputs, numberOfOutputs, numberOfNodes, reluLeak, activation, aggregation, bias, response,
+				inStart, inSource, inWeight, outputIndex, outputThreshold, DEFAULT_DENSE_THRESHOLD);
+	}
+
+	CompiledNetwork(int numberOfInputs, int numberOfOutputs, int numberOfNodes, double reluLeak,
+			byte[] activation, byte[] aggregation, double[] bias, double[] response,
+			int[] inStart, int[] inSource, double[] inWeight, int[] outputIndex, double[] outputThreshold,
+			double denseThreshold) {
+		this.numberOfInputs = numberOfInputs;
+		this.numberOfOutputs = numberOfOutputs;
+		this.numberOfNodes = numberOfNodes;
+		this.reluLeak = reluLeak;
+		this.activation = activation;
+		this.aggregation = aggregation;
+		this.bias = bias;
+		this.response = response;
+		this.inStart = inStart;
+		this.inSource = inSource;
+		this.inWeight = inWeight;
+		this.outputIndex = outputIndex;
+		this.outputThreshold = outputThreshold;
+
+		int maxFanIn = 0;
+		for (int i = 0; i < numberOfNodes; i++)
+			maxFanIn = Math.max(maxFanIn, inStart[i+1]-inStart[i]);
+		this.maxFanIn = maxFanIn;
+
+		denseBlock = new int[numberOfNodes];
+		Arrays.fill(denseBlock, -1);
+		ArrayList<int[]> blocks = new ArrayList<> ();
+		int cells = 0;
+		for (int first = numberOfInputs; first < numberOfNodes; ) {
+			int end = first, low = Integer.MAX_VALUE, high = -1;
+			long edges = 0;
+			extend:
+			while (end < numberOfNodes && aggregation[end] == AGGREGATION_SUM && inStart[end+1] > inStart[end]) {
+				int nodeLow = low, nodeHigh = high;
+				for (int e = inStart[end]; e < inStart[end+1]; e++) {
+					if (inSource[e] >= first)
+						break extend;
+					nodeLow = Math.min(nodeLow, inSource[e]);
+					nodeHigh = Math.max(nodeHigh, inSource[e]);
+				}
+				low = nodeLow;
+				high = nodeHigh;
+				edges += inStart[end+1] - inStart[end];
+				end++;
+			}
+			long size = (long)(end-first)*(high-low+1);
+			if (end > first && edges >= MIN_DENSE_CONNECTIONS && edges >= denseThreshold*size && cells + size <= Integer.MAX_VALUE) {
+				denseBlock[first] = blocks.size();
+				blocks.add(new int[] {first, end, low, high-low+1, cells});
+				cells += (int)size;
+			}
+			first = Math.max(end, first+1);
+		}
+
+		blockStart = new int[blocks.size()];
+		blockEnd = new int[blocks.size()];
+		blockSource = new int[blocks.size()];
+		blockWidth = new int[blocks.size()];
+		blockOffset = new int[blocks.size()];
+		blockWeight = new double[cells];
+		for (int b = 0; b < blocks.size(); b++) {
+			int[] block = blocks.get(b);
+			blockStart[b] = block[0];
+			blockEnd[b] = block[1];
+			blockSource[b] = block[2];
+			blockWidth[b] = block[3];
+			blockOffset[b] = block[4];
+			for (int i = block[0]; i < block[1]; i++)
+				for (int e = inStart[i]; e < inStart[i+1]; e++)
+					blockWeight[block[4] + (i-block[0])*block[3] + inSource[e]-block[2]] += inWeight[e];
+		}
+	}
+
+    /**
+     * Flattens a genome into a compiled network.
+     * @param genome Genome to compile.
+     * @return Compiled network producing the same outputs as the genome.
+     */
+	public static CompiledNetwork compile(Genome genome) {
+		return compile(genome, DEFAULT_DENSE_THRESHOLD);
+	}
+
+    /**
+     * Flattens a genome into a compiled network with a custom dense-block threshold.
+     * @param genome Genome to compile.
+     * @param denseThreshold Minimum density of a dense block, between 0 and 1; above 1, every node
+     * is evaluated from the sparse rows.
+     * @return Compiled network producing the same outputs as the genome.
+     */
+	public static CompiledNetwork compile(Genome genome, double denseThreshold) {
+
+		ArrayList<Node> inputs = genome.getInputNodes();
+		ArrayList<Node>[] nodesByLayer = genome.getNodesByLayers();
+
+		ArrayList<Node> order = new ArrayList<> (inputs);
+		for (ArrayList<Node> layer: nodesByLayer)
+			for (Node node: layer)
+				if (node.getType() != Node.TYPE.INPUT)
+					order.add(node);
+
+		IdentityHashMap<Node,Integer> index = new IdentityHashMap<> ();
+		for (int i = 0; i < order.size(); i++)
+			index.put(order.get(i), i);
+
+		int n = order.size();
+		byte[] activation = new byte[n];
+		byte[] aggregation = new byte[n];
+		double[] bias = new double[n];
+		double[] response = new double[n];
+		int[] inStart = new int[n+1];
+
+		int edges = 0;
+		for (Node node: order)
+			if (node.getType() != Node.TYPE.INPUT)
+				for (Connection connection: node.getInConnections())
+					if (connection.isEnabled())
+						edges++;
+
+		int[] inSource = new int[edges];
+		double[] inWeight = new double[edges];
+
+		int[] outputIndex = new int[genome.getOutputNodes().size()];
+		double[] outputThreshold = new double[outputIndex.length];
+
+		int edge = 0, output = 0;
+		for (int i = 0; i < n; i++) {
+			Node node = order.get(i);
+			activation[i] = (byte) node.getActivationFunction().getOpcode();
+			bias[i] = node.getBias();
+			response[i] = node.getResponse();
+			inStart[i] = edge;
+
+			if (node.getType() != Node.TYPE.INPUT) {
+				aggregation[i] = (byte) node.getAggregationFunction().getOpcode();
+				for (Connection connection: node.getInConnections()) {
+					if (!connection.isEnabled())
+						continue;
+					inSource[edge] = index.get(connection.getFrom());
+					inWeight[edge++] = connection.getWeight();
+				}
+			}
+
+			if (node.getType() == Node.TYPE.OUTPUT) {
+				outputThreshold[output] = node.getActivationFunction().getThreshold();
+				outputIndex[output++] = i;
+			}
+		}
+		inStart[n] = edge;
+
+		return new CompiledNetwork(inputs.size(), outputIndex.length, n,
+				genome.getNeatConfig().getActivationConfig().getReluLeak(),
+				activation, aggregation, bias, response, inStart, inSource, inWeight, outputIndex, outputThreshold,
+				denseThreshold);
+	}
+
+    /**
+     * @return Number of input values expected by {@link #feed(double[], double[])}.
+     */
+	public int getNumberOfInputs() { return numberOfInputs; }
+
+    /**
+     * @return Number of values produced per evaluation.
+     */
+	public int getNumberOfOutputs() { return numberOfOutputs; }
+
+    /**
+     * @return Number of nodes (inputs included).
+     */
+	public int getNumberOfNodes() { return numberOfNodes; }
+
+    /**
+     * @return Number of enabled connections.
+     */
+	public int getNumberOfConnections() { return inSource.length; }
+
+    /**
+     * @return Number of nodes evaluated by dense blocks.
+     */
+	public int getNumberOfDenseNodes() {
+		int nodes = 0;
+		for (int b = 0; b < blockStart.length; b++)
+			nodes += blockEnd[b] - blockStart[b];
+		return nodes;
+	}
+
+    /**
+     * Estimates the arithmetic operations of one evaluation: a multiply and an accumulate per
+     * connection, the response and bias of every non-input node, and the activation of every node.
+     * Sigmoid, tanh and plug-in activations count as 20 operations and their fast-math
+     * approximations as 6, MEAN adds a division and
+     * MEDIAN adds three operations per input for the copies and comparisons of selecting the median.
+     * @return Estimated number of operations per evaluation.
+     */
+	public long getOperationCount() {
+		long operations = 2L*inSource.length;
+		for (int i = 0; i < numberOfNodes; i++) {
+			operations += activation[i] == ACTIVATION_STEP || activation[i] == ACTIVATION_RELU || activation[i] == ACTIVATION_LINEAR ? 1
+					: activation[i] == ACTIVATION_FAST_SIGMOID || activation[i] == ACTIVATION_FAST_TANH ? TABLE_OPERATIONS : EXPONENTIAL_OPERATIONS;
+			if (i < numberOfInputs)
+				continue;
+			operations += 2;
+			int fanIn = inStart[i+1]-inStart[i];
+			if (aggregation[i] == AGGREGATION_MEAN)
+				operations++;
+			else if (aggregation[i] == AGGREGATION_MEDIAN)
+				operations += 3L*fanIn;
+		}
+		return operations;
+	}
+
+    /**
+     * Creates a zeroed state array for this network. The array holds one value per node
+     * followed by scratch space used by MEDIAN aggregation.
+     * @return New state array.
+     */
+	public double[] newState() {
+		return new double[numberOfNodes + maxFanIn];
+	}
+
+    /**
+     * Feeds input through the network and returns continuous output values.
+     * @param input Array of input values matching number of input nodes.
+     * @param state State array created by {@link #newState()}.
+     * @return Array of continuous output values from output nodes.
+     */
+	public double[] feed(double[] input, double[] state) {
+		double[] output = new double[numberOfOutputs];
+		feed(input, state, output);
+		return output;
+	}
+
+    /**
+     * Feeds input through the network and writes the output values into the given array.
+     * @param input Array of input values matching number of input nodes.
+     * @param state State array created by {@link #newState()}.
+     * @param output Array receiving the output values.
+     */
+	public void feed(double[] input, double[] state, double[] output) {
+
+		for (int i = 0; i < numberOfInputs; i++)
+			state[i] = activate(activation[i], input[i], reluLeak);
+
+		for (int i = numberOfInputs; i < numberOfNodes; ) {
+			if (denseBlock[i] >= 0) {
+				feedDense(denseBlock[i], state);
+				i = blockEnd[denseBlock[i]];
+			}else {
+				state[i] = activate(activation[i], response[i]*aggregate(i, state, 1, 0, state, numberOfNodes) + bias[i], reluLeak);
+				i++;
+			}
+		}
+
+		for (int i = 0; i < numberOfOutputs; i++)
+			output[i] = state[outputIndex[i]];
+	}
+
+    /**
+     * Evaluates a dense block as a matrix-vector product, four rows at a time so every source
+     * value loaded is used four times. If a source value is infinite or NaN, the block is
+     * evaluated from its sparse rows instead.
+     */
+	private void feedDense(int block, double[] state) {
+		int first = blockStart[block], rows = blockEnd[block]-first;
+		int source = blockSource[block], width = blockWidth[block];
+		double[] weight = blockWeight;
+
+		for (int k = 0; k < width; k++)
+			if (!Double.isFinite(state[source+k])) {
+				for (int i = first; i < first+rows; i++)
+					state[i] = activate(activation[i], response[i]*aggregate(i, state, 1, 0, state, numberOfNodes) + bias[i], reluLeak);
+				return;
+			}
+
+		int row = 0;
+		for (; row+4 <= rows; row += 4) {
+			int w0 = blockOffset[block] + row*width, w1 = w0+width, w2 = w1+width, w3 = w2+width;
+			double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+			for (int k = 0; k < width; k++) {
+				double x = state[source+k];
+				sum0 += weight[w0+k]*x;
+				sum1 += weight[w1+k]*x;
+				sum2 += weight[w2+k]*x;
+				sum3 += weight[w3+k]*x;
+			}
+			int i = first+row;
+			state[i] = activate(activation[i], response[i]*sum0 + bias[i], reluLeak);
+			state[i+1] = activate(activation[i+1], response[i+1]*sum1 + bias[i+1], reluLeak);
+			state[i+2] = activate(activation[i+2], response[i+2]*sum2 + bias[i+2], reluLeak);
+			state[i+3] = activate(activation[i+3], response[i+3]*sum3 + bias[i+3], reluLeak);
+		}
+		for (; row < rows; row++) {
+			int w = blockOffset[block] + row*width;
+			double sum = 0;
+			for (int k = 0; k < width; k++)
+				sum += weight[w+k]*state[source+k];
+			int i = first+row;
+			state[i] = activate(activation[i], response[i]*sum + bias[i], reluLeak);
+		}
+	}
+
+    /**
+     * Creates a state array for {@link #feed(double[][], double[][], int, double[])} with
+     * room for up to the given number of rows.
+     * @param maxRows Largest number of rows evaluated at once.
+     * @return New batch state array.
+     */
+	public double[] newBatchState(int maxRows) {
+		return new double[(numberOfNodes+1)*maxRows + maxFanIn];
+	}
+
+    /**
+     * Feeds a batch of independent rows through the network. Every row starts from zeroed
+     * node values, like a single call to {@link #feed(double[], double[])} with a new state.
+     *
+     * <p>The batch is evaluated node by node over all rows, with node values stored node-major,
+     * so each node's connections and functions are decoded once per batch instead of once per
+     * row, and sum aggregation runs as a tight loop over the rows.
+     * @param inputs Input rows, each matching the number of input nodes.
+     * @param outputs Arrays receiving the output values of each row.
+     * @param rows Number of rows to evaluate, starting from the first.
+     * @param state State array created by {@link #newBatchState(int)} for at least {@code rows} rows.
+     */
+	public void feed(double[][] inputs, double[][] outputs, int rows, double[] state) {
+		int accumulator = numberOfNodes*rows;
+		int scratch = accumulator + rows;
+		Arrays.fill(state, 0, accumulator, 0);
+
+		for (int i = 0; i < numberOfInputs; i++)
+			for (int r = 0; r < rows; r++)
+				state[i*rows + r] = activate(activation[i], inputs[r][i], reluLeak);
+
+		for (int i = numberOfInputs; i < numberOfNodes; i++) {
+			if (aggregation[i] == AGGREGATION_SUM) {
+				Arrays.fill(state, accumulator, scratch, 0);
+				for (int e = inStart[i]; e < inStart[i+1]; e++) {
+					int source = inSource[e]*rows;
+					double weight = inWeight[e];
+					for (int r = 0; r < rows; r++)
+						state[accumulator + r] += state[source + r]*weight;
+				}
+			}else
+				for (int r = 0; r < rows; r++)
+					state[accumulator + r] = aggregate(i, state, rows, r, state, scratch);
+
+			int node = i*rows;
+			for (int r = 0; r < rows; r++)
+				state[node + r] = activate(activation[i], response[i]*state[accumulator + r] + bias[i], reluLeak);
+		}
+
+		for (int r = 0; r < rows; r++)
+			for (int i = 0; i < numberOfOutputs; i++)
+				outputs[r][i] = state[outputIndex[i]*rows + r];
+	}
+
+    /**
+     * Feeds input through the network and returns binary-activated outputs.
+     * @param input Array of input values matching number of input nodes.
+     * @param state State array created by {@link #newState()}.
+     * @return Array of boolean activation states from output nodes.
+     */
+	public boolean[] feed2(double[] input, double[] state) {
+		double[] values = feed(input, state);
+		boolean[] output = new boolean[numberOfOutputs];
+		for (int i = 0; i < numberOfOutputs; i++)
+			output[i] = values[i] > outputThreshold[i];
+		return output;
+	}
+
+    /**
+     * Aggregates the incoming values of a node for one row. Node values are read at
+     * {@code source*stride + row}; MEDIAN and plug-in functions gather their values in
+     * {@code scratch} from {@code scratchStart}, which needs room for the node's fan-in.
+     */
+	double aggregate(int node, double[] state, int stride, int row, double[] scratch, int scratchStart) {
+		return aggregate(aggregation[node], inSource, inWeight, inStart[node], inStart[node+1],
+				state, 0, stride, row, scratch, scratchStart);
+	}
+
+    /**
+     * Aggregates connections {@code [start, end)} of an adjacency in the layout of a compiled
+     * network for one row, reading node values at {@code base + source*stride + row}; MEDIAN and
+     * plug-in functions gather their values in {@code scratch} from {@code scratchStart}, which
+     * needs room for the fan-in. Shared by every evaluator holding that layout.
+     */
+	static double aggregate(byte function, int[] inSource, double[] inWeight, int start, int end,
+			double[] state, int base, int stride, int row, double[] scratch, int scratchStart) {
+
+		if (start == end)
+			return aggregateNothing(function);
+
+		double result;
+		switch (function) {
+		case AGGREGATION_SUM:
+			result = 0;
+			for (int e = start; e < end; e++)
+				result += state[base + inSource[e]*stride + row]*inWeight[e];
+			return result;
+		case AGGREGATION_PRODUCT:
+			result = 1;
+			for (int e = start; e < end; e++)
+				result *= state[base + inSource[e]*stride + row]*inWeight[e];
+			return result;
+		case AGGREGATION_MIN:
+			result = Double.POSITIVE_INFINITY;
+			for (int e = start; e < end; e++)
+				result = Math.min(result, state[base + inSource[e]*stride + row]*inWeight[e]);
+			return result;
+		case AGGREGATION_MAX:
+			result = Double.NEGATIVE_INFINITY;
+			for (int e = start; e < end; e++)
+				result = Math.max(result, state[base + inSource[e]*stride + row]*inWeight[e]);
+			return result;
+		case AGGREGATION_MEAN:
+			result = 0;
+			for (int e = start; e < end; e++)
+				result += state[base + inSource[e]*stride + row]*inWeight[e];
+			return result/(end-start);
+		case AGGREGATION_MAXABS:
+			result = 0;
+			for (int e = start; e < end; e++)
+				result = Math.max(result, Math.abs(state[base + inSource[e]*stride + row]*inWeight[e]));
+			return result;
+		default:
+			for (int e = start; e < end; e++)
+				scratch[scratchStart + e-start] = state[base + inSource[e]*stride + row]*inWeight[e];
+			return reduce(function, scratch, scratchStart, scratchStart+end-start);
+		}
+	}
+
+    /**
+     * Aggregates the weighted inputs {@code values[from..to)}, of which there is at least one;
+     * MEDIAN may reorder them. For evaluators that gather their inputs from another layout.
+     */
+	static double reduce(byte function, double[] values, int from, int to) {
+		double result;
+		switch (function) {
+		case AGGREGATION_SUM:
+			result = 0;
+			for (int i = from; i < to; i++)
+				result += values[i];
+			return result;
+		case AGGREGATION_PRODUCT:
+			result = 1;
+			for (int i = from; i < to; i++)
+				result *= values[i];
+			return result;
+		case AGGREGATION_MIN:
+			result = Double.POSITIVE_INFINITY;
+			for (int i = from; i < to; i++)
+				result = Math.min(result, values[i]);
+			return result;
+		case AGGREGATION_MAX:
+			result = Double.NEGATIVE_INFINITY;
+			for (int i = from; i < to; i++)
+				result = Math.max(result, values[i]);
+			return result;
+		case AGGREGATION_MEAN:
+			result = 0;
+			for (int i = from; i < to; i++)
+				result += values[i];
+			return result/(to-from);
+		case AGGREGATION_MAXABS:
+			result = 0;
+			for (int i = from; i < to; i++)
+				result = Math.max(result, Math.abs(values[i]));
+			return result;
+		case AGGREGATION_MEDIAN:
+			return AggregationFunction.median(values, from, to);
+		default:
+			return aggregatePlugin(function, values, from, to);
+		}
+	}
+
+    /**
+     * @return Aggregation of no inputs: 1 for PRODUCT, 0 for the other built-in functions.
+     */
+	static double aggregateNothing(byte function) {
+		if (function >= 0 && function <= AGGREGATION_MAXABS)
+			return function == AGGREGATION_PRODUCT ? 1 : 0;
+		return aggregatePlugin(function, null, 0, 0);
+	}
+
+    /**
+     * Aggregates {@code values[from..to)} with a registered plug-in function, which is handed a copy.
+     */
+	static double aggregatePlugin(byte function, double[] values, int from, int to) {
+		AggregationFunction plugin = FunctionRegistry.getAggregationFunction(function & 0xFF);
+		if (plugin == null)
+			throw new IllegalStateException("Unknown aggregation function: " + (function & 0xFF));
+		return plugin.aggregate(values == null ? new double[0] : Arrays.copyOfRange(values, from, to));
+	}
+
+	static double activate(byte function, double x, double reluLeak) {
+		switch (function) {
+		case ACTIVATION_SIGMOID:
+			return 1d/(1d+Math.exp(-x));
+		case ACTIVATION_TANH:
+			return Math.tanh(x);
+		case ACTIVATION_STEP:
+			return x >= 0 ? 1 : 0;
+		case ACTIVATION_RELU:
+			return x >= 0 ? x : x*reluLeak;
+		case ACTIVATION_LINEAR:
+			return x;
+		case ACTIVATION_FAST_SIGMOID:
+			return FastActivation.sigmoid(x);
+		case ACTIVATION_FAST_TANH:
+			return FastActivation.tanh(x);
+		default:
+			ActivationFunction plugin = FunctionRegistry.getActivationFunction(function & 0xFF);
+			if (plugin == null)
+				throw new IllegalStateException("Unknown activation function: " + (function & 0xFF));
+			return plugin.activate(x);
+		}
+	}
+
+	/**
+	 * Opcodes of the built-in functions, which the kernels evaluate inline.
+	 */
+	static final byte ACTIVATION_SIGMOID = 0;
+	static final byte ACTIVATION_TANH = 1;
+	static final byte ACTIVATION_STEP = 2;
+	static final byte ACTIVATION_RELU = 3;
+	static final byte ACTIVATION_LINEAR = 4;
+	static final byte ACTIVATION_FAST_SIGMOID = ActivationFunction.FAST_SIGMOID_OPCODE;
+	static final byte ACTIVATION_FAST_TANH = ActivationFunction.FAST_TANH_OPCODE;
+
+	static final byte AGGREGATION_SUM = 0;
+	static final byte AGGREGATION_PRODUCT = 1;
+	static final byte AGGREGATION_MIN = 2;
+	static final byte AGGREGATION_MAX = 3;
+	static final byte AGGREGATION_MEAN = 4;
+	static final byte AGGREGATION_MEDIAN = 5;
+	static final byte AGGREGATION_MAXABS = 6;
+
+	/**
+	 * Operation count of an activation function computing an exponential.
+	 */
+	private static final int EXPONENTIAL_OPERATIONS = 20;
+
+	/**
+	 * Operation count of a fast-math activation function, which interpolates a table.
+	 */
+	private static final int TABLE_OPERATIONS = 6;
+
+    /**
+     * @return Number of bytes written by {@link #writeTo(ByteBuffer)}.
+     */
+	public int getEncodedSize() {
+		return 5*Integer.BYTES + Double.BYTES
+				+ 2*numberOfNodes + 2*numberOfNodes*Double.BYTES
+				+ (numberOfNodes+1)*Integer.BYTES
+				+ inSource.length*(Integer.BYTES + Double.BYTES)
+				+ numberOfOutputs*(Integer.BYTES + Double.BYTES);
+	}
+
+    /**
+     * Writes the network at the buffer's current position using the buffer's byte order.
+     * The layout, which {@link MappedNetwork} evaluates in place, is:
+     * <pre>
+     * int inputs, int outputs, int nodes, int connections, int maxFanIn, double reluLeak
+     * byte[nodes] activation, byte[nodes] aggregation, double[nodes] bias, double[nodes] response
+     * int[nodes+1] inStart, int[connections] inSource, double[connections] inWeight
+     * int[outputs] outputIndex, double[outputs] outputThreshold
+     * </pre>
+     * @param buffer Destination buffer with at least {@link #getEncodedSize()} bytes remaining.
+     */
+	public void writeTo(ByteBuffer buffer) {
+		buffer.putInt(numberOfInputs);
+		buffer.putInt(numberOfOutputs);
+		buffer.putInt(numberOfNodes);
+		buffer.putInt(inSource.length);
+		buffer.putInt(maxFanIn);
+		buffer.putDouble(reluLeak);
+		buffer.put(activation);
+		buffer.put(aggregation);
+		for (int i = 0; i < numberOfNodes; i++)
+			buffer.putDouble(bias[i]);
+		for (int i = 0; i < numberOfNodes; i++)
+			buffer.putDouble(response[i]);
+		for (int i = 0; i <= numberOfNodes; i++)
+			buffer.putInt(inStart[i]);
+		for (int i = 0; i < inSource.length; i++)
+			buffer.putInt(inSource[i]);
+		for (int i = 0; i < inWeight.length; i++)
+			buffer.putDouble(inWeight[i]);
+		for (int i = 0; i < numberOfOutputs; i++)
+			buffer.putInt(outputIndex[i]);
+		for (int i = 0; i < numberOfOutputs; i++)
+			buffer.putDouble(outputThreshold[i]);
+	}
+
+    /**
+     * Reads a network written by {@link #writeTo(ByteBuffer)} from the buffer's current position.
+     * @param buffer Source buffer, using the same byte order it was written with.
+     * @return The decoded network.
+     */
+	public static CompiledNetwork readFrom(ByteBuffer buffer) {
+		int numberOfInputs = buffer.getInt();
+		int numberOfOutputs = buffer.getInt();
+		int numberOfNodes = buffer.getInt();
+		int edges = buffer.getInt();
+		buffer.getInt();
+		double reluLeak = buffer.getDouble();
+
+		byte[] activation = new byte[numberOfNodes];
+		byte[] aggregation = new byte[numberOfNodes];
+		buffer.get(activation);
+		buffer.get(aggregation);
+
+		double[] bias = new double[numberOfNodes];
+		double[] response = new double[numberOfNodes];
+		for (int i = 0; i < numberOfNodes; i++)
+			bias[i] = buffer.getDouble();
+		for (int i = 0; i < numberOfNodes; i++)
+			response[i] = buffer.getDouble();
+
+		int[] inStart = new int[numberOfNodes+1];
+		for (int i = 0; i <= numberOfNodes; i++)
+			inStart[i] = buffer.getInt();
+		int[] inSource = new int[edges];
+		for (int i = 0; i < edges; i++)
+			inSource[i] = buffer.getInt();
+		double[] inWeight = new double[edges];
+		for (int i = 0; i < edges; i++)
+			inWeight[i] = buffer.getDouble();
+
+		int[] outputIndex = new int[numberOfOutputs];
+		for (int i = 0; i < numberOfOutputs; i++)
+			outputIndex[i] = buffer.getInt();
+		double[] outputThreshold = new double[numberOfOutputs];
+		for (int i = 0; i < numberOfOutputs; i++)
+			outputThreshold[i] = buffer.getDouble();
+
+		return new CompiledNetwork(numberOfInputs, numberOfOutputs, numberOfNodes, reluLeak,
+				activation, aggregation, bias, response, inStart, inSource, inWeight, outputIndex, outputThreshold);
+	}
+
+}
@@ -1,11 +1,15 @@
 package main.java.neat.core;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.Random;
 
 import main.java.neat.config.NEATConfig;
+import main.java.neat.config.NEATConfig.INNOVATION_NUMBERING;
 
 /**
  * Represents a connection between two nodes in a neural network genome.
@@ -25,13 +29,13 @@ import main.java.neat.config.NEATConfig;
 public class Connection implements Serializable {
 
 	private static final long serialVersionUID = 6206971791599788488L;
-	protected final static int VOID_INTEGER_VALUE = Integer.MAX_VALUE;
+	protected final static long VOID_LONG_VALUE = Long.MAX_VALUE;
 	protected final static double VOID_DOUBLE_VALUE = Double.MAX_VALUE;
 	
 	private static LinkedList<Connection> innovationHistory = new LinkedList<> ();
-	private static int globalInnovationNumber;
+	private static long globalInnovationNumber;
 	
-	private transient Random random = new Random();
+	private transient Random random = RandomSource.newRandom();
 	
 	/**
 	 * Connection weight determining signal strength/amplification.
@@ -41,7 +45,13 @@ public class Connection implements Serializable {
 	/**
 	 * Unique historical marker for tracking structural innovations (default: unassigned).
 	 */
-	private int innovationNumber = VOID_INTEGER_VALUE;
+	private long innovation = VOID_LONG_VALUE;
+	
+	/**
+	 * 32-bit innovation number written by versions before innovations were widened to 64 bits.
+	 * Only kept so that previously saved genomes still load.
+	 */
+	private int innovationNumber;
 	
 	/**
 	 * Source node where this connection originates.
@@ -187,31 +197,101 @@ public class Connection implements Serializable {
     /**
      * @return Unique innovation number for historical tracking.
      */
-	public int getInnovationNumber() { return innovationNumber; }
+	public long getInnovationNumber() { return innovation; }
 	
     /**
      * Checks if another connection shares the same innovation history.
      * @param other Connection to compare with.
      * @return true if innovations numbers match.
      */
-	protected boolean hasSameInnovationNumberAs(Connection other) { return innovationNumber == other.innovationNumber; }
+	protected boolean hasSameInnovationNumberAs(Connection other) { return innovation == other.innovation; }
 	
     /**
      * Assigns a specific innovation number (for cross-network alignment).
      * @param innovationNumber Predefined innovation number.
      */
-	protected void setInnovationNumber(int innovationNumber) { this.innovationNumber = innovationNumber; }
+	protected void setInnovationNumber(long innovationNumber) { this.innovation = innovationNumber; }
 	
     /**
-     * Automatically assigns innovation number from global registry,
-     * reusing existing numbers for equivalent historical connections.
+     * Automatically assigns the innovation number according to the numbering mode.
+     * <ul>
+     * <li>SEQUENTIAL: taken from the process-wide registry, reusing existing numbers for
+     * equivalent historical connections.
+     * <li>HASHED: derived from the split innovation numbers of both end nodes.
+     * </ul>
+     * @param innovationNumbering Innovation numbering mode.
      */
-	protected void setInnovationNumber() {
+	protected void setInnovationNumber(INNOVATION_NUMBERING innovationNumbering) {
+		if (innovationNumbering == INNOVATION_NUMBERING.HASHED) {
+			innovation = hashInnovationNumber(from.getSplitInnovationNumber(), to.getSplitInnovationNumber());
+			return;
+		}
+		
 		int index = innovationHistory.indexOf(this);
 		if (index == -1) {
-			innovationNumber = globalInnovationNumber++;
+			innovation = globalInnovationNumber++;
 			innovationHistory.add(clone());
-		}else innovationNumber = innovationHistory.get(index).innovationNumber;
+		}else innovation = innovationHistory.get(index).innovation;
+	}
+	
+    /**
+     * Derives a 63-bit innovation number from the identities of a connection's end nodes.
+     * The same pair always yields the same number, in any process, and the direction matters.
+     * The result is never negative (the range of input/output node identities) and never
+     * equal to the unassigned marker.
+     * @param fromSplitInnovationNumber Split innovation number of the source node.
+     * @param toSplitInnovationNumber Split innovation number of the destination node.
+     * @return Innovation number of the connection.
+     */
+	protected static long hashInnovationNumber(long fromSplitInnovationNumber, long toSplitInnovationNumber) {
+		long hash = mix(fromSplitInnovationNumber + 0x9E3779B97F4A7C15L);
+		hash = mix(hash ^ (toSplitInnovationNumber + 0xC2B2AE3D27D4EB4FL)) & Long.MAX_VALUE;
+		return hash == VOID_LONG_VALUE ? hash-1 : hash;
+	}
+	
+    /**
+     * Captures the sequential innovation registry as consecutive
+     * (from split innovation, to split innovation, innovation) triples.
+     * @return Flattened registry entries in registration order.
+     */
+	protected static long[] getInnovationHistory() {
+		long[] history = new long[innovationHistory.size()*3];
+		int i = 0;
+		for (Connection connection: innovationHistory) {
+			history[i++] = connection.from.getSplitInnovationNumber();
+			history[i++] = connection.to.getSplitInnovationNumber();
+			history[i++] = connection.innovation;
+		}
+		return history;
+	}
+
+    /**
+     * @return The next innovation number the sequential registry will assign.
+     */
+	protected static long getGlobalInnovationNumber() { return globalInnovationNumber; }
+
+    /**
+     * Replaces the sequential innovation registry with previously captured entries.
+     * @param history Entries as returned by {@link #getInnovationHistory()}.
+     * @param nextInnovationNumber The next innovation number to assign.
+     */
+	protected static void restoreInnovationHistory(long[] history, long nextInnovationNumber) {
+		innovationHistory.clear();
+		for (int i = 0; i < history.length; i += 3) {
+			Node from = new Node(Node.TYPE.HIDDEN), to = new Node(Node.TYPE.HIDDEN);
+			from.setSplitInnovationNumber(history[i]);
+			to.setSplitInnovationNumber(history[i+1]);
+			Connection connection = new Connection(from, to);
+			connection.innovation = history[i+2];
+			innovationHistory.add(connection);
+		}
+		globalInnovationNumber = nextInnovationNumber;
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
 	}
 	
     /**
@@ -223,7 +303,7 @@ public class Connection implements Serializable {
 		Connection clone = new Connection(from.clone(), to.clone());
 		clone.weight = weight;
 		clone.enabled = enabled;
-		clone.innovationNumber = innovationNumber;
+		clone.innovation = innovation;
 		clone.nodeAddable = nodeAddable;
 		clone.recurrent = recurrent;
 		return clone;
@@ -263,9 +343,9 @@ public class Connection implements Serializable {
 		if (!(obj instanceof Connection))
 			return false;
 		Connection other = (Connection) obj;
-		if (innovationNumber == VOID_INTEGER_VALUE || other.innovationNumber == VOID_INTEGER_VALUE)
+		if (innovation == VOID_LONG_VALUE || other.innovation == VOID_LONG_VALUE)
 			return from.equals(other.from) && to.equals(other.to);
-		return innovationNumber == other.innovationNumber;
+		return innovation == other.innovation;
 	}
 	
     /**
@@ -274,10 +354,22 @@ public class Connection implements Serializable {
 	@Override
 	public String toString() {
 		return String.format("Innovation number: %d, Recurrent: %b, From: %s, To: %s",
-				innovationNumber,
+				innovation,
 				isRecurrent(),
 				from,
 				to);
 	}
 	
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		innovationNumber = (int) innovation;
+		out.defaultWriteObject();
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		random = RandomSource.newRandom();
+		if (innovation == 0)
+			innovation = innovationNumber;
+	}
+	
 }
@@ -0,0 +1,25 @@
+package main.java.neat.core;
+
+/**
+ * Receives a {@link GenerationEvent} after every call to {@link Neat#evolve(boolean)}.
+ * 
+ * <p>Example usage:
+ * <pre>
+ * neat.addEvolutionListener(event -&gt; System.out.println(
+ *         event.getGeneration() + ": speciate took " + event.getWallNanos(PHASE.SPECIATE)/1e6 + " ms"));
+ * </pre>
+ * 
+ * <p>Listeners are called on the thread running {@code evolve}, so they should return quickly.
+ * 
+ * @author Taher Joudeh
+ */
+@FunctionalInterface
+public interface EvolutionListener {
+
+    /**
+     * Called once a generation has been evolved.
+     * @param event Statistics and phase timings of the evolved generation.
+     */
+	void generationEvolved(GenerationEvent event);
+	
+}
@@ -0,0 +1,186 @@
+package main.java.neat.core;
+
+/**
+ * Statistics of one evolved generation, delivered to {@link EvolutionListener}s.
+ *
+ * <p>Fitness, species and genome statistics describe the evaluated generation as it was
+ * passed to {@link Neat#evolve(boolean)}. Phase timings describe the call itself.
+ *
+ * @author Taher Joudeh
+ */
+public final class GenerationEvent {
+
+	/**
+	 * Phases of {@link Neat#evolve(boolean)}.
+	 * <ul>
+	 * <li><b>CALCULATE_FITNESS</b>: Species fitness and adjusted fitness.</li>
+	 * <li><b>SORT</b>: Sorting agents within species and species by fitness.</li>
+	 * <li><b>CULL</b>: Removing stagnated species.</li>
+	 * <li><b>ALLOCATE</b>: Allocating elites and offspring to species.</li>
+	 * <li><b>REPRODUCE</b>: Creating the next generation's genomes.</li>
+	 * <li><b>SPECIATE</b>: Assigning the next generation to species.</li>
+	 * <li><b>OTHER</b>: Everything else (statistics, termination check, journaling, threshold adjustment).</li>
+	 * </ul>
+	 */
+	public static enum PHASE {
+		CALCULATE_FITNESS,
+		SORT,
+		CULL,
+		ALLOCATE,
+		REPRODUCE,
+		SPECIATE,
+		OTHER
+	}
+
+	private final int generation;
+	private final boolean terminated;
+	private final double populationFitness, bestFitness, compatibilityThreshold;
+	private final int[] speciesSizes, nodeCounts, connectionCounts;
+	private final int minNodes, maxNodes, minConnections, maxConnections;
+	private final double meanNodes, meanConnections;
+	private final long[] wallNanos, cpuNanos, allocatedBytes;
+
+	protected GenerationEvent(int generation, boolean terminated, double populationFitness, double bestFitness,
+			double compatibilityThreshold, int[] speciesSizes, Genome[] genomes, PhaseTimer timer) {
+		this.generation = generation;
+		this.terminated = terminated;
+		this.populationFitness = populationFitness;
+		this.bestFitness = bestFitness;
+		this.compatibilityThreshold = compatibilityThreshold;
+		this.speciesSizes = speciesSizes;
+
+		nodeCounts = new int[genomes.length];
+		connectionCounts = new int[genomes.length];
+		int minNodes = Integer.MAX_VALUE, maxNodes = 0, minConnections = Integer.MAX_VALUE, maxConnections = 0;
+		long nodes = 0, connections = 0;
+		for (int i = 0; i < genomes.length; i++) {
+			int n = nodeCounts[i] = genomes[i].getNodes().size();
+			int c = connectionCounts[i] = genomes[i].getNumberOfConnections();
+			minNodes = Math.min(minNodes, n);
+			maxNodes = Math.max(maxNodes, n);
+			minConnections = Math.min(minConnections, c);
+			maxConnections = Math.max(maxConnections, c);
+			nodes += n;
+			connections += c;
+		}
+		this.minNodes = minNodes;
+		this.maxNodes = maxNodes;
+		this.minConnections = minConnections;
+		this.maxConnections = maxConnections;
+		this.meanNodes = nodes/(double)genomes.length;
+		this.meanConnections = connections/(double)genomes.length;
+
+		wallNanos = new long[PHASE.values().length];
+		cpuNanos = new long[PHASE.values().length];
+		allocatedBytes = new long[PHASE.values().length];
+		for (PHASE phase: PHASE.values()) {
+			wallNanos[phase.ordinal()] = timer.getWallNanos(phase);
+			cpuNanos[phase.ordinal()] = timer.getCpuNanos(phase);
+			allocatedBytes[phase.ordinal()] = timer.getAllocatedBytes(phase);
+		}
+	}
+
+    /**
+     * @return The evolved generation number.
+     */
+	public int getGeneration() { return generation; }
+
+    /**
+     * @return True if the run terminated on this generation; the reproduction phases were then skipped.
+     */
+	public boolean isTerminated() { return terminated; }
+
+    /**
+     * @return Mean fitness of the generation.
+     */
+	public double getPopulationFitness() { return populationFitness; }
+
+    /**
+     * @return Fitness of the generation's best agent.
+     */
+	public double getBestFitness() { return bestFitness; }
+
+    /**
+     * @return Compatibility threshold used to speciate the next generation.
+     */
+	public double getCompatibilityThreshold() { return compatibilityThreshold; }
+
+    /**
+     * @return Number of species in the generation.
+     */
+	public int getNumberOfSpecies() { return speciesSizes.length; }
+
+    /**
+     * @return Number of agents in each species of the generation.
+     */
+	public int[] getSpeciesSizes() { return speciesSizes.clone(); }
+
+    /**
+     * @return Smallest number of nodes of a genome in the generation.
+     */
+	public int getMinNodes() { return minNodes; }
+
+    /**
+     * @return Largest number of nodes of a genome in the generation.
+     */
+	public int getMaxNodes() { return maxNodes; }
+
+    /**
+     * @return Mean number of nodes per genome in the generation.
+     */
+	public double getMeanNodes() { return meanNodes; }
+
+    /**
+     * @return Smallest number of connections of a genome in the generation.
+     */
+	public int getMinConnections() { return minConnections; }
+
+    /**
+     * @return Largest number of connections of a genome in the generation.
+     */
+	public int getMaxConnections() { return maxConnections; }
+
+    /**
+     * @return Mean number of connections per genome in the generation.
+     */
+	public double getMeanConnections() { return meanConnections; }
+
+    /**
+     * @return Number of nodes of each genome, in population order.
+     */
+	public int[] getNodeCounts() { return nodeCounts.clone(); }
+
+    /**
+     * @return Number of connections of each genome, in population order.
+     */
+	public int[] getConnectionCounts() { return connectionCounts.clone(); }
+
+    /**
+     * @param phase Phase of the evolve call.
+     * @return Wall-clock time spent in the phase, in nanoseconds.
+     */
+	public long getWallNanos(PHASE phase) { return wallNanos[phase.ordinal()]; }
+
+    /**
+     * @param phase Phase of the evolve call.
+     * @return CPU time spent in the phase, in nanoseconds, or -1 if not supported by the JVM.
+     */
+	public long getCpuNanos(PHASE phase) { return cpuNanos[phase.ordinal()]; }
+
+    /**
+     * @param phase Phase of the evolve call.
+     * @return Bytes allocated by the evolving thread during the phase, or -1 if not supported by the JVM.
+     */
+	public long getAllocatedBytes(PHASE phase) { return allocatedBytes[phase.ordinal()]; }
+
+    /**
+     * @return Wall-clock time of the whole evolve call, in nanoseconds.
+     */
+	public long getTotalWallNanos() {
+		long total = 0;
+		for (long nanos: wallNanos)
+			total += nanos;
+		return total;
+	}
+
+}
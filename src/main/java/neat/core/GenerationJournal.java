@@ -0,0 +1,337 @@
+package main.java.neat.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import main.java.neat.config.NEATConfig;
+
+/**
+ * Append-only, memory-mapped log of every generation of a run.
+ *
+ * <p>Each generation is appended as one block holding a fixed-size table of the agents'
+ * fitness, species number and parents, followed by the agents' genomes. Genomes are
+ * encoded relative to their primary parent in the previous generation (unchanged genes
+ * cost a byte), with a full keyframe generation every {@code keyframeInterval}
+ * generations to bound the decoding chain. An offset index, kept in a sibling file with
+ * the {@code .idx} suffix, gives random access to any generation; the log is read back
+ * with {@link GenerationJournalReader}.
+ *
+ * <p>Example usage:
+ * <pre>
+ * try (GenerationJournal journal = new GenerationJournal(Paths.get("run.journal"), neatConfig)) {
+ *     neat.setJournal(journal);
+ *     while (!neat.isTerminated()) {
+ *         // evaluate...
+ *         neat.evolve(true);
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>Opening an existing journal continues it. Appending a generation that was already
+ * journaled (after resuming from an older checkpoint) discards that generation and
+ * everything after it.
+ *
+ * <p>File layout (little endian):
+ * <pre>
+ * header   int magic, int version, long configHash, long committedLength, int keyframeInterval (64 bytes)
+ * block    int magic, int generation, int populationSize, int flags (1 = keyframe), long blockLength,
+ *          agent[populationSize], genome records
+ * agent    double fitness, int speciesNumber, int parent, int secondParent,
+ *          int recordOffset, int recordLength, int recordFlags (1 = delta)   (32 bytes)
+ * index    per block: long offset, int generation, int padding
+ * </pre>
+ * Full records use the body format of {@link GenomeCodec}. Delta records list, for every
+ * node and connection, either a reference to the matching gene of the parent (with the
+ * changed values, if any) or a full new gene.
+ *
+ * @author Taher Joudeh
+ */
+public class GenerationJournal implements Closeable {
+
+	static final int MAGIC = 0x4E4A524E, BLOCK_MAGIC = 0x4E47454E;
+	static final int VERSION = 1;
+
+	static final int HEADER_SIZE = 64;
+	static final int CONFIG_HASH_OFFSET = 8;
+	static final int COMMITTED_OFFSET = 16;
+	static final int KEYFRAME_INTERVAL_OFFSET = 24;
+
+	static final int BLOCK_HEADER_SIZE = 24;
+	static final int BLOCK_GENERATION = 4, BLOCK_POPULATION_SIZE = 8, BLOCK_FLAGS = 12, BLOCK_LENGTH = 16;
+	static final int KEYFRAME = 1;
+
+	static final int AGENT_SIZE = 32;
+	static final int AGENT_FITNESS = 0, AGENT_SPECIES = 8, AGENT_PARENT = 12, AGENT_SECOND_PARENT = 16,
+			AGENT_RECORD_OFFSET = 20, AGENT_RECORD_LENGTH = 24, AGENT_RECORD_FLAGS = 28;
+	static final int DELTA = 1;
+
+	static final int INDEX_ENTRY_SIZE = 16;
+
+	private static final int WINDOW_SIZE = 16 << 20;
+	private static final int DEFAULT_KEYFRAME_INTERVAL = 10;
+
+	private final FileChannel channel, indexChannel;
+	private final MappedByteBuffer header;
+	private final long configHash;
+	private final int keyframeInterval;
+
+	private final ArrayList<long[]> index = new ArrayList<> ();
+	private MappedByteBuffer window;
+	private long windowStart;
+	private long committed;
+
+	private Genome[] previous;
+	private int previousGeneration;
+	private int sinceKeyframe;
+
+    /**
+     * Opens or creates a journal with a keyframe every 10 generations.
+     * @param file Journal file.
+     * @param neatConfig Configuration of the journaled run.
+     * @throws IOException If the file cannot be opened, or is a journal of another configuration.
+     */
+	public GenerationJournal(Path file, NEATConfig neatConfig) throws IOException {
+		this(file, neatConfig, DEFAULT_KEYFRAME_INTERVAL);
+	}
+
+    /**
+     * Opens or creates a journal.
+     * @param file Journal file.
+     * @param neatConfig Configuration of the journaled run.
+     * @param keyframeInterval Number of generations between fully encoded generations.
+     * @throws IOException If the file cannot be opened, or is a journal of another configuration.
+     * @throws IllegalArgumentException If keyframeInterval is less than 1.
+     */
+	public GenerationJournal(Path file, NEATConfig neatConfig, int keyframeInterval) throws IOException {
+		if (keyframeInterval < 1)
+			throw new IllegalArgumentException("keyframeInterval must be positive: " + keyframeInterval);
+
+		this.configHash = GenomeCodec.configHash(neatConfig);
+		this.keyframeInterval = keyframeInterval;
+
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		indexChannel = FileChannel.open(indexPath(file), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		boolean exists = channel.size() >= HEADER_SIZE;
+		header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+
+		if (exists) {
+			if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getLong(CONFIG_HASH_OFFSET) != configHash) {
+				close();
+				throw new IOException("Not a journal of this configuration: " + file);
+			}
+			committed = header.getLong(COMMITTED_OFFSET);
+			loadIndex();
+		}else {
+			header.putInt(0, MAGIC);
+			header.putInt(4, VERSION);
+			header.putLong(CONFIG_HASH_OFFSET, configHash);
+			header.putInt(KEYFRAME_INTERVAL_OFFSET, keyframeInterval);
+			committed = HEADER_SIZE;
+			header.putLong(COMMITTED_OFFSET, committed);
+			indexChannel.truncate(0);
+		}
+	}
+
+	static Path indexPath(Path file) {
+		return Paths.get(file.toString() + ".idx");
+	}
+
+	private void loadIndex() throws IOException {
+		ByteBuffer entries = ByteBuffer.allocate((int) indexChannel.size()).order(ByteOrder.LITTLE_ENDIAN);
+		while (entries.hasRemaining() && indexChannel.read(entries, entries.position()) > 0);
+		for (int i = 0; i + INDEX_ENTRY_SIZE <= entries.capacity(); i += INDEX_ENTRY_SIZE) {
+			long offset = entries.getLong(i);
+			if (offset >= committed)
+				break;
+			index.add(new long[] {offset, entries.getInt(i+8)});
+		}
+		indexChannel.truncate((long) index.size()*INDEX_ENTRY_SIZE);
+	}
+
+    /**
+     * Appends one generation.
+     * @param generation Generation number.
+     * @param population Evaluated agents of the generation.
+     * @param parents Index of each agent's primary parent in the previous generation, or -1.
+     * @param secondParents Index of each agent's second parent in the previous generation, or -1.
+     * @throws IOException If writing fails.
+     */
+	protected void append(int generation, Agent[] population, int[] parents, int[] secondParents) throws IOException {
+		rewind(generation);
+
+		boolean keyframe = previous == null || previousGeneration != generation-1 || sinceKeyframe >= keyframeInterval-1;
+		GenomeCodec.Writer block = new GenomeCodec.Writer(BLOCK_HEADER_SIZE + population.length*(AGENT_SIZE+256));
+		block.putInt(BLOCK_MAGIC);
+		block.putInt(generation);
+		block.putInt(population.length);
+		block.putInt(keyframe ? KEYFRAME : 0);
+		block.putLong(0);
+
+		int table = block.size();
+		for (int i = 0; i < population.length*AGENT_SIZE; i += 8)
+			block.putLong(0);
+
+		Genome[] genomes = new Genome[population.length];
+		for (int i = 0; i < population.length; i++) {
+			genomes[i] = population[i].getGenome();
+			int entry = table + i*AGENT_SIZE;
+			int parent = parents == null ? -1 : parents[i];
+			block.setLong(entry + AGENT_FITNESS, Double.doubleToRawLongBits(population[i].getFitness()));
+			block.setInt(entry + AGENT_SPECIES, population[i].getSpeciesNumber());
+			block.setInt(entry + AGENT_PARENT, parent);
+			block.setInt(entry + AGENT_SECOND_PARENT, secondParents == null ? -1 : secondParents[i]);
+
+			int start = block.size();
+			boolean delta = !keyframe && parent >= 0 && parent < previous.length;
+			if (delta)
+				writeDelta(block, genomes[i], previous[parent]);
+			else GenomeCodec.writeBody(block, genomes[i]);
+			block.setInt(entry + AGENT_RECORD_OFFSET, start);
+			block.setInt(entry + AGENT_RECORD_LENGTH, block.size() - start);
+			block.setInt(entry + AGENT_RECORD_FLAGS, delta ? DELTA : 0);
+		}
+		block.setLong(BLOCK_LENGTH, block.size());
+
+		long offset = committed;
+		write(block.array(), block.size());
+
+		ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		entry.putLong(0, offset).putInt(8, generation);
+		long position = (long) index.size()*INDEX_ENTRY_SIZE;
+		while (entry.hasRemaining())
+			position += indexChannel.write(entry, position);
+		index.add(new long[] {offset, generation});
+
+		committed += block.size();
+		header.putLong(COMMITTED_OFFSET, committed);
+
+		previous = genomes;
+		previousGeneration = generation;
+		sinceKeyframe = keyframe ? 0 : sinceKeyframe+1;
+	}
+
+	private void rewind(int generation) throws IOException {
+		int keep = index.size();
+		while (keep > 0 && index.get(keep-1)[1] >= generation)
+			keep--;
+		if (keep == index.size())
+			return;
+
+		committed = index.get(keep)[0];
+		header.putLong(COMMITTED_OFFSET, committed);
+		while (index.size() > keep)
+			index.remove(index.size()-1);
+		indexChannel.truncate((long) keep*INDEX_ENTRY_SIZE);
+		previous = null;
+	}
+
+	private void write(byte[] bytes, int length) throws IOException {
+		if (window == null || committed < windowStart || committed + length > windowStart + window.capacity()) {
+			windowStart = committed;
+			window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, Math.max(WINDOW_SIZE, length));
+		}
+		window.position((int)(committed - windowStart));
+		window.put(bytes, 0, length);
+	}
+
+	private static void writeDelta(GenomeCodec.Writer out, Genome child, Genome parent) {
+		ArrayList<Node> parentNodes = parent.getNodes();
+		ArrayList<Connection> parentConnections = parent.getConnections();
+		HashMap<Long,Integer> nodeIndex = new HashMap<> ();
+		for (int i = 0; i < parentNodes.size(); i++)
+			nodeIndex.put(parentNodes.get(i).getSplitInnovationNumber(), i);
+		HashMap<Long,Integer> connectionIndex = new HashMap<> ();
+		for (int i = 0; i < parentConnections.size(); i++)
+			connectionIndex.put(parentConnections.get(i).getInnovationNumber(), i);
+
+		ArrayList<Node> nodes = child.getNodes();
+		ArrayList<Connection> connections = child.getConnections();
+		out.putVarLong(child.getNumberOfLayers()-2);
+		out.putVarLong(nodes.size());
+		out.putVarLong(connections.size());
+
+		IdentityHashMap<Node,Integer> childIndex = new IdentityHashMap<> ();
+		int previous = -1;
+		for (Node node: nodes) {
+			childIndex.put(node, childIndex.size());
+			Integer k = nodeIndex.get(node.getSplitInnovationNumber());
+			if (k == null || parentNodes.get(k).getType() != node.getType()) {
+				out.putVarLong(0);
+				out.putByte(node.getType().ordinal());
+				out.putVarLong(GenomeCodec.zigzag(node.getSplitInnovationNumber()));
+				GenomeCodec.writeNodeGenes(out, node);
+				continue;
+			}
+			boolean changed = !sameGenes(node, parentNodes.get(k));
+			out.putVarLong(reference(k - (previous+1), changed));
+			if (changed)
+				GenomeCodec.writeNodeGenes(out, node);
+			previous = k;
+		}
+
+		previous = -1;
+		for (Connection connection: connections) {
+			Integer j = connectionIndex.get(connection.getInnovationNumber());
+			if (j == null || !sameEnds(connection, parentConnections.get(j))) {
+				out.putVarLong(0);
+				out.putVarLong(GenomeCodec.zigzag(connection.getInnovationNumber()));
+				out.putVarLong(childIndex.get(connection.getFrom()));
+				out.putVarLong(childIndex.get(connection.getTo()));
+				GenomeCodec.writeConnectionGenes(out, connection);
+				continue;
+			}
+			boolean changed = !sameGenes(connection, parentConnections.get(j));
+			out.putVarLong(reference(j - (previous+1), changed));
+			if (changed)
+				GenomeCodec.writeConnectionGenes(out, connection);
+			previous = j;
+		}
+	}
+
+	private static long reference(long skip, boolean changed) {
+		return ((GenomeCodec.zigzag(skip)+1) << 1) | (changed ? 1 : 0);
+	}
+
+	private static boolean sameGenes(Node a, Node b) {
+		return a.getLayer() == b.getLayer()
+				&& a.getActivationFunction().getOpcode() == b.getActivationFunction().getOpcode()
+				&& (a.getAggregationFunction() == null ? b.getAggregationFunction() == null
+						: b.getAggregationFunction() != null && a.getAggregationFunction().getOpcode() == b.getAggregationFunction().getOpcode())
+				&& Double.doubleToRawLongBits(a.getBias()) == Double.doubleToRawLongBits(b.getBias())
+				&& Double.doubleToRawLongBits(a.getResponse()) == Double.doubleToRawLongBits(b.getResponse());
+	}
+
+	private static boolean sameEnds(Connection a, Connection b) {
+		return a.getFrom().getSplitInnovationNumber() == b.getFrom().getSplitInnovationNumber()
+				&& a.getTo().getSplitInnovationNumber() == b.getTo().getSplitInnovationNumber();
+	}
+
+	private static boolean sameGenes(Connection a, Connection b) {
+		return a.isEnabled() == b.isEnabled() && a.isRecurrent() == b.isRecurrent() && a.isNodeAddable() == b.isNodeAddable()
+				&& Double.doubleToRawLongBits(a.getWeight()) == Double.doubleToRawLongBits(b.getWeight());
+	}
+
+    /**
+     * Flushes the journal to disk and closes it.
+     */
+	@Override
+	public void close() throws IOException {
+		if (window != null)
+			window.force();
+		header.force();
+		indexChannel.close();
+		channel.close();
+	}
+
+}
@@ -0,0 +1,318 @@
+package main.java.neat.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import main.java.neat.config.NEATConfig;
+import main.java.neat.config.NEATConfig.FITNESS_CRITERION;
+import main.java.neat.core.Node.TYPE;
+
+/**
+ * Random-access reader of a {@link GenerationJournal}.
+ *
+ * <p>Generation blocks are memory-mapped read-only on first access; fitness values,
+ * species numbers and parents are read straight from the mapping without decoding any
+ * genome. Genomes are decoded on demand, replaying parent deltas from the nearest keyframe.
+ *
+ * <p>Example usage:
+ * <pre>
+ * try (GenerationJournalReader journal = new GenerationJournalReader(Paths.get("run.journal"), neatConfig)) {
+ *     int last = journal.getLastGeneration();
+ *     int champion = journal.getChampion(last);
+ *     int[] lineage = journal.getLineage(last, champion);
+ *     Genome genome = journal.getGenome(last, champion);
+ * }
+ * </pre>
+ *
+ * @author Taher Joudeh
+ */
+public class GenerationJournalReader implements Closeable {
+
+	private final FileChannel channel;
+	private final NEATConfig neatConfig;
+	private final int firstGeneration;
+	private final long[] offsets;
+	private final ByteBuffer[] blocks;
+
+    /**
+     * Opens a journal for reading.
+     * @param file Journal file.
+     * @param neatConfig Configuration of the journaled run.
+     * @throws IOException If the file cannot be read, or is a journal of another configuration.
+     */
+	public GenerationJournalReader(Path file, NEATConfig neatConfig) throws IOException {
+		this.neatConfig = neatConfig;
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+
+		ByteBuffer header = ByteBuffer.allocate(GenerationJournal.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		while (header.hasRemaining() && channel.read(header, header.position()) > 0);
+		if (header.getInt(0) != GenerationJournal.MAGIC || header.getInt(4) != GenerationJournal.VERSION
+				|| header.getLong(GenerationJournal.CONFIG_HASH_OFFSET) != GenomeCodec.configHash(neatConfig)) {
+			channel.close();
+			throw new IOException("Not a journal of this configuration: " + file);
+		}
+		long committed = header.getLong(GenerationJournal.COMMITTED_OFFSET);
+
+		ArrayList<long[]> entries = new ArrayList<> ();
+		try (FileChannel indexChannel = FileChannel.open(GenerationJournal.indexPath(file), StandardOpenOption.READ)) {
+			ByteBuffer index = ByteBuffer.allocate((int) indexChannel.size()).order(ByteOrder.LITTLE_ENDIAN);
+			while (index.hasRemaining() && indexChannel.read(index, index.position()) > 0);
+			for (int i = 0; i + GenerationJournal.INDEX_ENTRY_SIZE <= index.capacity(); i += GenerationJournal.INDEX_ENTRY_SIZE)
+				if (index.getLong(i) < committed)
+					entries.add(new long[] {index.getLong(i), index.getInt(i+8)});
+		}
+
+		if (entries.isEmpty()) {
+			firstGeneration = 0;
+			offsets = new long[0];
+		}else {
+			firstGeneration = (int) entries.get(0)[1];
+			offsets = new long[(int) entries.get(entries.size()-1)[1] - firstGeneration + 1];
+			Arrays.fill(offsets, -1);
+			for (long[] entry: entries)
+				offsets[(int) entry[1] - firstGeneration] = entry[0];
+		}
+		blocks = new ByteBuffer[offsets.length];
+	}
+
+    /**
+     * @return The first journaled generation.
+     */
+	public int getFirstGeneration() { return firstGeneration; }
+
+    /**
+     * @return The last journaled generation, less than the first one if the journal is empty.
+     */
+	public int getLastGeneration() { return firstGeneration + offsets.length - 1; }
+
+    /**
+     * @param generation Generation number.
+     * @return True if the generation is in the journal.
+     */
+	public boolean hasGeneration(int generation) {
+		int i = generation - firstGeneration;
+		return i >= 0 && i < offsets.length && offsets[i] >= 0;
+	}
+
+	private ByteBuffer block(int generation) {
+		if (!hasGeneration(generation))
+			throw new IllegalArgumentException("Generation not journaled: " + generation);
+		int i = generation - firstGeneration;
+		if (blocks[i] == null) {
+			try {
+				ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, offsets[i], GenerationJournal.BLOCK_HEADER_SIZE)
+						.order(ByteOrder.LITTLE_ENDIAN);
+				long length = header.getLong(GenerationJournal.BLOCK_LENGTH);
+				blocks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offsets[i], length).order(ByteOrder.LITTLE_ENDIAN);
+			} catch (IOException e) { throw new IllegalStateException(e); }
+		}
+		return blocks[i];
+	}
+
+	private static int entry(int index) {
+		return GenerationJournal.BLOCK_HEADER_SIZE + index*GenerationJournal.AGENT_SIZE;
+	}
+
+    /**
+     * @param generation Generation number.
+     * @return Number of agents journaled for the generation.
+     */
+	public int getPopulationSize(int generation) {
+		return block(generation).getInt(GenerationJournal.BLOCK_POPULATION_SIZE);
+	}
+
+    /**
+     * @param generation Generation number.
+     * @param index Index of the agent in the population.
+     * @return Fitness of the agent.
+     */
+	public double getFitness(int generation, int index) {
+		return block(generation).getDouble(entry(index) + GenerationJournal.AGENT_FITNESS);
+	}
+
+    /**
+     * @param generation Generation number.
+     * @param index Index of the agent in the population.
+     * @return Species number of the agent.
+     */
+	public int getSpeciesNumber(int generation, int index) {
+		return block(generation).getInt(entry(index) + GenerationJournal.AGENT_SPECIES);
+	}
+
+    /**
+     * @param generation Generation number.
+     * @param index Index of the agent in the population.
+     * @return Index of the agent's primary parent (the one its genes are inherited from) in the previous generation, or -1.
+     */
+	public int getParent(int generation, int index) {
+		return block(generation).getInt(entry(index) + GenerationJournal.AGENT_PARENT);
+	}
+
+    /**
+     * @param generation Generation number.
+     * @param index Index of the agent in the population.
+     * @return Index of the agent's second crossover parent in the previous generation, or -1.
+     */
+	public int getSecondParent(int generation, int index) {
+		return block(generation).getInt(entry(index) + GenerationJournal.AGENT_SECOND_PARENT);
+	}
+
+    /**
+     * @param generation Generation number.
+     * @return Index of the fittest agent of the generation, according to the fitness criterion.
+     */
+	public int getChampion(int generation) {
+		boolean min = neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MIN;
+		int champion = 0;
+		for (int i = 1; i < getPopulationSize(generation); i++) {
+			double fitness = getFitness(generation, i);
+			if (min ? fitness < getFitness(generation, champion) : fitness > getFitness(generation, champion))
+				champion = i;
+		}
+		return champion;
+	}
+
+    /**
+     * Follows primary parents back through the journal.
+     * @param generation Generation number.
+     * @param index Index of the agent in the population.
+     * @return Population indices of the agent and its ancestors; element k belongs to generation {@code generation-k}.
+     */
+	public int[] getLineage(int generation, int index) {
+		ArrayList<Integer> lineage = new ArrayList<> ();
+		lineage.add(index);
+		while (index >= 0 && hasGeneration(generation-1)) {
+			index = getParent(generation--, index);
+			if (index >= 0)
+				lineage.add(index);
+		}
+		return lineage.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+    /**
+     * Decodes the genome of an agent.
+     * @param generation Generation number.
+     * @param index Index of the agent in the population.
+     * @return The agent's genome.
+     */
+	public Genome getGenome(int generation, int index) {
+		return decode(generation, index, new HashMap<> ());
+	}
+
+    /**
+     * Decodes the genomes of a whole generation, sharing decoded ancestors between agents.
+     * @param generation Generation number.
+     * @return The genomes in population order.
+     */
+	public Genome[] getGenomes(int generation) {
+		HashMap<Long,Genome> decoded = new HashMap<> ();
+		Genome[] genomes = new Genome[getPopulationSize(generation)];
+		for (int i = 0; i < genomes.length; i++)
+			genomes[i] = decode(generation, i, decoded);
+		return genomes;
+	}
+
+	private Genome decode(int generation, int index, HashMap<Long,Genome> decoded) {
+		long key = ((long) generation << 32) | index;
+		Genome genome = decoded.get(key);
+		if (genome != null)
+			return genome;
+
+		ByteBuffer block = block(generation);
+		int entry = entry(index);
+		ByteBuffer record = block.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		record.position(block.getInt(entry + GenerationJournal.AGENT_RECORD_OFFSET));
+
+		if ((block.getInt(entry + GenerationJournal.AGENT_RECORD_FLAGS) & GenerationJournal.DELTA) == 0)
+			genome = GenomeCodec.readBody(record, neatConfig);
+		else genome = readDelta(record, decode(generation-1, block.getInt(entry + GenerationJournal.AGENT_PARENT), decoded));
+
+		decoded.put(key, genome);
+		return genome;
+	}
+
+	private Genome readDelta(ByteBuffer in, Genome parent) {
+		ArrayList<Node> parentNodes = parent.getNodes();
+		ArrayList<Connection> parentConnections = parent.getConnections();
+
+		int hiddenLayers = (int) GenomeCodec.getVarLong(in);
+		int numberOfNodes = (int) GenomeCodec.getVarLong(in);
+		int numberOfConnections = (int) GenomeCodec.getVarLong(in);
+
+		ArrayList<Node> nodes = new ArrayList<> (numberOfNodes);
+		HashMap<Long,Node> bySplit = new HashMap<> ();
+		int previous = -1;
+		for (int i = 0; i < numberOfNodes; i++) {
+			long code = GenomeCodec.getVarLong(in);
+			Node node;
+			if (code == 0) {
+				node = new Node(TYPE.values()[in.get()]);
+				node.setSplitInnovationNumber(GenomeCodec.unzigzag(GenomeCodec.getVarLong(in)));
+				GenomeCodec.readNodeGenes(in, node, neatConfig);
+			}else {
+				previous += 1 + (int) GenomeCodec.unzigzag((code >>> 1) - 1);
+				Node source = parentNodes.get(previous);
+				node = new Node(source.getType());
+				node.setSplitInnovationNumber(source.getSplitInnovationNumber());
+				if ((code & 1) != 0)
+					GenomeCodec.readNodeGenes(in, node, neatConfig);
+				else {
+					node.setLayer(source.getLayer());
+					node.setActivationFunction(source.getActivationFunction());
+					node.setAggregationFunction(source.getAggregationFunction());
+					node.setBias(source.getBias());
+					node.setResponse(source.getResponse());
+				}
+			}
+			nodes.add(node);
+			bySplit.put(node.getSplitInnovationNumber(), node);
+		}
+
+		ArrayList<Connection> connections = new ArrayList<> (numberOfConnections);
+		previous = -1;
+		for (int i = 0; i < numberOfConnections; i++) {
+			long code = GenomeCodec.getVarLong(in);
+			Connection connection;
+			if (code == 0) {
+				long innovation = GenomeCodec.unzigzag(GenomeCodec.getVarLong(in));
+				connection = new Connection(nodes.get((int) GenomeCodec.getVarLong(in)), nodes.get((int) GenomeCodec.getVarLong(in)));
+				connection.setInnovationNumber(innovation);
+				GenomeCodec.readConnectionGenes(in, connection);
+			}else {
+				previous += 1 + (int) GenomeCodec.unzigzag((code >>> 1) - 1);
+				Connection source = parentConnections.get(previous);
+				connection = new Connection(bySplit.get(source.getFrom().getSplitInnovationNumber()),
+						bySplit.get(source.getTo().getSplitInnovationNumber()));
+				connection.setInnovationNumber(source.getInnovationNumber());
+				if ((code & 1) != 0)
+					GenomeCodec.readConnectionGenes(in, connection);
+				else {
+					connection.setEnabled(source.isEnabled());
+					connection.setRecurrent(source.isRecurrent());
+					connection.setNodeAddable(source.isNodeAddable());
+					connection.setWeight(source.getWeight());
+				}
+			}
+			connections.add(connection);
+		}
+
+		return Genome.assemble(neatConfig, nodes, connections, hiddenLayers);
+	}
+
+    /**
+     * Closes the journal file.
+     */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
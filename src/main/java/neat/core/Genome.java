@@ -1,5 +1,7 @@
 package main.java.neat.core;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -8,13 +10,18 @@ import java.util.LinkedList;
 import java.util.Queue;
 import java.util.Random;
 import java.util.Stack;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 import main.java.neat.config.NEATConfig;
+import main.java.neat.config.NEATConfig.INFERENCE_COST;
 import main.java.neat.core.Node.TYPE;
 import main.java.neat.functions.ActivationFunction;
 import main.java.neat.functions.ActivationFunction.ACTIVATION_FUNCTION;
 import main.java.neat.functions.AggregationFunction;
+import main.java.neat.functions.AggregationFunction.AGGREGATION_FUNCTION;
+import main.java.neat.jfr.FeedEvent;
+import main.java.neat.jfr.StructuralMutationEvent;
 
 /**
  * Represents a genome in the NEAT (NeuroEvolution of Augmenting Topologies) algorithm.
@@ -71,8 +78,15 @@ public class Genome implements Serializable {
 	
 	/**
 	 * Highest innovation number among all connections (tracks structural mutations).
+	 * Recomputed after deserialization.
 	 */
-	private int maxInnovationNumber;
+	private transient long maxInnovationNumber;
+	
+	/**
+	 * Number of feed calls, used to sample Flight Recorder events. Starts at a random
+	 * offset so that short-lived genomes are sampled too.
+	 */
+	private transient int feedCalls = ThreadLocalRandom.current().nextInt(FeedEvent.SAMPLE_INTERVAL);
 	
 	/**
 	 * Visualization coordinates mapped to nodes (x,y positions for rendering).
@@ -101,13 +115,27 @@ public class Genome implements Serializable {
      */
 	private boolean mutated;
 	
+	/**
+	 * Inference cost cached by {@link #getInferenceCost(INFERENCE_COST)} and the measure it was
+	 * taken with. Mutation clears the measure.
+	 */
+	private transient double inferenceCost;
+	private transient INFERENCE_COST inferenceCostMeasure;
+	
+	/**
+	 * Number of warm-up evaluations, and minimum number and duration of the timed evaluations,
+	 * when measuring a NANOSECONDS inference cost.
+	 */
+	private static final int INFERENCE_COST_SAMPLES = 16;
+	private static final long INFERENCE_COST_NANOS = 20_000;
+	
     /**
      * Constructs a new Genome with specified configuration.
      * @param neatConfig NEAT algorithm configuration parameters.
      * @param init If true, initializes basic network structure (input/hidden/output nodes).
      */
 	protected Genome(NEATConfig neatConfig, boolean init) {
-		random = new Random();
+		random = RandomSource.newRandom();
 		this.neatConfig = neatConfig;
 		nodes = new ArrayList<> ();
 		connections = new ArrayList<> ();
@@ -171,6 +199,54 @@ public class Genome implements Serializable {
      */
 	protected ArrayList<Node>[] getNodesByLayers() { return nodesByLayer; }
 	
+    /**
+     * @return Configuration this genome was created with.
+     */
+	protected NEATConfig getNeatConfig() { return neatConfig; }
+	
+    /**
+     * Returns the inference cost of the genome's compiled network. The cost is computed once and
+     * cached until the genome mutates, clones included; a NANOSECONDS cost is the mean time of
+     * evaluations on random inputs, timed for at least {@value #INFERENCE_COST_SAMPLES} evaluations
+     * and {@value #INFERENCE_COST_NANOS} ns after as many warm-up evaluations. The measurement runs on
+     * the evolving thread, once for every new genome of a generation, and relies on the evaluation
+     * code having been compiled by the JIT during the previous measurements.
+     * @param measure How the cost is measured.
+     * @return The inference cost, or 0 for NONE.
+     */
+	protected double getInferenceCost(INFERENCE_COST measure) {
+		if (measure == INFERENCE_COST.NONE)
+			return 0;
+		if (inferenceCostMeasure == measure)
+			return inferenceCost;
+		
+		CompiledNetwork network = CompiledNetwork.compile(this);
+		if (measure == INFERENCE_COST.OPERATIONS)
+			inferenceCost = network.getOperationCount();
+		else {
+			double[] input = new double[network.getNumberOfInputs()];
+			double[] output = new double[network.getNumberOfOutputs()];
+			double[] state = network.newState();
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			for (int i = 0; i < input.length; i++)
+				input[i] = random.nextDouble(-1, 1);
+			
+			for (int i = 0; i < INFERENCE_COST_SAMPLES; i++)
+				network.feed(input, state, output);
+			long start = System.nanoTime(), elapsed;
+			int samples = 0;
+			do {
+				for (int i = 0; i < INFERENCE_COST_SAMPLES; i++)
+					network.feed(input, state, output);
+				samples += INFERENCE_COST_SAMPLES;
+				elapsed = System.nanoTime()-start;
+			}while (elapsed < INFERENCE_COST_NANOS);
+			inferenceCost = elapsed/(double)samples;
+		}
+		inferenceCostMeasure = measure;
+		return inferenceCost;
+	}
+	
     /**
      * Gets node coordinates for visualization purposes.
      * @param width Visualization area width.
@@ -234,6 +310,7 @@ public class Genome implements Serializable {
      */
 	protected double[] feed(double[] input) {
 		
+		FeedEvent event = FeedEvent.sample(++feedCalls);
 		double[] output = new double[neatConfig.getNumberOfOutputs()];
 		
 		for (int i = 0; i < neatConfig.getNumberOfInputs(); i++)
@@ -248,6 +325,8 @@ public class Genome implements Serializable {
 			}
 		}
 		
+		if (event != null)
+			commit(event);
 		return output;
 	}
 	
@@ -257,6 +336,7 @@ public class Genome implements Serializable {
      * @return Array of boolean activation states from output nodes.
      */
 	protected boolean[] feed2(double[] input) {
+		FeedEvent event = FeedEvent.sample(++feedCalls);
 		boolean[] output = new boolean[neatConfig.getNumberOfOutputs()];
 		
 		for (int i = 0; i < neatConfig.getNumberOfInputs(); i++)
@@ -271,9 +351,18 @@ public class Genome implements Serializable {
 			}
 		}
 		
+		if (event != null)
+			commit(event);
 		return output;
 	}
 	
+	private void commit(FeedEvent event) {
+		event.nodes = nodes.size();
+		event.connections = connections.size();
+		event.layers = numOfHiddenlayers+2;
+		event.commit();
+	}
+	
 	private void init() {
 		
 		initNodes();
@@ -284,8 +373,26 @@ public class Genome implements Serializable {
 		
 	}
 	
+    /**
+     * Gets a starting activation function, drawing RANDOM from this genome's generator.
+     */
+	private ActivationFunction getActivationFunction(ACTIVATION_FUNCTION activationFunction) {
+		if (activationFunction == ACTIVATION_FUNCTION.RANDOM)
+			activationFunction = ACTIVATION_FUNCTION.values()[random.nextInt(ACTIVATION_FUNCTION.values().length-1)];
+		return ActivationFunction.getActivationFunction(activationFunction, neatConfig.getActivationConfig());
+	}
+	
+    /**
+     * Gets a starting aggregation function, drawing RANDOM from this genome's generator.
+     */
+	private AggregationFunction getAggregationFunction(AGGREGATION_FUNCTION aggregationFunction) {
+		if (aggregationFunction == AGGREGATION_FUNCTION.RANDOM)
+			aggregationFunction = AGGREGATION_FUNCTION.values()[random.nextInt(AGGREGATION_FUNCTION.values().length-1)];
+		return AggregationFunction.getAggregationFunction(aggregationFunction);
+	}
+	
 	private void initNodes() {
-		int splitInnovation = -1;
+		long splitInnovation = -1;
 		for (int i = 0; i < neatConfig.getNumberOfInputs(); i++) {
 			Node node = new Node(TYPE.INPUT);
 			node.setSplitInnovationNumber(splitInnovation--);
@@ -300,12 +407,8 @@ public class Genome implements Serializable {
 				node.setSplitInnovationNumber(splitInnovation--);
 				node.setLayer(i+1);
 				
-				node.setAggregationFunction(AggregationFunction.getAggregationFunction(
-						neatConfig.getStartingAggregationFunction()
-						));
-				node.setActivationFunction(ActivationFunction.getActivationFunction(
-						neatConfig.getStartingActivationFunctionForHiddenNodes(), neatConfig.getActivationConfig()
-						));
+				node.setAggregationFunction(getAggregationFunction(neatConfig.getStartingAggregationFunction()));
+				node.setActivationFunction(getActivationFunction(neatConfig.getStartingActivationFunctionForHiddenNodes()));
 				node.randomizeBias(neatConfig.getBiasInitMean(),neatConfig.getBiasInitStdev(),neatConfig.getBiasInitDistributionType(),
 						neatConfig.getBiasMaxValue(),neatConfig.getBiasMinValue());
 				node.randomizeResponse(neatConfig.getResponseInitMean(),neatConfig.getResponseInitStdev(),neatConfig.getResponseInitDistributionType(),
@@ -320,12 +423,8 @@ public class Genome implements Serializable {
 			node.setLayer(Integer.MAX_VALUE);
 			node.setSplitInnovationNumber(splitInnovation--);
 			
-			node.setAggregationFunction(AggregationFunction.getAggregationFunction(
-					neatConfig.getStartingAggregationFunction()
-					));
-			node.setActivationFunction(ActivationFunction.getActivationFunction(
-					neatConfig.getActivationFunctionForOutputNodes(), neatConfig.getActivationConfig()
-					));
+			node.setAggregationFunction(getAggregationFunction(neatConfig.getStartingAggregationFunction()));
+			node.setActivationFunction(getActivationFunction(neatConfig.getActivationFunctionForOutputNodes()));
 			node.randomizeBias(neatConfig.getBiasInitMean(),neatConfig.getBiasInitStdev(),neatConfig.getBiasInitDistributionType(),
 					neatConfig.getBiasMaxValue(),neatConfig.getBiasMinValue());
 			node.randomizeResponse(neatConfig.getResponseInitMean(),neatConfig.getResponseInitStdev(),neatConfig.getResponseInitDistributionType(),
@@ -598,7 +697,7 @@ public class Genome implements Serializable {
 		
 		Connection connection = new Connection(from,to);
 		connection.setRecurrent(recurrent);
-		connection.setInnovationNumber();
+		connection.setInnovationNumber(neatConfig.getInnovationNumbering());
 		connection.connect();
 		
 		connection.setEnabled(neatConfig.enabledDefault());
@@ -646,12 +745,8 @@ public class Genome implements Serializable {
 		
 		Node newNode = new Node(TYPE.HIDDEN);
 		newNode.setSplitInnovationNumber(rc.getInnovationNumber());
-		newNode.setAggregationFunction(AggregationFunction.getAggregationFunction(
-				neatConfig.getStartingAggregationFunction()
-				));
-		newNode.setActivationFunction(ActivationFunction.getActivationFunction(
-				neatConfig.getStartingActivationFunctionForHiddenNodes(), neatConfig.getActivationConfig()
-				));
+		newNode.setAggregationFunction(getAggregationFunction(neatConfig.getStartingAggregationFunction()));
+		newNode.setActivationFunction(getActivationFunction(neatConfig.getStartingActivationFunctionForHiddenNodes()));
 		newNode.randomizeBias(neatConfig.getBiasInitMean(),neatConfig.getBiasInitStdev(),neatConfig.getBiasInitDistributionType(),
 				neatConfig.getBiasMaxValue(),neatConfig.getBiasMinValue());
 		newNode.randomizeResponse(neatConfig.getResponseInitMean(),neatConfig.getResponseInitStdev(),neatConfig.getResponseInitDistributionType(),
@@ -715,26 +810,38 @@ public class Genome implements Serializable {
 		premutations.push(2);
 		premutations.push(3);
 		premutations.push(4);
-		Collections.shuffle(premutations);
+		Collections.shuffle(premutations, random);
 		
 		while (!premutations.isEmpty()) {
 			int roll = premutations.pop();
 			boolean hasMutated = false;
+			StructuralMutationEvent event = new StructuralMutationEvent();
+			event.begin();
 			switch (roll) {
 			case 1:
 				hasMutated = mutateAddConnection();
+				event.mutation = "ADD_CONNECTION";
 				break;
 			case 2:
 				hasMutated = mutateAddNode();
+				event.mutation = "ADD_NODE";
 				break;
 			case 3:
 				hasMutated = mutateDeleteConnection();
+				event.mutation = "DELETE_CONNECTION";
 				break;
 			case 4:
 				hasMutated = mutateDeleteNode();
+				event.mutation = "DELETE_NODE";
 				break;
 			}
 			
+			if (hasMutated && event.shouldCommit()) {
+				event.nodes = nodes.size();
+				event.connections = connections.size();
+				event.commit();
+			}
+			
 			if (neatConfig.isSingleStructuralMutation() && hasMutated)
 				break;
 			
@@ -761,17 +868,17 @@ public class Genome implements Serializable {
 			
 			if (random.nextDouble() < neatConfig.getAggregationMutationRate()) {
 				int size = neatConfig.getAggregationConfig().getAllowedAggregationFunctions().size();
-				int randomIndex = random.nextInt(size);
-				node.setAggregationFunction(AggregationFunction.getAggregationFunction(
+				int randomIndex = random.nextInt(size + neatConfig.getAggregationConfig().getAllowedPluginAggregationFunctions().size());
+				node.setAggregationFunction(randomIndex < size ? AggregationFunction.getAggregationFunction(
 						neatConfig.getAggregationConfig().getAllowedAggregationFunctions().get(randomIndex)
-						));
+						) : neatConfig.getAggregationConfig().getAllowedPluginAggregationFunctions().get(randomIndex-size));
 			}
 			if (node.getType() == TYPE.HIDDEN && random.nextDouble() < neatConfig.getActivationMutationRate()) {
 				int size = neatConfig.getActivationConfig().getAllowedActivationFunctions().size();
-				int randomIndex = random.nextInt(size);
-				node.setActivationFunction(ActivationFunction.getActivationFunction(
+				int randomIndex = random.nextInt(size + neatConfig.getActivationConfig().getAllowedPluginActivationFunctions().size());
+				node.setActivationFunction(randomIndex < size ? ActivationFunction.getActivationFunction(
 						neatConfig.getActivationConfig().getAllowedActivationFunctions().get(randomIndex), neatConfig.getActivationConfig()
-						));
+						) : neatConfig.getActivationConfig().getAllowedPluginActivationFunctions().get(randomIndex-size));
 			}
 			
 			if (node.hasInputConnections()) {
@@ -806,6 +913,7 @@ public class Genome implements Serializable {
 		
 		mutateStructure();
 		mutateParameters();
+		inferenceCostMeasure = null;
 		
 	}
 	
@@ -886,14 +994,14 @@ public class Genome implements Serializable {
 		
 	}
 	private void setMaxInnovationNumber() {
-		int max = Integer.MIN_VALUE;
+		long max = Long.MIN_VALUE;
 		for (Connection connection: connections)
 			if (connection.getInnovationNumber() > max)
 				max = connection.getInnovationNumber();
 		
 		maxInnovationNumber = max;
 	}
-	private Connection getConnectionByInnovationNumber(int innovationNumber) {
+	private Connection getConnectionByInnovationNumber(long innovationNumber) {
 		
 		for (Connection connection: connections) {
 			if (connection.getInnovationNumber() == innovationNumber)
@@ -903,7 +1011,7 @@ public class Genome implements Serializable {
 		return null;
 		
 	}
-	private Node getNodeBySplitInnovationNumber(int innovationNumber) {
+	private Node getNodeBySplitInnovationNumber(long innovationNumber) {
 		for (Node node: nodes)
 			if (node.getSplitInnovationNumber() == innovationNumber)
 				return node;
@@ -997,6 +1105,8 @@ public class Genome implements Serializable {
 			node.updateSelfRecurrentConnection();
 		
 		clone.maxInnovationNumber = maxInnovationNumber;
+		clone.inferenceCost = inferenceCost;
+		clone.inferenceCostMeasure = inferenceCostMeasure;
 		clone.numOfHiddenlayers = numOfHiddenlayers;
 		clone.setNodesByType();
 		clone.setNodesByLayer();
@@ -1004,6 +1114,37 @@ public class Genome implements Serializable {
 		return clone;
 	}
 	
+    /**
+     * Rebuilds a genome from decoded genes.
+     * @param neatConfig Configuration the genome belongs to.
+     * @param nodes All nodes, in genome order, with their layers already set.
+     * @param connections All connections, in genome order, not yet connected to their nodes.
+     * @param numOfHiddenlayers Number of hidden layers.
+     * @return The assembled genome.
+     */
+	protected static Genome assemble(NEATConfig neatConfig, ArrayList<Node> nodes, ArrayList<Connection> connections, int numOfHiddenlayers) {
+		Genome genome = new Genome(neatConfig, false);
+		genome.nodes.addAll(nodes);
+		for (Connection connection: connections) {
+			connection.connect();
+			genome.connections.add(connection);
+		}
+		for (Node node: genome.nodes)
+			node.updateSelfRecurrentConnection();
+		
+		genome.numOfHiddenlayers = numOfHiddenlayers;
+		genome.setNodesByType();
+		genome.setNodesByLayer();
+		genome.setMaxInnovationNumber();
+		return genome;
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		random = RandomSource.newRandom();
+		setMaxInnovationNumber();
+	}
+	
 	@Override
 	public String toString() {
 		String res = String.format("%d Connections, %d Nodes, %d layers.\n",
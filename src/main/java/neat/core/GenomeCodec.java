@@ -0,0 +1,444 @@
+package main.java.neat.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import main.java.neat.config.ActivationConfig;
+import main.java.neat.config.AggregationConfig;
+import main.java.neat.config.NEATConfig;
+import main.java.neat.core.Node.TYPE;
+import main.java.neat.functions.ActivationFunction;
+import main.java.neat.functions.ActivationFunction.ACTIVATION_FUNCTION;
+import main.java.neat.functions.AggregationFunction;
+import main.java.neat.functions.AggregationFunction.AGGREGATION_FUNCTION;
+
+/**
+ * Compact, versioned binary encoding of a {@link Genome}.
+ *
+ * <p>Unlike Java serialization, the encoding stores only the genes. The {@link NEATConfig}
+ * is kept outside the genome and referenced by its {@link #configHash(NEATConfig) hash};
+ * activation and aggregation functions are stored as one-byte codes and recreated from
+ * the configuration on load; visualization state is not stored at all.
+ *
+ * <p>Layout (little endian):
+ * <pre>
+ * header   int magic, byte version, byte flags, long configHash, int storedLength, int rawLength
+ * body     (Deflater-compressed when flags has COMPRESSED)
+ *          varint hiddenLayers, varint nodes, varint connections
+ *          per node:       byte type, zigzag split innovation, varint layer (not for outputs),
+ *                          byte activation, byte aggregation (0xFF = none), double bias, double response
+ *          per connection: zigzag innovation delta to the previous connection,
+ *                          varint from node index, varint to node index,
+ *                          byte flags (enabled, recurrent, node addable), double weight
+ * </pre>
+ * Function codes are opcodes: the ordinals of {@link ACTIVATION_FUNCTION} and {@link AGGREGATION_FUNCTION},
+ * whose constants are only ever appended, or the fixed opcodes of plug-in functions, which must be
+ * registered with {@link main.java.neat.functions.FunctionRegistry} before decoding.
+ *
+ * @author Taher Joudeh
+ */
+public final class GenomeCodec {
+
+	private static final int MAGIC = 0x47544E4E;
+	private static final byte VERSION = 1;
+	private static final byte COMPRESSED = 1;
+	private static final int HEADER_SIZE = 22;
+
+	/**
+	 * Largest expansion of Deflater-compressed data, which bounds the raw length a header may claim.
+	 */
+	private static final int MAX_INFLATION = 1032;
+
+	/**
+	 * Version of the list of settings hashed by {@link #configHash(NEATConfig)}; changed only
+	 * when a setting that affects the meaning of a genome is added.
+	 */
+	public static final int CONFIG_HASH_VERSION = 1;
+
+	private static final int ENABLED = 1, RECURRENT = 2, NODE_ADDABLE = 4;
+	private static final int NO_FUNCTION = 0xFF;
+
+	private GenomeCodec() {}
+
+    /**
+     * Computes the 64-bit hash a genome encoding uses to reference its configuration.
+     * Only the settings that give a genome its meaning are hashed, in a fixed order tagged
+     * with {@link #CONFIG_HASH_VERSION}: the numbers of inputs and outputs, feed-forward,
+     * innovation numbering, the activation thresholds, the ReLU leak, fast math and the
+     * allowed built-in and plug-in activation and aggregation functions. Evolution parameters
+     * (mutation rates, selection, speciation, termination, inference cost) and operational
+     * options can change without invalidating existing encodings, journals and checkpoints.
+     * @param neatConfig Configuration to hash.
+     * @return FNV-1a hash of the genome settings of the configuration.
+     */
+	public static long configHash(NEATConfig neatConfig) {
+		ActivationConfig activationConfig = neatConfig.getActivationConfig();
+		AggregationConfig aggregationConfig = neatConfig.getAggregationConfig();
+
+		long hash = hash(0xCBF29CE484222325L, CONFIG_HASH_VERSION);
+		hash = hash(hash, neatConfig.getNumberOfInputs());
+		hash = hash(hash, neatConfig.getNumberOfOutputs());
+		hash = hash(hash, neatConfig.isFeedForward() ? 1 : 0);
+		hash = hash(hash, neatConfig.getInnovationNumbering().ordinal());
+
+		hash = hash(hash, Double.doubleToLongBits(activationConfig.getSigmoidActivationThreshold()));
+		hash = hash(hash, Double.doubleToLongBits(activationConfig.getTanhActivationThreshold()));
+		hash = hash(hash, Double.doubleToLongBits(activationConfig.getStepActivationThreshold()));
+		hash = hash(hash, Double.doubleToLongBits(activationConfig.getReluActivationThreshold()));
+		hash = hash(hash, Double.doubleToLongBits(activationConfig.getLinearActivationThreshold()));
+		hash = hash(hash, Double.doubleToLongBits(activationConfig.getReluLeak()));
+		hash = hash(hash, activationConfig.isFastMath() ? 1 : 0);
+
+		hash = hash(hash, activationConfig.getAllowedActivationFunctions().size());
+		for (ACTIVATION_FUNCTION function: activationConfig.getAllowedActivationFunctions())
+			hash = hash(hash, function.ordinal());
+		hash = hash(hash, activationConfig.getAllowedPluginActivationFunctions().size());
+		for (ActivationFunction function: activationConfig.getAllowedPluginActivationFunctions())
+			hash = hash(hash, function.getOpcode());
+		hash = hash(hash, aggregationConfig.getAllowedAggregationFunctions().size());
+		for (AGGREGATION_FUNCTION function: aggregationConfig.getAllowedAggregationFunctions())
+			hash = hash(hash, function.ordinal());
+		hash = hash(hash, aggregationConfig.getAllowedPluginAggregationFunctions().size());
+		for (AggregationFunction function: aggregationConfig.getAllowedPluginAggregationFunctions())
+			hash = hash(hash, function.getOpcode());
+		return hash;
+	}
+
+	private static long hash(long hash, long value) {
+		for (int i = 0; i < 8; i++, value >>>= 8) {
+			hash ^= value & 0xFF;
+			hash *= 0x100000001B3L;
+		}
+		return hash;
+	}
+
+    /**
+     * Encodes a genome.
+     * @param genome Genome to encode.
+     * @param compress If true, the body is compressed with a Deflater.
+     * @return The encoded genome.
+     */
+	public static byte[] encode(Genome genome, boolean compress) {
+		return encode(genome, configHash(genome.getNeatConfig()), compress);
+	}
+
+    /**
+     * Encodes a genome with a precomputed configuration hash, avoiding rehashing
+     * the configuration when encoding many genomes sharing it.
+     * @param genome Genome to encode.
+     * @param configHash Value of {@link #configHash(NEATConfig)} for the genome's configuration.
+     * @param compress If true, the body is compressed with a Deflater.
+     * @return The encoded genome.
+     */
+	public static byte[] encode(Genome genome, long configHash, boolean compress) {
+
+		Writer body = new Writer(64 + genome.getNumberOfConnections()*16 + genome.getNodes().size()*24);
+		writeBody(body, genome);
+
+		byte[] stored = body.toByteArray();
+		if (compress) {
+			Deflater deflater = new Deflater();
+			deflater.setInput(stored);
+			deflater.finish();
+			Writer compressed = new Writer(stored.length/2 + 64);
+			byte[] chunk = new byte[4096];
+			while (!deflater.finished())
+				compressed.putBytes(chunk, deflater.deflate(chunk));
+			deflater.end();
+			stored = compressed.toByteArray();
+		}
+
+		ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + stored.length).order(ByteOrder.LITTLE_ENDIAN);
+		out.putInt(MAGIC);
+		out.put(VERSION);
+		out.put(compress ? COMPRESSED : 0);
+		out.putLong(configHash);
+		out.putInt(stored.length);
+		out.putInt(body.size());
+		out.put(stored);
+		return out.array();
+	}
+
+	static void writeBody(Writer body, Genome genome) {
+		ArrayList<Node> nodes = genome.getNodes();
+		ArrayList<Connection> connections = genome.getConnections();
+
+		body.putVarLong(genome.getNumberOfLayers()-2);
+		body.putVarLong(nodes.size());
+		body.putVarLong(connections.size());
+
+		IdentityHashMap<Node,Integer> index = new IdentityHashMap<> ();
+		for (Node node: nodes) {
+			index.put(node, index.size());
+			body.putByte(node.getType().ordinal());
+			body.putVarLong(zigzag(node.getSplitInnovationNumber()));
+			writeNodeGenes(body, node);
+		}
+
+		long previous = 0;
+		for (Connection connection: connections) {
+			body.putVarLong(zigzag(connection.getInnovationNumber() - previous));
+			previous = connection.getInnovationNumber();
+			body.putVarLong(index.get(connection.getFrom()));
+			body.putVarLong(index.get(connection.getTo()));
+			writeConnectionGenes(body, connection);
+		}
+	}
+
+	static void writeNodeGenes(Writer body, Node node) {
+		if (node.getType() != TYPE.OUTPUT)
+			body.putVarLong(node.getLayer());
+		body.putByte(node.getActivationFunction().getOpcode());
+		body.putByte(node.getAggregationFunction() == null ? NO_FUNCTION : node.getAggregationFunction().getOpcode());
+		body.putDouble(node.getBias());
+		body.putDouble(node.getResponse());
+	}
+
+	static void writeConnectionGenes(Writer body, Connection connection) {
+		body.putByte((connection.isEnabled() ? ENABLED : 0)
+				| (connection.isRecurrent() ? RECURRENT : 0)
+				| (connection.isNodeAddable() ? NODE_ADDABLE : 0));
+		body.putDouble(connection.getWeight());
+	}
+
+    /**
+     * Decodes a genome.
+     * @param bytes Encoded genome.
+     * @param neatConfig Configuration the genome was encoded with.
+     * @return The decoded genome.
+     * @throws IOException If the data is not a supported genome encoding or was encoded with a different configuration.
+     */
+	public static Genome decode(byte[] bytes, NEATConfig neatConfig) throws IOException {
+		return decode(bytes, neatConfig, configHash(neatConfig));
+	}
+
+    /**
+     * Decodes a genome with a precomputed configuration hash.
+     * @param bytes Encoded genome.
+     * @param neatConfig Configuration the genome was encoded with.
+     * @param configHash Value of {@link #configHash(NEATConfig)} for that configuration.
+     * @return The decoded genome.
+     * @throws IOException If the data is not a supported genome encoding or was encoded with a different configuration.
+     */
+	public static Genome decode(byte[] bytes, NEATConfig neatConfig, long configHash) throws IOException {
+		ByteBuffer in = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		if (bytes.length < HEADER_SIZE || in.getInt() != MAGIC)
+			throw new IOException("Not a binary genome");
+		byte version = in.get();
+		if (version != VERSION)
+			throw new IOException("Unsupported binary genome version: " + version);
+		boolean compressed = (in.get() & COMPRESSED) != 0;
+		if (in.getLong() != configHash)
+			throw new IOException("Genome was encoded with a different configuration");
+		int storedLength = in.getInt();
+		int rawLength = in.getInt();
+		if (storedLength != bytes.length - HEADER_SIZE)
+			throw new IOException("Truncated binary genome");
+		if (rawLength < 0 || (compressed ? rawLength > (long) storedLength*MAX_INFLATION : rawLength != storedLength))
+			throw new IOException("Corrupt binary genome: invalid raw length " + rawLength);
+
+		byte[] body = Arrays.copyOfRange(bytes, HEADER_SIZE, bytes.length);
+		if (compressed) {
+			Inflater inflater = new Inflater();
+			inflater.setInput(body);
+			byte[] raw = new byte[rawLength];
+			try {
+				if (inflater.inflate(raw) != rawLength || !inflater.finished())
+					throw new IOException("Corrupt binary genome");
+			} catch (DataFormatException e) {
+				throw new IOException("Corrupt binary genome", e);
+			} finally {
+				inflater.end();
+			}
+			body = raw;
+		}
+
+		return readBody(ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN), neatConfig);
+	}
+
+	static Genome readBody(ByteBuffer in, NEATConfig neatConfig) {
+
+		int hiddenLayers = (int) getVarLong(in);
+		int numberOfNodes = (int) getVarLong(in);
+		int numberOfConnections = (int) getVarLong(in);
+
+		ArrayList<Node> nodes = new ArrayList<> (numberOfNodes);
+		for (int i = 0; i < numberOfNodes; i++) {
+			Node node = new Node(TYPE.values()[in.get()]);
+			node.setSplitInnovationNumber(unzigzag(getVarLong(in)));
+			readNodeGenes(in, node, neatConfig);
+			nodes.add(node);
+		}
+
+		ArrayList<Connection> connections = new ArrayList<> (numberOfConnections);
+		long innovation = 0;
+		for (int i = 0; i < numberOfConnections; i++) {
+			innovation += unzigzag(getVarLong(in));
+			Connection connection = new Connection(nodes.get((int) getVarLong(in)), nodes.get((int) getVarLong(in)));
+			connection.setInnovationNumber(innovation);
+			readConnectionGenes(in, connection);
+			connections.add(connection);
+		}
+
+		return Genome.assemble(neatConfig, nodes, connections, hiddenLayers);
+	}
+
+	static void readNodeGenes(ByteBuffer in, Node node, NEATConfig neatConfig) {
+		node.setLayer(node.getType() == TYPE.OUTPUT ? Integer.MAX_VALUE : (int) getVarLong(in));
+		node.setActivationFunction(ActivationFunction.getActivationFunction(in.get() & 0xFF, neatConfig.getActivationConfig()));
+		int aggregation = in.get() & 0xFF;
+		if (aggregation != NO_FUNCTION)
+			node.setAggregationFunction(AggregationFunction.getAggregationFunction(aggregation));
+		node.setBias(in.getDouble());
+		node.setResponse(in.getDouble());
+	}
+
+	static void readConnectionGenes(ByteBuffer in, Connection connection) {
+		int flags = in.get();
+		connection.setEnabled((flags & ENABLED) != 0);
+		connection.setRecurrent((flags & RECURRENT) != 0);
+		connection.setNodeAddable((flags & NODE_ADDABLE) != 0);
+		connection.setWeight(in.getDouble());
+	}
+
+    /**
+     * Writes an encoded genome to a channel.
+     * @param genome Genome to write.
+     * @param channel Destination channel.
+     * @param compress If true, the body is compressed with a Deflater.
+     * @throws IOException If writing fails.
+     */
+	public static void write(Genome genome, WritableByteChannel channel, boolean compress) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(encode(genome, compress));
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+    /**
+     * Reads one encoded genome from a channel. Several genomes may be written back to back
+     * on the same channel and read one after another.
+     * @param channel Source channel.
+     * @param neatConfig Configuration the genome was encoded with.
+     * @return The decoded genome.
+     * @throws IOException If reading fails, the channel ends early or the data is not a valid genome.
+     */
+	public static Genome read(ReadableByteChannel channel, NEATConfig neatConfig) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, header);
+		int storedLength = header.getInt(14);
+		if (storedLength < 0)
+			throw new IOException("Not a binary genome");
+
+		ByteBuffer bytes = ByteBuffer.allocate(HEADER_SIZE + storedLength);
+		bytes.put(header.array());
+		readFully(channel, bytes);
+		return decode(bytes.array(), neatConfig);
+	}
+
+	private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining())
+			if (channel.read(buffer) < 0)
+				throw new IOException("Unexpected end of binary genome");
+	}
+
+	static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	static long getVarLong(ByteBuffer in) {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = in.get();
+			value |= (long)(b & 0x7F) << shift;
+			shift += 7;
+		}while (b < 0);
+		return value;
+	}
+
+	/**
+	 * Minimal growable little-endian byte writer.
+	 */
+	static class Writer {
+
+		private byte[] bytes;
+		private int size;
+
+		Writer(int capacity) {
+			bytes = new byte[Math.max(16, capacity)];
+		}
+
+		void ensure(int extra) {
+			if (size + extra > bytes.length)
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length*2, size + extra));
+		}
+
+		void putByte(int value) {
+			ensure(1);
+			bytes[size++] = (byte) value;
+		}
+
+		void putBytes(byte[] values, int length) {
+			ensure(length);
+			System.arraycopy(values, 0, bytes, size, length);
+			size += length;
+		}
+
+		void putVarLong(long value) {
+			ensure(10);
+			while ((value & ~0x7FL) != 0) {
+				bytes[size++] = (byte)((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		void putInt(int value) {
+			ensure(4);
+			setInt(size, value);
+			size += 4;
+		}
+
+		void putLong(long value) {
+			ensure(8);
+			setLong(size, value);
+			size += 8;
+		}
+
+		void putDouble(double value) {
+			putLong(Double.doubleToRawLongBits(value));
+		}
+
+		void setInt(int position, int value) {
+			for (int i = 0; i < 4; i++)
+				bytes[position+i] = (byte)(value >>> (8*i));
+		}
+
+		void setLong(int position, long value) {
+			for (int i = 0; i < 8; i++)
+				bytes[position+i] = (byte)(value >>> (8*i));
+		}
+
+		int size() { return size; }
+
+		byte[] array() { return bytes; }
+
+		byte[] toByteArray() { return Arrays.copyOf(bytes, size); }
+
+	}
+
+}
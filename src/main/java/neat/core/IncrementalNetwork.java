@@ -0,0 +1,268 @@
+package main.java.neat.core;
+
+/**
+ * Stateful evaluator of a {@link CompiledNetwork} that only recomputes what changed since the
+ * previous input.
+ *
+ * <p>In control loops consecutive inputs often differ in a few values only. An incremental
+ * network remembers the input, the value of every node and the weighted input sum of every SUM
+ * and MEAN node. On each call it finds the inputs that changed and propagates their changes
+ * through their forward cone, node by node in evaluation order:
+ * <ul>
+ * <li>A SUM or MEAN node is updated in O(1) per changed input: the source's change times the
+ * connection weight is added to its stored sum.</li>
+ * <li>Any other aggregation is recomputed from all of the node's inputs.</li>
+ * <li>A node whose value does not change stops the propagation along its connections.</li>
+ * </ul>
+ * Delta updates are exact up to floating-point rounding. To keep rounding from accumulating,
+ * the network is fully re-evaluated every {@code refreshInterval} calls, and whenever a value
+ * changes from or to an infinite or NaN value. Networks with recurrent connections are
+ * always evaluated in full, since their node values change even when the input does not.
+ *
+ * <p>Outputs are those of {@link CompiledNetwork#feed(double[], double[])} with a state array
+ * kept between calls, up to floating-point rounding: nodes are always evaluated from their
+ * sparse rows, without the dense-block kernel. Unlike a compiled network, an incremental network holds the evaluation
+ * state itself, so every control loop needs its own instance.
+ *
+ * <p>Example usage:
+ * <pre>
+ * IncrementalNetwork controller = new IncrementalNetwork(CompiledNetwork.compile(champion));
+ * while (running) {
+ *     sensors.read(input);
+ *     controller.feed(input, output);
+ * }
+ * </pre>
+ *
+ * @author Taher Joudeh
+ */
+public final class IncrementalNetwork {
+
+	/**
+	 * Default number of calls between full re-evaluations.
+	 */
+	public static final int DEFAULT_REFRESH_INTERVAL = 1024;
+
+	private final CompiledNetwork network;
+	private final int refreshInterval;
+	private final boolean recurrent;
+
+	/**
+	 * Forward connections by source node: node {@code i} feeds {@code outTarget[outStart[i] .. outStart[i+1])}
+	 * with the weights in {@code outWeight}.
+	 */
+	private final int[] outStart, outTarget;
+	private final double[] outWeight;
+
+	/**
+	 * Last input, node values (followed by scratch space) and weighted input sums of SUM and MEAN nodes.
+	 */
+	private final double[] input, state, sum;
+
+	/**
+	 * Nodes to re-evaluate, and among them the nodes whose aggregation must be recomputed in full.
+	 */
+	private final long[] dirty;
+	private final boolean[] recompute;
+
+	private boolean evaluated;
+	private int calls, evaluatedNodes;
+
+    /**
+     * Constructs an incremental network with the default refresh interval.
+     * @param network Network to evaluate.
+     */
+	public IncrementalNetwork(CompiledNetwork network) {
+		this(network, DEFAULT_REFRESH_INTERVAL);
+	}
+
+    /**
+     * Constructs an incremental network.
+     * @param network Network to evaluate.
+     * @param refreshInterval Number of calls between full re-evaluations (must be at least 1).
+     * @throws IllegalArgumentException If refreshInterval is less than 1.
+     */
+	public IncrementalNetwork(CompiledNetwork network, int refreshInterval) {
+		if (refreshInterval < 1)
+			throw new IllegalArgumentException("refreshInterval must be positive: " + refreshInterval);
+		this.network = network;
+		this.refreshInterval = refreshInterval;
+
+		int n = network.numberOfNodes;
+		boolean recurrent = false;
+		outStart = new int[n+1];
+		for (int i = network.numberOfInputs; i < n; i++)
+			for (int e = network.inStart[i]; e < network.inStart[i+1]; e++)
+				if (network.inSource[e] < i)
+					outStart[network.inSource[e]+1]++;
+				else recurrent = true;
+		this.recurrent = recurrent;
+		for (int i = 0; i < n; i++)
+			outStart[i+1] += outStart[i];
+
+		outTarget = new int[outStart[n]];
+		outWeight = new double[outStart[n]];
+		int[] next = outStart.clone();
+		for (int i = network.numberOfInputs; i < n; i++)
+			for (int e = network.inStart[i]; e < network.inStart[i+1]; e++)
+				if (network.inSource[e] < i) {
+					int edge = next[network.inSource[e]]++;
+					outTarget[edge] = i;
+					outWeight[edge] = network.inWeight[e];
+				}
+
+		input = new double[network.numberOfInputs];
+		state = network.newState();
+		sum = new double[n];
+		dirty = new long[(n+63) >>> 6];
+		recompute = new boolean[n];
+	}
+
+    /**
+     * @return The evaluated network.
+     */
+	public CompiledNetwork getNetwork() { return network; }
+
+    /**
+     * @return False if the network has recurrent connections and is therefore always evaluated in full.
+     */
+	public boolean isIncremental() { return !recurrent; }
+
+    /**
+     * @return Number of nodes evaluated by the last call, inputs excluded.
+     */
+	public int getEvaluatedNodes() { return evaluatedNodes; }
+
+    /**
+     * Clears the node values, as a new state array would; the next call evaluates the network in full.
+     */
+	public void reset() {
+		java.util.Arrays.fill(state, 0);
+		evaluated = false;
+	}
+
+    /**
+     * Feeds input through the network and returns continuous output values.
+     * @param input Array of input values matching number of input nodes.
+     * @return Array of continuous output values from output nodes.
+     */
+	public double[] feed(double[] input) {
+		double[] output = new double[network.numberOfOutputs];
+		feed(input, output);
+		return output;
+	}
+
+    /**
+     * Feeds input through the network and writes the output values into the given array.
+     * @param input Array of input values matching number of input nodes.
+     * @param output Array receiving the output values.
+     */
+	public void feed(double[] input, double[] output) {
+		if (!evaluated || recurrent || ++calls >= refreshInterval || !propagate(input))
+			evaluate(input);
+
+		for (int i = 0; i < network.numberOfOutputs; i++)
+			output[i] = state[network.outputIndex[i]];
+	}
+
+    /**
+     * Evaluates every node and stores the weighted input sums.
+     */
+	private void evaluate(double[] input) {
+		CompiledNetwork network = this.network;
+		for (int i = 0; i < network.numberOfInputs; i++) {
+			this.input[i] = input[i];
+			state[i] = CompiledNetwork.activate(network.activation[i], input[i], network.reluLeak);
+		}
+		for (int i = network.numberOfInputs; i < network.numberOfNodes; i++)
+			state[i] = activate(i, aggregate(i));
+
+		java.util.Arrays.fill(dirty, 0);
+		evaluated = true;
+		calls = 0;
+		evaluatedNodes = network.numberOfNodes - network.numberOfInputs;
+	}
+
+    /**
+     * Propagates the changed inputs through their forward cones.
+     * @return False if a non-finite change requires a full evaluation instead.
+     */
+	private boolean propagate(double[] input) {
+		CompiledNetwork network = this.network;
+		evaluatedNodes = 0;
+		for (int i = 0; i < network.numberOfInputs; i++) {
+			if (Double.doubleToLongBits(input[i]) == Double.doubleToLongBits(this.input[i]))
+				continue;
+			this.input[i] = input[i];
+			if (!change(i, CompiledNetwork.activate(network.activation[i], input[i], network.reluLeak)))
+				return false;
+		}
+
+		for (int word = 0; word < dirty.length; word++) {
+			while (dirty[word] != 0) {
+				int i = word << 6 | Long.numberOfTrailingZeros(dirty[word]);
+				dirty[word] &= dirty[word]-1;
+				double aggregation = recompute[i] ? aggregate(i) : mean(i);
+				recompute[i] = false;
+				evaluatedNodes++;
+				if (!change(i, activate(i, aggregation)))
+					return false;
+			}
+		}
+		return true;
+	}
+
+    /**
+     * Sets the value of a node and passes the change on to the nodes it feeds.
+     * @return False if the change cannot be applied as a delta.
+     */
+	private boolean change(int node, double value) {
+		double previous = state[node];
+		if (Double.doubleToLongBits(value) == Double.doubleToLongBits(previous))
+			return true;
+		state[node] = value;
+		double delta = value - previous;
+		if (!Double.isFinite(delta)) {
+			java.util.Arrays.fill(recompute, false);
+			return false;
+		}
+
+		for (int e = outStart[node]; e < outStart[node+1]; e++) {
+			int target = outTarget[e];
+			byte function = network.aggregation[target];
+			if (function == CompiledNetwork.AGGREGATION_SUM || function == CompiledNetwork.AGGREGATION_MEAN)
+				sum[target] += delta*outWeight[e];
+			else recompute[target] = true;
+			dirty[target >>> 6] |= 1L << target;
+		}
+		return true;
+	}
+
+    /**
+     * Aggregates all inputs of a node, storing the weighted sum of SUM and MEAN nodes.
+     */
+	private double aggregate(int node) {
+		byte function = network.aggregation[node];
+		if (function != CompiledNetwork.AGGREGATION_SUM && function != CompiledNetwork.AGGREGATION_MEAN)
+			return network.aggregate(node, state, 1, 0, state, network.numberOfNodes);
+
+		double result = 0;
+		for (int e = network.inStart[node]; e < network.inStart[node+1]; e++)
+			result += state[network.inSource[e]]*network.inWeight[e];
+		sum[node] = result;
+		return mean(node);
+	}
+
+    /**
+     * @return The stored sum of a SUM node, or the stored sum over the fan-in of a MEAN node.
+     */
+	private double mean(int node) {
+		int fanIn = network.inStart[node+1] - network.inStart[node];
+		return network.aggregation[node] == CompiledNetwork.AGGREGATION_MEAN && fanIn > 0 ? sum[node]/fanIn : sum[node];
+	}
+
+	private double activate(int node, double aggregation) {
+		return CompiledNetwork.activate(network.activation[node],
+				network.response[node]*aggregation + network.bias[node], network.reluLeak);
+	}
+
+}
@@ -0,0 +1,161 @@
+package main.java.neat.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Evaluates a {@link CompiledNetwork} in place from its encoding in a buffer, typically a
+ * memory-mapped file, without decoding it into arrays or objects.
+ *
+ * <p>Creating a view only reads the fixed-size header, so opening a network is O(1) no matter
+ * its size. Every evaluation reads weights and topology straight from the buffer with absolute
+ * reads, leaving the buffer's position untouched, so a view can be shared between threads. As
+ * with {@link CompiledNetwork}, node values live in a caller-owned state array obtained from
+ * {@link #newState()}.
+ *
+ * @author Taher Joudeh
+ */
+public final class MappedNetwork {
+
+	private static final int HEADER_SIZE = 5*Integer.BYTES + Double.BYTES;
+
+	private final ByteBuffer buffer;
+	private final int numberOfInputs, numberOfOutputs, numberOfNodes, numberOfConnections, maxFanIn;
+	private final double reluLeak;
+
+	/**
+	 * Absolute buffer offsets of the encoded arrays.
+	 */
+	private final int activation, aggregation, bias, response, inStart, inSource, inWeight, outputIndex, outputThreshold;
+
+    /**
+     * Creates a view of a network written by {@link CompiledNetwork#writeTo(ByteBuffer)}.
+     * @param buffer Buffer holding the network, in the byte order it was written with. Its position is not used.
+     * @param offset Absolute offset of the network in the buffer.
+     */
+	public MappedNetwork(ByteBuffer buffer, int offset) {
+		this.buffer = buffer;
+		numberOfInputs = buffer.getInt(offset);
+		numberOfOutputs = buffer.getInt(offset + 4);
+		numberOfNodes = buffer.getInt(offset + 8);
+		numberOfConnections = buffer.getInt(offset + 12);
+		maxFanIn = buffer.getInt(offset + 16);
+		reluLeak = buffer.getDouble(offset + 20);
+
+		activation = offset + HEADER_SIZE;
+		aggregation = activation + numberOfNodes;
+		bias = aggregation + numberOfNodes;
+		response = bias + numberOfNodes*Double.BYTES;
+		inStart = response + numberOfNodes*Double.BYTES;
+		inSource = inStart + (numberOfNodes+1)*Integer.BYTES;
+		inWeight = inSource + numberOfConnections*Integer.BYTES;
+		outputIndex = inWeight + numberOfConnections*Double.BYTES;
+		outputThreshold = outputIndex + numberOfOutputs*Integer.BYTES;
+	}
+
+    /**
+     * @return Number of input values expected by {@link #feed(double[], double[])}.
+     */
+	public int getNumberOfInputs() { return numberOfInputs; }
+
+    /**
+     * @return Number of values produced per evaluation.
+     */
+	public int getNumberOfOutputs() { return numberOfOutputs; }
+
+    /**
+     * @return Number of nodes (inputs included).
+     */
+	public int getNumberOfNodes() { return numberOfNodes; }
+
+    /**
+     * @return Number of enabled connections.
+     */
+	public int getNumberOfConnections() { return numberOfConnections; }
+
+    /**
+     * Creates a zeroed state array for this network.
+     * @return New state array.
+     */
+	public double[] newState() {
+		return new double[numberOfNodes + maxFanIn];
+	}
+
+    /**
+     * Decodes the network into a {@link CompiledNetwork}, e.g. to evaluate it in batches.
+     * @return The decoded network.
+     */
+	public CompiledNetwork decode() {
+		ByteBuffer view = buffer.duplicate().order(buffer.order());
+		view.position(activation - HEADER_SIZE);
+		return CompiledNetwork.readFrom(view);
+	}
+
+    /**
+     * Feeds input through the network and returns continuous output values.
+     * @param input Array of input values matching number of input nodes.
+     * @param state State array created by {@link #newState()}.
+     * @return Array of continuous output values from output nodes.
+     */
+	public double[] feed(double[] input, double[] state) {
+		double[] output = new double[numberOfOutputs];
+		feed(input, state, output);
+		return output;
+	}
+
+    /**
+     * Feeds input through the network and writes the output values into the given array.
+     * @param input Array of input values matching number of input nodes.
+     * @param state State array created by {@link #newState()}.
+     * @param output Array receiving the output values.
+     */
+	public void feed(double[] input, double[] state, double[] output) {
+		for (int i = 0; i < numberOfInputs; i++)
+			state[i] = CompiledNetwork.activate(buffer.get(activation + i), input[i], reluLeak);
+
+		for (int i = numberOfInputs; i < numberOfNodes; i++)
+			state[i] = CompiledNetwork.activate(buffer.get(activation + i),
+					buffer.getDouble(response + i*Double.BYTES)*aggregate(i, state) + buffer.getDouble(bias + i*Double.BYTES), reluLeak);
+
+		for (int i = 0; i < numberOfOutputs; i++)
+			output[i] = state[buffer.getInt(outputIndex + i*Integer.BYTES)];
+	}
+
+    /**
+     * Feeds input through the network and returns binary-activated outputs.
+     * @param input Array of input values matching number of input nodes.
+     * @param state State array created by {@link #newState()}.
+     * @return Array of boolean activation states from output nodes.
+     */
+	public boolean[] feed2(double[] input, double[] state) {
+		double[] values = feed(input, state);
+		boolean[] output = new boolean[numberOfOutputs];
+		for (int i = 0; i < numberOfOutputs; i++)
+			output[i] = values[i] > buffer.getDouble(outputThreshold + i*Double.BYTES);
+		return output;
+	}
+
+	private double aggregate(int node, double[] state) {
+		int start = buffer.getInt(inStart + node*Integer.BYTES), end = buffer.getInt(inStart + (node+1)*Integer.BYTES);
+		byte function = buffer.get(aggregation + node);
+		if (start == end)
+			return CompiledNetwork.aggregateNothing(function);
+
+		if (function == CompiledNetwork.AGGREGATION_SUM || function == CompiledNetwork.AGGREGATION_MEAN) {
+			double result = 0;
+			for (int e = start; e < end; e++)
+				result += input(e, state);
+			return function == CompiledNetwork.AGGREGATION_MEAN ? result/(end-start) : result;
+		}
+		for (int e = start; e < end; e++)
+			state[numberOfNodes + e-start] = input(e, state);
+		return CompiledNetwork.reduce(function, state, numberOfNodes, numberOfNodes+end-start);
+	}
+
+    /**
+     * @return Weighted value carried by connection {@code e}.
+     */
+	private double input(int e, double[] state) {
+		return state[buffer.getInt(inSource + e*Integer.BYTES)]*buffer.getDouble(inWeight + e*Double.BYTES);
+	}
+
+}
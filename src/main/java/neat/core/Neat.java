@@ -1,12 +1,26 @@
 package main.java.neat.core;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import main.java.neat.config.NEATConfig;
 import main.java.neat.config.NEATConfig.FITNESS_CRITERION;
+import main.java.neat.config.NEATConfig.INFERENCE_COST;
+import main.java.neat.config.NEATConfig.INFERENCE_COST_USAGE;
+import main.java.neat.core.GenerationEvent.PHASE;
 import main.java.neat.functions.AggregationFunction;
 import main.java.neat.functions.AggregationFunction.AGGREGATION_FUNCTION;
+import main.java.neat.jfr.EvolvePhaseEvent;
+import main.java.neat.jfr.ReproductionEvent;
+import main.java.neat.jfr.SpeciationEvent;
 
 /**
  * Main class implementing the NEAT algorithm workflow. Handles population management,
@@ -17,6 +31,11 @@ import main.java.neat.functions.AggregationFunction.AGGREGATION_FUNCTION;
  */
 public class Neat {
 
+	/**
+	 * Number of most recent checkpoints kept by {@link #checkpoint(Path)}.
+	 */
+	public static final int DEFAULT_CHECKPOINT_RETENTION = 3;
+
 	private final static int RUNNING = 0, GENERATION_TERMINATION = 1, FITNESS_TERMINATION = 2;
 	private final String GENERATION_TERMINATION_MESSAGE,
 			FITNESS_TERMINATION_MESSAGE;
@@ -35,6 +54,22 @@ public class Neat {
 	private int generation = 1;
 	private double populationFitness;
 	private double populationAdjustedFitness;
+	
+	private ExecutorService checkpointWriter;
+	
+	private GenerationJournal journal;
+	private int[] parents, secondParents;
+	private IdentityHashMap<Agent,Integer> populationIndex;
+	private IdentityHashMap<Genome,int[]> lineage;
+	
+	private final ArrayList<EvolutionListener> listeners = new ArrayList<> ();
+	private PhaseTimer timer;
+	
+	/**
+	 * Seed sequence of a seeded run, installed while the population is built or evolved; null if unseeded.
+	 */
+	private Random seeder;
+	private EvolvePhaseEvent phaseEvent;
 			
     /**
      * Constructs a NEAT algorithm controller with specified configuration.
@@ -48,9 +83,16 @@ public class Neat {
 		
 		this.compatibilityThreshold = neatConfig.getCompatibilityThreshold();
 		init();
+		Random previous = RandomSource.install(seeder);
+		try {
+			initAgents();
+		}finally {
+			RandomSource.install(previous);
+		}
 	}
 	
 	private void init() {
+		seeder = neatConfig.isSeeded() ? new Random(neatConfig.getSeed()) : null;
 		population = new Agent[this.neatConfig.getPopulationSize()];
 		species = new LinkedList<> ();
 		
@@ -78,8 +120,6 @@ public class Neat {
 				fitnessCriterion = AggregationFunction.getAggregationFunction(AGGREGATION_FUNCTION.MIN);
 				break;
 			}
-		
-		initAgents();
 	}
 	
     /**
@@ -124,6 +164,240 @@ public class Neat {
      */
 	public double getCurrentCompatibilityThreshold() { return compatibilityThreshold; }
 
+    /**
+     * Writes a checkpoint of the whole run into a directory, keeping the
+     * {@value #DEFAULT_CHECKPOINT_RETENTION} most recent checkpoints.
+     * @param directory Directory holding the checkpoints of this run.
+     * @return Future completing with the path of the written checkpoint.
+     * @see #checkpoint(Path, int)
+     */
+	public Future<Path> checkpoint(Path directory) {
+		return checkpoint(directory, DEFAULT_CHECKPOINT_RETENTION);
+	}
+	
+    /**
+     * Writes a checkpoint of the whole run into a directory: population, species with their
+     * stagnation counters and representatives, compatibility threshold, generation counter,
+     * best agent and the innovation history. Call it between generations.
+     * <p>
+     * Only an immutable snapshot is taken on the calling thread; the file is written on a
+     * background thread so {@link #evolve(boolean)} is not stalled. Once it is written, all but
+     * the {@code retention} most recent checkpoints in the directory are deleted.
+     * The writer thread is a daemon, so wait on the returned future before exiting.
+     * @param directory Directory holding the checkpoints of this run.
+     * @param retention Number of most recent checkpoints kept in the directory (must be at least 1).
+     * @return Future completing with the path of the written checkpoint.
+     * @throws IllegalArgumentException If retention is less than 1.
+     */
+	public Future<Path> checkpoint(Path directory, int retention) {
+		if (retention < 1)
+			throw new IllegalArgumentException("retention must be positive: " + retention);
+		Checkpoint snapshot = snapshot();
+		if (checkpointWriter == null)
+			checkpointWriter = Executors.newSingleThreadExecutor(r -> {
+				Thread thread = new Thread(r, "neat-checkpoint");
+				thread.setDaemon(true);
+				return thread;
+			});
+		return checkpointWriter.submit(() -> snapshot.write(directory, retention));
+	}
+	
+    /**
+     * Resumes a run from a checkpoint written by {@link #checkpoint(Path)}. The configuration
+     * is restored from the checkpoint, and the process-wide innovation history is replaced by
+     * the checkpointed one. The seed sequence of a seeded run and the generators of the species
+     * continue from their checkpointed states, so a resumed seeded run evolves as the run that
+     * wrote the checkpoint does, given the same fitness values.
+     * @param path A checkpoint file, or a checkpoint directory to resume from its latest checkpoint.
+     * @return NEAT controller continuing the checkpointed run.
+     * @throws IOException If no checkpoint exists or it cannot be read.
+     */
+	public static Neat resume(Path path) throws IOException {
+		Checkpoint checkpoint = Checkpoint.read(path);
+		Neat neat = new Neat(checkpoint.neatConfig, checkpoint);
+		Connection.restoreInnovationHistory(checkpoint.innovationHistory, checkpoint.nextInnovationNumber);
+		return neat;
+	}
+	
+    /**
+     * Clears the process-wide innovation history, so that the next run numbers its innovations
+     * as a run in a fresh process would. Must not be called while another run is evolving with
+     * sequential innovation numbering.
+     */
+	public static void resetInnovationHistory() {
+		Connection.restoreInnovationHistory(new long[0], 0);
+	}
+	
+	private Neat(NEATConfig neatConfig, Checkpoint checkpoint) {
+		this.neatConfig = neatConfig;
+		
+		GENERATION_TERMINATION_MESSAGE = "Terminated due to reaching the generation threshold [generationThreshold: " + neatConfig.getGenerationTerminationThreshold() + "]";
+		FITNESS_TERMINATION_MESSAGE = "Terminated due to reaching the fitness threshold [fitnessThreshold: " + neatConfig.getFitnessTerminationThreshold() + "]";
+		
+		init();
+		
+		state = checkpoint.state;
+		generation = checkpoint.generation;
+		speciesNumber = checkpoint.speciesNumber;
+		compatibilityThreshold = checkpoint.compatibilityThreshold;
+		populationFitness = checkpoint.populationFitness;
+		populationAdjustedFitness = checkpoint.populationAdjustedFitness;
+		
+		seeder = checkpoint.seeded ? new Random(checkpoint.seederSeed) : null;
+		Random previous = RandomSource.install(checkpoint.seeded ? new Random(~checkpoint.seederSeed) : null);
+		try {
+			restore(checkpoint);
+		}finally {
+			RandomSource.install(previous);
+		}
+	}
+	
+	private void restore(Checkpoint checkpoint) {
+		for (int i = 0; i < population.length; i++)
+			population[i] = checkpoint.population[i].toAgent();
+		if (checkpoint.best != null)
+			best = checkpoint.best.toAgent();
+		if (checkpoint.currentBest != null)
+			currentBest = checkpoint.currentBest.toAgent();
+		
+		for (Checkpoint.SpeciesState saved: checkpoint.species) {
+			Species s = new Species(saved.number);
+			s.stagnationCounter = saved.stagnationCounter;
+			s.fitness = saved.fitness;
+			s.adjustedFitness = saved.adjustedFitness;
+			s.maxFitness = saved.maxFitness;
+			s.maxHighscore = saved.maxHighscore;
+			s.random = new Random(saved.randomSeed);
+			s.representative = saved.representative;
+			for (int member: saved.members)
+				s.agents.add(population[member]);
+			species.add(s);
+		}
+	}
+	
+	private Checkpoint snapshot() {
+		IdentityHashMap<Agent,Integer> index = new IdentityHashMap<> ();
+		Checkpoint.AgentState[] agents = new Checkpoint.AgentState[population.length];
+		for (int i = 0; i < population.length; i++) {
+			index.put(population[i], i);
+			agents[i] = new Checkpoint.AgentState(population[i]);
+		}
+		
+		Checkpoint.SpeciesState[] speciesStates = new Checkpoint.SpeciesState[species.size()];
+		int i = 0;
+		for (Species s: species) {
+			int[] members = new int[s.size()];
+			int j = 0;
+			for (Agent agent: s.agents)
+				members[j++] = index.get(agent);
+			long randomSeed = s.random.nextLong();
+			s.random = new Random(randomSeed);
+			speciesStates[i++] = new Checkpoint.SpeciesState(s.number, s.stagnationCounter, s.fitness, s.adjustedFitness,
+					s.maxFitness, s.maxHighscore, randomSeed, s.representative, members);
+		}
+		long seederSeed = 0;
+		if (seeder != null) {
+			seederSeed = seeder.nextLong();
+			seeder = new Random(seederSeed);
+		}
+		
+		return new Checkpoint(neatConfig, state, generation, speciesNumber,
+				compatibilityThreshold, populationFitness, populationAdjustedFitness,
+				Connection.getGlobalInnovationNumber(), Connection.getInnovationHistory(),
+				seeder != null, seederSeed, agents,
+				best == null ? null : new Checkpoint.AgentState(best),
+				currentBest == null ? null : new Checkpoint.AgentState(currentBest),
+				speciesStates);
+	}
+
+    /**
+     * Registers a listener notified after every generation with phase timings and statistics.
+     * Phases are only timed while at least one listener is registered.
+     * @param listener Listener to add.
+     */
+	public void addEvolutionListener(EvolutionListener listener) {
+		if (listener != null)
+			listeners.add(listener);
+	}
+	
+    /**
+     * Unregisters a listener.
+     * @param listener Listener to remove.
+     */
+	public void removeEvolutionListener(EvolutionListener listener) {
+		listeners.remove(listener);
+	}
+	
+	private void mark(PHASE phase) {
+		if (timer != null)
+			timer.mark(phase);
+		if (phaseEvent != null)
+			phaseEvent = phaseEvent.next(phase.name());
+	}
+	
+	private int[] getSpeciesSizes() {
+		int[] speciesSizes = new int[species.size()];
+		int i = 0;
+		for (Species s: species)
+			speciesSizes[i++] = s.size();
+		return speciesSizes;
+	}
+	
+	private Genome[] getGenomes() {
+		Genome[] genomes = new Genome[population.length];
+		for (int i = 0; i < population.length; i++)
+			genomes[i] = population[i].getGenome();
+		return genomes;
+	}
+	
+	private void fireGenerationEvent(int evolvedGeneration, int[] speciesSizes, Genome[] genomes) {
+		GenerationEvent event = new GenerationEvent(evolvedGeneration, state != RUNNING, populationFitness, currentBest.getFitness(),
+				compatibilityThreshold, speciesSizes, genomes, timer);
+		timer = null;
+		for (EvolutionListener listener: listeners)
+			listener.generationEvolved(event);
+	}
+	
+    /**
+     * Attaches a journal to which every generation is appended at the start of {@link #evolve(boolean)},
+     * once its fitness values have been assigned.
+     * @param journal Journal to append to, or null to stop journaling.
+     */
+	public void setJournal(GenerationJournal journal) {
+		this.journal = journal;
+		parents = secondParents = null;
+	}
+	
+	private void appendToJournal() {
+		try {
+			journal.append(generation, population, parents, secondParents);
+		} catch (IOException e) { throw new UncheckedIOException(e); }
+		
+		populationIndex = new IdentityHashMap<> ();
+		for (int i = 0; i < population.length; i++)
+			populationIndex.put(population[i], i);
+		lineage = new IdentityHashMap<> ();
+	}
+	
+	private void recordParents(Genome child, Agent parent, Agent secondParent) {
+		if (lineage != null)
+			lineage.put(child, new int[] {populationIndex.get(parent), secondParent == null ? -1 : populationIndex.get(secondParent)});
+	}
+	
+	private void updateParents() {
+		if (lineage == null)
+			return;
+		parents = new int[population.length];
+		secondParents = new int[population.length];
+		for (int i = 0; i < population.length; i++) {
+			int[] p = lineage.get(population[i].getGenome());
+			parents[i] = p == null ? -1 : p[0];
+			secondParents[i] = p == null ? -1 : p[1];
+		}
+		lineage = null;
+		populationIndex = null;
+	}
+
 	private int terminationCheck() {
 		
 		if (state != RUNNING || (!neatConfig.isGenerationTermination() && !neatConfig.isFitnessTermination()))
@@ -152,15 +426,41 @@ public class Neat {
      * @param printLastGenerationInfo If true, prints generation statistics to console.
      */
 	public void evolve(boolean printLastGenerationInfo) {
+		Random previous = RandomSource.install(seeder);
+		try {
+			evolveGeneration(printLastGenerationInfo);
+		}finally {
+			RandomSource.install(previous);
+		}
+	}
+	
+	private void evolveGeneration(boolean printLastGenerationInfo) {
+		
+		int evolvedGeneration = generation;
+		int[] speciesSizes = null;
+		Genome[] genomes = null;
+		if (!listeners.isEmpty()) {
+			timer = new PhaseTimer();
+			speciesSizes = getSpeciesSizes();
+			genomes = getGenomes();
+		}
+		phaseEvent = EvolvePhaseEvent.start(generation);
+		
+		if (journal != null)
+			appendToJournal();
 		
 		int numberOfSpecs = species.size();
 		if (neatConfig.isDynamicCompatabilityThreshold())
 			adjustCompatabilityThreshold();
 		
 		LinkedList<Genome> nextGeneration = new LinkedList<> ();
+		mark(PHASE.OTHER);
 		
+		calculateSelectionFitness();
 		calculateFitness();
+		mark(PHASE.CALCULATE_FITNESS);
 		sortAll();
+		mark(PHASE.SORT);
 		calculatePopulationFitness();
 		
 		getCurrentBest();
@@ -170,16 +470,25 @@ public class Neat {
 				
 		state = terminationCheck();
 		if (state != RUNNING) {
+			lineage = null;
+			populationIndex = null;
 			if (state == GENERATION_TERMINATION)
 				System.out.println(GENERATION_TERMINATION_MESSAGE);
 			else System.out.println(FITNESS_TERMINATION_MESSAGE);
+			mark(PHASE.OTHER);
+			phaseEvent = null;
+			if (timer != null)
+				fireGenerationEvent(evolvedGeneration, speciesSizes, genomes);
 			return;
 		}
+		mark(PHASE.OTHER);
 		
 		cull();
+		mark(PHASE.CULL);
 		calculatePopulationAdjustedFitness();
 		int totalElites = allocateElites();
 		allocateOffspring(totalElites);
+		mark(PHASE.ALLOCATE);
 		fillElitesGenomes(nextGeneration);
 		fillReproducedGenomes(nextGeneration);
 		fillNewGenomes(nextGeneration);
@@ -188,10 +497,17 @@ public class Neat {
 			population[i].setGenome(nextGeneration.get(i));
 			population[i].setFitness(0);
 		}
+		updateParents();
+		mark(PHASE.REPRODUCE);
 		
 		speciate();
+		mark(PHASE.SPECIATE);
 		
 		generation++;
+		mark(PHASE.OTHER);
+		phaseEvent = null;
+		if (timer != null)
+			fireGenerationEvent(evolvedGeneration, speciesSizes, genomes);
 	}
 	
 	private void sortAll() {
@@ -199,8 +515,49 @@ public class Neat {
 			s.sort(neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MIN ? true : false);
 		
 		if (neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MAX)
-			species.sort((s1,s2) -> Double.compare(s1.agents.get(0).getFitness(), s2.agents.get(0).getFitness()));
-		else species.sort((s1,s2) -> Double.compare(s2.agents.get(0).getFitness(), s1.agents.get(0).getFitness()));
+			species.sort((s1,s2) -> compareFitness(s1.agents.get(0), s2.agents.get(0)));
+		else species.sort((s1,s2) -> compareFitness(s2.agents.get(0), s1.agents.get(0)));
+	}
+	
+	/**
+	 * Orders agents by ascending selection fitness. When the inference cost is a tie-breaker, agents of equal
+	 * fitness are ordered so that the cheaper one ranks better under the fitness criterion.
+	 */
+	private int compareFitness(Agent a1, Agent a2) {
+		return compareFitness(a1, a1.getSelectionFitness(), a2, a2.getSelectionFitness());
+	}
+	
+	private int compareFitness(Agent a1, double fitness1, Agent a2, double fitness2) {
+		int comparison = Double.compare(fitness1, fitness2);
+		if (comparison != 0 || neatConfig.getInferenceCostUsage() != INFERENCE_COST_USAGE.TIE_BREAKER)
+			return comparison;
+		comparison = Double.compare(getExcessInferenceCost(a1.getGenome()), getExcessInferenceCost(a2.getGenome()));
+		return neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MAX ? -comparison : comparison;
+	}
+	
+	/**
+	 * Inference cost of a genome above the configured budget.
+	 */
+	private double getExcessInferenceCost(Genome genome) {
+		return Math.max(0, genome.getInferenceCost(neatConfig.getInferenceCost()) - neatConfig.getInferenceCostBudget());
+	}
+	
+	/**
+	 * Sets the fitness agents are ranked and selected by, leaving their fitness untouched: the
+	 * inference-cost penalty only steers selection and speciation. When maximizing, the penalty
+	 * stops at 0 so that adjusted fitness and roulette weights stay non-negative.
+	 */
+	private void calculateSelectionFitness() {
+		boolean penalty = neatConfig.getInferenceCost() != INFERENCE_COST.NONE && neatConfig.getInferenceCostUsage() == INFERENCE_COST_USAGE.PENALTY;
+		boolean max = neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MAX;
+		for (Agent agent: population) {
+			double fitness = agent.getFitness();
+			if (penalty) {
+				double cost = neatConfig.getInferenceCostPenalty()*getExcessInferenceCost(agent.getGenome());
+				fitness = max ? Math.max(Math.min(fitness, 0), fitness - cost) : fitness + cost;
+			}
+			agent.setSelectionFitness(fitness);
+		}
 	}
 	private void calculateFitness() {
 		for (Species s: species) {
@@ -226,10 +583,18 @@ public class Neat {
 	}
 	
 	private void getCurrentBest() {
-		currentBest = species.getLast().agents.get(0).clone();
+		Agent top = population[0];
+		for (Agent agent: population) {
+			int comparison = compareFitness(agent, agent.getFitness(), top, top.getFitness());
+			if (neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MAX ? comparison > 0 : comparison < 0)
+				top = agent;
+		}
+		currentBest = top.clone();
 		if (best == null ||
 				(neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MAX && currentBest.getFitness() > best.getFitness()) ||
-				(neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MIN && currentBest.getFitness() < best.getFitness()))
+				(neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MIN && currentBest.getFitness() < best.getFitness()) ||
+				(currentBest.getFitness() == best.getFitness() && neatConfig.getInferenceCostUsage() == INFERENCE_COST_USAGE.TIE_BREAKER &&
+						getExcessInferenceCost(currentBest.getGenome()) < getExcessInferenceCost(best.getGenome())))
 			best = currentBest.clone();
 	}
 	
@@ -327,6 +692,10 @@ public class Neat {
 	
 	private void speciate() {
 		
+		SpeciationEvent event = new SpeciationEvent();
+		event.begin();
+		long distanceCalls = 0;
+		
 		for (Species s: species)
 			s.updateRepresentative();
 		
@@ -334,6 +703,7 @@ public class Neat {
 		for (int i = 0; i < neatConfig.getPopulationSize(); i++) {
 			double min = Double.POSITIVE_INFINITY;
 			Species s = null;
+			distanceCalls += species.size();
 			for (Species sp: species) {
 				double dist = Genome.distance(population[i].getGenome(), sp.representative);
 				if (dist < min) {
@@ -347,6 +717,15 @@ public class Neat {
 				species.add(new Species(population[i]));
 		}
 		removeEmptySpecies();
+		
+		if (event.shouldCommit()) {
+			event.generation = generation;
+			event.agents = neatConfig.getPopulationSize();
+			event.species = species.size();
+			event.distanceCalls = distanceCalls;
+			event.compatibilityThreshold = compatibilityThreshold;
+			event.commit();
+		}
 	}
 	
 	private void clearSpecies() {
@@ -381,10 +760,13 @@ public class Neat {
 		private int stagnationCounter;
 		
 		private Species() {
-			random = new Random();
+			this(++speciesNumber);
+		}
+		private Species(int number) {
+			random = RandomSource.newRandom();
 			agents = new LinkedList<> ();
 			selectionPool = new LinkedList<> ();
-			number = ++speciesNumber;
+			this.number = number;
 			
 			maxFitness = neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MAX ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
 			maxHighscore = neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MAX ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
@@ -409,14 +791,14 @@ public class Neat {
 		
 		private boolean isEmpty() { return agents.isEmpty(); }
 		private void sort(boolean ascending) {
-			agents.sort((a1,a2) -> Double.compare(a1.getFitness(), a2.getFitness()));
+			agents.sort(Neat.this::compareFitness);
 						
 			if (!ascending)
 				Collections.reverse(agents);
 		}
 		
 		private boolean cull() {
-			double currentHighscore = agents.get(0).getFitness();
+			double currentHighscore = agents.get(0).getSelectionFitness();
 			if ((currentHighscore <= maxHighscore && neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MAX) ||
 					(currentHighscore >= maxHighscore && neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MIN))
 				stagnationCounter++;
@@ -439,8 +821,8 @@ public class Neat {
 			for (Agent agent: agents) {
 				double adjustedFitness = 0;
 				if (neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MAX)
-					adjustedFitness = agent.getFitness()/(double)size();
-				else adjustedFitness = (1d/(1d+agent.getFitness()) / (double)size());
+					adjustedFitness = agent.getSelectionFitness()/(double)size();
+				else adjustedFitness = (1d/(1d+agent.getSelectionFitness()) / (double)size());
 				agent.setAdjustedFitness(adjustedFitness);
 				sum += adjustedFitness;
 			}
@@ -450,8 +832,11 @@ public class Neat {
 
 		private LinkedList<Genome> getElites(){
 			LinkedList<Genome> elites = new LinkedList<> ();
-			for (int i = 0; i < size() && i < numberOfElites; i++)
-				elites.add(agents.get(i).getGenome().clone());
+			for (int i = 0; i < size() && i < numberOfElites; i++) {
+				Genome elite = agents.get(i).getGenome().clone();
+				recordParents(elite, agents.get(i), null);
+				elites.add(elite);
+			}
 			
 			return elites;
 		}
@@ -459,7 +844,7 @@ public class Neat {
 		private double[] getAgentsFitness() {
 			double[] agentsFitness = new double[size()];
 			for (int i = 0; i < size(); i++)
-				agentsFitness[i] = agents.get(i).getFitness();
+				agentsFitness[i] = agents.get(i).getSelectionFitness();
 			return agentsFitness;
 		}
 				
@@ -467,8 +852,8 @@ public class Neat {
 			double[] poolFitness = new double[selectionPool.size()];
 			for (int i = 0; i < selectionPool.size(); i++) {
 				if (neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MAX)
-					poolFitness[i] = selectionPool.get(i).getFitness();
-				else poolFitness[i] = 1d/(1d+selectionPool.get(i).getFitness());
+					poolFitness[i] = selectionPool.get(i).getSelectionFitness();
+				else poolFitness[i] = 1d/(1d+selectionPool.get(i).getSelectionFitness());
 			}
 			return poolFitness;
 		}
@@ -482,7 +867,7 @@ public class Neat {
 			for (int i = 0; i < size() && i < selectionPoolSize; i++)
 				selectionPool.add(agents.get(i));
 			
-			Collections.shuffle(selectionPool);
+			Collections.shuffle(selectionPool, random);
 			
 		}
 		
@@ -496,6 +881,10 @@ public class Neat {
 		
 		private LinkedList<Genome> reproduce() {
 			
+			ReproductionEvent event = new ReproductionEvent();
+			event.begin();
+			int offspring = numberOfOffspring, poolSize = selectionPool.size(), crossovers = 0;
+			
 			LinkedList<Genome> children = new LinkedList<> ();
 			
 			double sum = AggregationFunction.getAggregationFunction(AGGREGATION_FUNCTION.SUM).aggregate(getPoolFitness());			
@@ -505,22 +894,34 @@ public class Neat {
 				Agent parent1 = selectAgent(sum);
 				Agent parent2 = selectAgent(sum);
 				
-				if (parent1 == parent2)
+				if (parent1 == parent2) {
 					child = parent1.getGenome().clone();
-				else if (parent1.getFitness() != parent2.getFitness()) {
+					recordParents(child, parent1, null);
+				}else if (parent1.getSelectionFitness() != parent2.getSelectionFitness()) {
 					if (neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MAX) {
-						if (parent1.getFitness() > parent2.getFitness())
+						if (parent1.getSelectionFitness() > parent2.getSelectionFitness()) {
 							child = Genome.crossover(parent1.getGenome(), parent2.getGenome(), false);
-						else if (parent2.getFitness() > parent1.getFitness())
+							recordParents(child, parent1, parent2);
+						}else if (parent2.getSelectionFitness() > parent1.getSelectionFitness()) {
 							child = Genome.crossover(parent2.getGenome(), parent1.getGenome(), false);
+							recordParents(child, parent2, parent1);
+						}
 					}else {
-						if (parent1.getFitness() > parent2.getFitness())
+						if (parent1.getSelectionFitness() > parent2.getSelectionFitness()) {
 							child = Genome.crossover(parent2.getGenome(), parent1.getGenome(), false);
-						else if (parent2.getFitness() > parent1.getFitness())
+							recordParents(child, parent2, parent1);
+						}else if (parent2.getSelectionFitness() > parent1.getSelectionFitness()) {
 							child = Genome.crossover(parent1.getGenome(), parent2.getGenome(), false);
+							recordParents(child, parent1, parent2);
+						}
 					}
-				}else child = Genome.crossover(parent2.getGenome(), parent1.getGenome(), true);
+				}else {
+					child = Genome.crossover(parent2.getGenome(), parent1.getGenome(), true);
+					recordParents(child, parent2, parent1);
+				}
 				
+				if (parent1 != parent2)
+					crossovers++;
 				child.mutate();
 				children.add(child);
 				
@@ -528,6 +929,15 @@ public class Neat {
 			}
 			
 			selectionPool.clear();
+			
+			if (event.shouldCommit()) {
+				event.generation = generation;
+				event.species = number;
+				event.offspring = offspring;
+				event.crossovers = crossovers;
+				event.selectionPool = poolSize;
+				event.commit();
+			}
 			return children;
 			
 		}
@@ -558,9 +968,9 @@ public class Neat {
 			int i = 0;
 			while (runningSum < stopThreshold && i < selectionPool.size()-1) {
 				if (neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MAX)
-					runningSum += selectionPool.get(i).getFitness();
+					runningSum += selectionPool.get(i).getSelectionFitness();
 				else if (neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MIN)
-						runningSum += 1d/(1d+selectionPool.get(i).getFitness());
+						runningSum += 1d/(1d+selectionPool.get(i).getSelectionFitness());
 				
 				if (runningSum < stopThreshold)
 					i++;
@@ -574,8 +984,8 @@ public class Neat {
 			Agent agent = selectionPool.get(random.nextInt(selectionPool.size()));
 			for (int i = 0; i < neatConfig.getTournamentSize()-1; i++) {
 				Agent ag = selectionPool.get(random.nextInt(selectionPool.size()));
-				if ((neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MAX && agent.getFitness() < ag.getFitness()) ||
-						(neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MIN && agent.getFitness() > ag.getFitness()))
+				if ((neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MAX && agent.getSelectionFitness() < ag.getSelectionFitness()) ||
+						(neatConfig.getFitnessCriterion() == FITNESS_CRITERION.MIN && agent.getSelectionFitness() > ag.getSelectionFitness()))
 					agent = ag;
 			}
 			
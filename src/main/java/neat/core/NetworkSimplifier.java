@@ -0,0 +1,301 @@
+package main.java.neat.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Simplification pass producing a smaller {@link CompiledNetwork} with the same outputs.
+ *
+ * <p>Compiling already drops disabled connections. The pass then repeats, until nothing changes:
+ * <ul>
+ * <li><b>Dead nodes</b>: Hidden nodes with no path of enabled connections to an output are removed,
+ * including cycles of hidden nodes that only feed each other.</li>
+ * <li><b>Constant nodes</b>: A node without incoming connections always has the same value. Its
+ * forward connections into sum-aggregating nodes are folded into their biases; the node is removed
+ * once nothing reads it.</li>
+ * <li><b>Linear chains</b>: A hidden node with a linear activation, a single forward input
+ * {@code a} and a built-in aggregation that passes a single value through is bypassed: each of
+ * its forward connections is replaced by a connection from {@code a} with the combined weight,
+ * and its bias is folded into the downstream bias.</li>
+ * </ul>
+ * Connections from a node into the same sum-aggregating node are merged. Connections read by
+ * recurrent (backward) connections are left untouched, since they see the previous evaluation's
+ * values; results are therefore identical up to floating-point rounding, for feed-forward and
+ * recurrent networks alike. Input and output nodes are always kept.
+ *
+ * <p>Example usage:
+ * <pre>
+ * NetworkSimplifier simplified = NetworkSimplifier.simplify(CompiledNetwork.compile(champion));
+ * System.out.println(simplified);
+ * CompiledNetwork network = simplified.getNetwork();
+ * </pre>
+ *
+ * @author Taher Joudeh
+ */
+public final class NetworkSimplifier {
+
+	private final CompiledNetwork original, network;
+	private int deadNodes, constantNodes, fusedNodes;
+
+	/**
+	 * Node arrays being simplified; removed nodes are flagged and skipped.
+	 */
+	private final int numberOfNodes;
+	private final double[] bias, response;
+	private final byte[] activation, aggregation;
+	private final boolean[] removed, output;
+	private final List<List<Integer>> inSource;
+	private final List<List<Double>> inWeight;
+
+	private NetworkSimplifier(CompiledNetwork original) {
+		this.original = original;
+		numberOfNodes = original.numberOfNodes;
+		bias = original.bias.clone();
+		response = original.response.clone();
+		activation = original.activation;
+		aggregation = original.aggregation;
+		removed = new boolean[numberOfNodes];
+		output = new boolean[numberOfNodes];
+		for (int index: original.outputIndex)
+			output[index] = true;
+
+		inSource = new ArrayList<> (numberOfNodes);
+		inWeight = new ArrayList<> (numberOfNodes);
+		for (int i = 0; i < numberOfNodes; i++) {
+			ArrayList<Integer> sources = new ArrayList<> ();
+			ArrayList<Double> weights = new ArrayList<> ();
+			for (int e = original.inStart[i]; e < original.inStart[i+1]; e++) {
+				sources.add(original.inSource[e]);
+				weights.add(original.inWeight[e]);
+			}
+			inSource.add(sources);
+			inWeight.add(weights);
+		}
+
+		boolean changed = true;
+		while (changed)
+			changed = removeDeadNodes() | foldConstantNodes() | fuseLinearChains();
+		mergeConnections();
+		network = build();
+	}
+
+    /**
+     * Simplifies a network.
+     * @param network Network to simplify; left unchanged.
+     * @return The simplification, holding the simplified network and what was removed.
+     */
+	public static NetworkSimplifier simplify(CompiledNetwork network) {
+		return new NetworkSimplifier(network);
+	}
+
+    /**
+     * @return The simplified network.
+     */
+	public CompiledNetwork getNetwork() { return network; }
+
+    /**
+     * @return Number of hidden nodes removed for having no path to an output.
+     */
+	public int getDeadNodes() { return deadNodes; }
+
+    /**
+     * @return Number of constant nodes folded into their readers and removed.
+     */
+	public int getConstantNodes() { return constantNodes; }
+
+    /**
+     * @return Number of linear nodes bypassed and removed.
+     */
+	public int getFusedNodes() { return fusedNodes; }
+
+    /**
+     * @return Number of nodes removed.
+     */
+	public int getRemovedNodes() { return original.getNumberOfNodes() - network.getNumberOfNodes(); }
+
+    /**
+     * @return Number of connections removed.
+     */
+	public int getRemovedConnections() { return original.getNumberOfConnections() - network.getNumberOfConnections(); }
+
+	@Override
+	public String toString() {
+		return String.format("nodes: %d -> %d (dead: %d, constant: %d, fused: %d), connections: %d -> %d",
+				original.getNumberOfNodes(), network.getNumberOfNodes(), deadNodes, constantNodes, fusedNodes,
+				original.getNumberOfConnections(), network.getNumberOfConnections());
+	}
+
+	private boolean isHidden(int node) {
+		return node >= original.numberOfInputs && !output[node] && !removed[node];
+	}
+
+	private boolean removeDeadNodes() {
+		boolean[] live = new boolean[numberOfNodes];
+		int[] stack = new int[numberOfNodes];
+		int size = 0;
+		for (int index: original.outputIndex) {
+			live[index] = true;
+			stack[size++] = index;
+		}
+		while (size > 0) {
+			int node = stack[--size];
+			for (int source: inSource.get(node))
+				if (!live[source]) {
+					live[source] = true;
+					stack[size++] = source;
+				}
+		}
+
+		boolean changed = false;
+		for (int i = 0; i < numberOfNodes; i++)
+			if (isHidden(i) && !live[i]) {
+				remove(i);
+				deadNodes++;
+				changed = true;
+			}
+		return changed;
+	}
+
+	private boolean foldConstantNodes() {
+		boolean changed = false;
+		for (int i = original.numberOfInputs; i < numberOfNodes; i++) {
+			if (removed[i] || !inSource.get(i).isEmpty())
+				continue;
+			double value = CompiledNetwork.activate(activation[i],
+					response[i]*CompiledNetwork.aggregateNothing(aggregation[i]) + bias[i], original.reluLeak);
+
+			boolean read = false;
+			for (int node = 0; node < numberOfNodes; node++) {
+				if (removed[node])
+					continue;
+				for (int e = inSource.get(node).size()-1; e >= 0; e--) {
+					if (inSource.get(node).get(e) != i)
+						continue;
+					if (node > i && aggregation[node] == CompiledNetwork.AGGREGATION_SUM) {
+						bias[node] += response[node]*inWeight.get(node).get(e)*value;
+						removeConnection(node, e);
+						changed = true;
+					}else read = true;
+				}
+			}
+
+			if (!read && isHidden(i)) {
+				remove(i);
+				constantNodes++;
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	private boolean fuseLinearChains() {
+		boolean changed = false;
+		for (int i = original.numberOfInputs; i < numberOfNodes; i++) {
+			if (!isHidden(i) || inSource.get(i).size() != 1 || activation[i] != CompiledNetwork.ACTIVATION_LINEAR
+					|| aggregation[i] < CompiledNetwork.AGGREGATION_SUM || aggregation[i] >= CompiledNetwork.AGGREGATION_MAXABS)
+				continue;
+			int source = inSource.get(i).get(0);
+			if (source >= i)
+				continue;
+
+			boolean fusable = true;
+			for (int node = 0; node < numberOfNodes && fusable; node++)
+				if (!removed[node])
+					for (int s: inSource.get(node))
+						if (s == i && (node <= i || (bias[i] != 0 && aggregation[node] != CompiledNetwork.AGGREGATION_SUM)))
+							fusable = false;
+			if (!fusable)
+				continue;
+
+			double scale = response[i]*inWeight.get(i).get(0);
+			for (int node = i+1; node < numberOfNodes; node++) {
+				if (removed[node])
+					continue;
+				for (int e = 0; e < inSource.get(node).size(); e++) {
+					if (inSource.get(node).get(e) != i)
+						continue;
+					double weight = inWeight.get(node).get(e);
+					if (aggregation[node] == CompiledNetwork.AGGREGATION_SUM)
+						bias[node] += response[node]*weight*bias[i];
+					inSource.get(node).set(e, source);
+					inWeight.get(node).set(e, weight*scale);
+				}
+			}
+			remove(i);
+			fusedNodes++;
+			changed = true;
+		}
+		return changed;
+	}
+
+    /**
+     * Merges connections from the same source into a sum-aggregating node.
+     */
+	private void mergeConnections() {
+		for (int node = 0; node < numberOfNodes; node++) {
+			if (removed[node] || aggregation[node] != CompiledNetwork.AGGREGATION_SUM)
+				continue;
+			for (int e = inSource.get(node).size()-1; e >= 0; e--)
+				for (int f = 0; f < e; f++)
+					if (inSource.get(node).get(f).equals(inSource.get(node).get(e))) {
+						inWeight.get(node).set(f, inWeight.get(node).get(f) + inWeight.get(node).get(e));
+						removeConnection(node, e);
+						break;
+					}
+		}
+	}
+
+	private void remove(int node) {
+		removed[node] = true;
+		inSource.get(node).clear();
+		inWeight.get(node).clear();
+	}
+
+	private void removeConnection(int node, int e) {
+		inSource.get(node).remove(e);
+		inWeight.get(node).remove(e);
+	}
+
+	private CompiledNetwork build() {
+		int[] index = new int[numberOfNodes];
+		int n = 0, edges = 0;
+		for (int i = 0; i < numberOfNodes; i++) {
+			index[i] = removed[i] ? -1 : n++;
+			if (!removed[i])
+				edges += inSource.get(i).size();
+		}
+
+		byte[] activation = new byte[n], aggregation = new byte[n];
+		double[] bias = new double[n], response = new double[n];
+		int[] inStart = new int[n+1];
+		int[] inSource = new int[edges];
+		double[] inWeight = new double[edges];
+
+		int edge = 0;
+		for (int i = 0; i < numberOfNodes; i++) {
+			if (removed[i])
+				continue;
+			int node = index[i];
+			activation[node] = this.activation[i];
+			aggregation[node] = this.aggregation[i];
+			bias[node] = this.bias[i];
+			response[node] = this.response[i];
+			inStart[node] = edge;
+			for (int e = 0; e < this.inSource.get(i).size(); e++) {
+				inSource[edge] = index[this.inSource.get(i).get(e)];
+				inWeight[edge++] = this.inWeight.get(i).get(e);
+			}
+		}
+		inStart[n] = edge;
+
+		int[] outputIndex = new int[original.numberOfOutputs];
+		for (int i = 0; i < outputIndex.length; i++)
+			outputIndex[i] = index[original.outputIndex[i]];
+
+		return new CompiledNetwork(original.numberOfInputs, original.numberOfOutputs, n, original.reluLeak,
+				activation, aggregation, bias, response, inStart, inSource, inWeight,
+				outputIndex, Arrays.copyOf(original.outputThreshold, original.numberOfOutputs));
+	}
+
+}
@@ -1,7 +1,9 @@
 package main.java.neat.core;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.Random;
 import main.java.neat.config.NEATConfig.DISTRIBUTION;
@@ -24,7 +26,7 @@ public class Node implements Serializable {
 
 	private static final long serialVersionUID = -2812820096558333256L;
 
-	private transient Random random = new Random();
+	private transient Random random = RandomSource.newRandom();
 	
     /**
      * Enum representing node types in the neural network.
@@ -71,6 +73,11 @@ public class Node implements Serializable {
 	 */
 	private AggregationFunction aggregationFunction;
 	
+	/**
+	 * Reusable accumulator of the aggregation function, created on first activation.
+	 */
+	private transient AggregationFunction.Accumulator accumulator;
+	
 	/**
 	 * Activation function determining node output (e.g., sigmoid, ReLU).
 	 */
@@ -79,6 +86,12 @@ public class Node implements Serializable {
 	/**
 	 * Innovation number tracking node creation through connection splitting.
 	 */
+	private long splitInnovation;
+	
+	/**
+	 * 32-bit split innovation number written by versions before innovations were widened to 64 bits.
+	 * Only kept so that previously saved genomes still load.
+	 */
 	private int splitInnovationNumber;
 	
 	/**
@@ -137,18 +150,18 @@ public class Node implements Serializable {
     /**
      * @return Innovation number from when this node was created via connection splitting.
      */
-	protected int getSplitInnovationNumber() { return splitInnovationNumber; }
+	protected long getSplitInnovationNumber() { return splitInnovation; }
 	
     /**
      * Sets the innovation number tracking node creation history.
      * @param splitInnovationNumber Unique identifier from speciation.
      */
-	protected void setSplitInnovationNumber(int splitInnovationNumber) { this.splitInnovationNumber = splitInnovationNumber; }
+	protected void setSplitInnovationNumber(long splitInnovationNumber) { this.splitInnovation = splitInnovationNumber; }
 	
     /**
      * @return true if the node's activation function is currently active.
      */
-	public boolean isActivated() { return activationFunction.isActivated(); }
+	public boolean isActivated() { return activationFunction.isActivated(value); }
 	
     /**
      * Checks if node has insufficient active connections.
@@ -204,6 +217,12 @@ public class Node implements Serializable {
      */
 	public double getBias() { return bias; }
 	
+    /**
+     * Sets the bias value directly.
+     * @param bias New bias value.
+     */
+	protected void setBias(double bias) { this.bias = bias; }
+	
     /**
      * Adjusts bias with Gaussian mutation while respecting value constraints.
      * @param biasMutationPower Standard deviation for bias changes.
@@ -246,6 +265,12 @@ public class Node implements Serializable {
      */
 	public double getResponse() { return response; }
 	
+    /**
+     * Sets the response multiplier directly.
+     * @param response New response value.
+     */
+	protected void setResponse(double response) { this.response = response; }
+	
     /**
      * Adjusts response with Gaussian mutation while respecting value constraints.
      * @param responseMutationPower Standard deviation for response changes.
@@ -289,6 +314,7 @@ public class Node implements Serializable {
      */
 	protected void setAggregationFunction(AggregationFunction aggregationFunction) {
 		this.aggregationFunction = aggregationFunction;
+		accumulator = null;
 	}
 	
     /**
@@ -298,7 +324,17 @@ public class Node implements Serializable {
 	protected void setActivationFunction(ActivationFunction activationFunction) {
 		this.activationFunction = activationFunction;
 	}
-	
+
+    /**
+     * @return The aggregation function combining this node's input signals.
+     */
+	protected AggregationFunction getAggregationFunction() { return aggregationFunction; }
+
+    /**
+     * @return The activation function transforming this node's aggregated input.
+     */
+	protected ActivationFunction getActivationFunction() { return activationFunction; }
+
     /**
      * @return Copy of input connections list.
      */
@@ -347,15 +383,14 @@ public class Node implements Serializable {
 			return;
 		}
 		
-		double[] product = new double[inputConnections.size()];
-		int count = 0;
-		for (int i = 0; i < inputConnections.size(); i++)
-			if (inputConnections.get(i).isEnabled())
-				product[count++] = inputConnections.get(i).getFrom().value*inputConnections.get(i).getWeight();
-		
-		product = Arrays.copyOfRange(product, 0, count);
+		if (accumulator == null)
+			accumulator = aggregationFunction.newAccumulator();
+		accumulator.reset();
+		for (Connection connection: inputConnections)
+			if (connection.isEnabled())
+				accumulator.accept(connection.getFrom().value*connection.getWeight());
 		
-		double shiftedAggregation = response*aggregationFunction.aggregate(product) + bias;
+		double shiftedAggregation = response*accumulator.result() + bias;
 		
 		value = activationFunction.activate(shiftedAggregation);
 		
@@ -364,7 +399,7 @@ public class Node implements Serializable {
     /**
      * <p>Creates a deep copy of the node including:
      * <ul>
-     * <li>Duplicated activation/aggregation functions.
+     * <li>Shared (immutable) activation/aggregation functions.
      * <li>Copied bias/response values.
      * <li>Matching layer position
      * </ul>
@@ -376,9 +411,9 @@ public class Node implements Serializable {
 		clone.layer = layer;
 		clone.bias = bias;
 		clone.response = response;
-		clone.splitInnovationNumber = splitInnovationNumber;
+		clone.splitInnovation = splitInnovation;
 		clone.aggregationFunction = aggregationFunction;
-		clone.activationFunction = activationFunction.clone();
+		clone.activationFunction = activationFunction;
 		return clone;
 	}
 	
@@ -391,7 +426,7 @@ public class Node implements Serializable {
 	public boolean equals(Object obj) {
 		if (!(obj instanceof Node))
 			return false;
-		return splitInnovationNumber == ((Node)(obj)).splitInnovationNumber;
+		return splitInnovation == ((Node)(obj)).splitInnovation;
 	}
 	
     /**
@@ -402,7 +437,19 @@ public class Node implements Serializable {
 		return String.format("Type: %s, Layer: %d, Split innovation: %d",
 				type,
 				layer,
-				splitInnovationNumber);
+				splitInnovation);
+	}
+	
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		splitInnovationNumber = (int) splitInnovation;
+		out.defaultWriteObject();
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		random = RandomSource.newRandom();
+		if (splitInnovation == 0)
+			splitInnovation = splitInnovationNumber;
 	}
 	
 }
@@ -0,0 +1,224 @@
+package main.java.neat.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates a single large {@link CompiledNetwork} on several cores.
+ *
+ * <p>The nodes are grouped into wavefronts: a node joins the wavefront after the latest one of
+ * the nodes it reads through forward connections, and before every node that reads its previous
+ * value through a recurrent connection. Nodes of one wavefront are therefore independent, and
+ * evaluating the wavefronts in order gives the results of
+ * {@link CompiledNetwork#feed(double[], double[])}, recurrent values included. Wavefronts of at
+ * least {@code threshold} nodes are split into tasks on a {@link ForkJoinPool}; narrower ones are
+ * evaluated by the calling thread, and a network whose widest wavefront is narrower than the
+ * threshold, or given a pool of parallelism 1, is simply evaluated sequentially.
+ *
+ * <p>A parallel evaluation reads every node from its sparse row, without the dense-block kernel
+ * of the compiled network, so wide layers sum their inputs in connection order and results can
+ * differ from the compiled network in the last bits. Sequential evaluations are those of the
+ * compiled network.
+ *
+ * <p>Like a compiled network, a parallel network holds no mutable state and can be shared
+ * between threads; node values live in a caller-owned state array obtained from {@link #newState()}.
+ *
+ * <p>Example usage:
+ * <pre>
+ * ParallelNetwork network = new ParallelNetwork(CompiledNetwork.compile(genome));
+ * double[] output = network.feed(input, network.newState());
+ * </pre>
+ *
+ * @author Taher Joudeh
+ */
+public final class ParallelNetwork {
+
+	/**
+	 * Default minimum number of nodes of a wavefront evaluated in parallel.
+	 */
+	public static final int DEFAULT_THRESHOLD = 512;
+
+	private final CompiledNetwork network;
+	private final ForkJoinPool pool;
+	private final int threshold;
+
+	/**
+	 * Non-input nodes grouped by wavefront: wavefront {@code w} is
+	 * {@code order[wavefrontStart[w] .. wavefrontStart[w+1])}.
+	 */
+	private final int[] order;
+	private final int[] wavefrontStart;
+	private final int maxWidth;
+
+	/**
+	 * Whether some node aggregates through the scratch area (MEDIAN and plug-in functions).
+	 */
+	private final boolean scratch;
+
+    /**
+     * Constructs a parallel network on the common pool with the default threshold.
+     * @param network Network to evaluate.
+     */
+	public ParallelNetwork(CompiledNetwork network) {
+		this(network, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+	}
+
+    /**
+     * Constructs a parallel network.
+     * @param network Network to evaluate.
+     * @param pool Pool running the tasks of wide wavefronts.
+     * @param threshold Minimum number of nodes of a wavefront evaluated in parallel (must be at least 1).
+     * @throws IllegalArgumentException If threshold is less than 1.
+     */
+	public ParallelNetwork(CompiledNetwork network, ForkJoinPool pool, int threshold) {
+		if (threshold < 1)
+			throw new IllegalArgumentException("threshold must be positive: " + threshold);
+		this.network = network;
+		this.pool = pool;
+		this.threshold = threshold;
+
+		int n = network.numberOfNodes;
+		int[] wavefront = new int[n];
+		int wavefronts = 0;
+		boolean scratch = false;
+		for (int i = network.numberOfInputs; i < n; i++) {
+			int w = wavefront[i];
+			for (int e = network.inStart[i]; e < network.inStart[i+1]; e++)
+				if (network.inSource[e] < i)
+					w = Math.max(w, wavefront[network.inSource[e]] + 1);
+			wavefront[i] = w;
+			for (int e = network.inStart[i]; e < network.inStart[i+1]; e++)
+				if (network.inSource[e] > i)
+					wavefront[network.inSource[e]] = Math.max(wavefront[network.inSource[e]], w+1);
+			wavefronts = Math.max(wavefronts, w+1);
+			scratch |= network.aggregation[i] == CompiledNetwork.AGGREGATION_MEDIAN
+					|| network.aggregation[i] < 0 || network.aggregation[i] > CompiledNetwork.AGGREGATION_MAXABS;
+		}
+		this.scratch = scratch;
+
+		wavefrontStart = new int[wavefronts+1];
+		for (int i = network.numberOfInputs; i < n; i++)
+			wavefrontStart[wavefront[i]+1]++;
+		int maxWidth = 0;
+		for (int w = 0; w < wavefronts; w++) {
+			maxWidth = Math.max(maxWidth, wavefrontStart[w+1]);
+			wavefrontStart[w+1] += wavefrontStart[w];
+		}
+		this.maxWidth = maxWidth;
+
+		order = new int[n - network.numberOfInputs];
+		int[] next = wavefrontStart.clone();
+		for (int i = network.numberOfInputs; i < n; i++)
+			order[next[wavefront[i]]++] = i;
+	}
+
+    /**
+     * @return The evaluated network.
+     */
+	public CompiledNetwork getNetwork() { return network; }
+
+    /**
+     * @return Number of wavefronts of non-input nodes.
+     */
+	public int getNumberOfWavefronts() { return wavefrontStart.length-1; }
+
+    /**
+     * @return Number of nodes of the widest wavefront.
+     */
+	public int getMaxWidth() { return maxWidth; }
+
+    /**
+     * @return True if at least one wavefront is wide enough to be evaluated in parallel on more than one thread.
+     */
+	public boolean isParallel() { return maxWidth >= threshold && pool.getParallelism() > 1; }
+
+    /**
+     * Creates a zeroed state array, as {@link CompiledNetwork#newState()}.
+     * @return New state array.
+     */
+	public double[] newState() {
+		return network.newState();
+	}
+
+    /**
+     * Feeds input through the network and returns continuous output values.
+     * @param input Array of input values matching number of input nodes.
+     * @param state State array created by {@link #newState()}.
+     * @return Array of continuous output values from output nodes.
+     */
+	public double[] feed(double[] input, double[] state) {
+		double[] output = new double[network.numberOfOutputs];
+		feed(input, state, output);
+		return output;
+	}
+
+    /**
+     * Feeds input through the network and writes the output values into the given array.
+     * @param input Array of input values matching number of input nodes.
+     * @param state State array created by {@link #newState()}.
+     * @param output Array receiving the output values.
+     */
+	public void feed(double[] input, double[] state, double[] output) {
+		if (!isParallel()) {
+			network.feed(input, state, output);
+			return;
+		}
+
+		for (int i = 0; i < network.numberOfInputs; i++)
+			state[i] = CompiledNetwork.activate(network.activation[i], input[i], network.reluLeak);
+
+		for (int w = 0; w < wavefrontStart.length-1; w++) {
+			int from = wavefrontStart[w], to = wavefrontStart[w+1];
+			if (to-from < threshold)
+				evaluate(from, to, state, state, network.numberOfNodes);
+			else {
+				int chunk = Math.max(threshold/2, (to-from + 4*pool.getParallelism()-1)/(4*pool.getParallelism()));
+				pool.invoke(new Wavefront(from, to, chunk, state));
+			}
+		}
+
+		for (int i = 0; i < network.numberOfOutputs; i++)
+			output[i] = state[network.outputIndex[i]];
+	}
+
+    /**
+     * Evaluates the nodes {@code order[from..to)} of one wavefront.
+     */
+	private void evaluate(int from, int to, double[] state, double[] scratch, int scratchStart) {
+		for (int k = from; k < to; k++) {
+			int i = order[k];
+			state[i] = CompiledNetwork.activate(network.activation[i],
+					network.response[i]*network.aggregate(i, state, 1, 0, scratch, scratchStart) + network.bias[i], network.reluLeak);
+		}
+	}
+
+	/**
+	 * Part of a wavefront, split in halves down to the chunk size. Every leaf has its own scratch area.
+	 */
+	private final class Wavefront extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from, to, chunk;
+		private final double[] state;
+
+		private Wavefront(int from, int to, int chunk, double[] state) {
+			this.from = from;
+			this.to = to;
+			this.chunk = chunk;
+			this.state = state;
+		}
+
+		@Override
+		protected void compute() {
+			if (to-from <= chunk) {
+				evaluate(from, to, state, scratch ? new double[network.maxFanIn] : null, 0);
+				return;
+			}
+			int middle = (from+to) >>> 1;
+			invokeAll(new Wavefront(from, middle, chunk, state), new Wavefront(middle, to, chunk, state));
+		}
+
+	}
+
+}
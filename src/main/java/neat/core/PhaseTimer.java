@@ -0,0 +1,65 @@
+package main.java.neat.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import main.java.neat.core.GenerationEvent.PHASE;
+
+/**
+ * Attributes the wall-clock time, CPU time and allocated bytes of the current thread
+ * to the phases of a generation. Each {@link #mark(PHASE)} charges everything since the
+ * previous mark to the given phase.
+ * 
+ * <p>CPU time and allocated bytes are -1 when the JVM does not support measuring them.
+ * 
+ * @author Taher Joudeh
+ */
+final class PhaseTimer {
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	private static final com.sun.management.ThreadMXBean ALLOCATIONS = THREADS instanceof com.sun.management.ThreadMXBean
+			? (com.sun.management.ThreadMXBean) THREADS : null;
+	
+	private final long[] wall = new long[PHASE.values().length];
+	private final long[] cpu = new long[PHASE.values().length];
+	private final long[] allocated = new long[PHASE.values().length];
+	
+	private final boolean cpuSupported, allocationSupported;
+	private final long threadId;
+	private long lastWall, lastCpu, lastAllocated;
+	
+	PhaseTimer() {
+		cpuSupported = THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+		allocationSupported = ALLOCATIONS != null && ALLOCATIONS.isThreadAllocatedMemorySupported()
+				&& ALLOCATIONS.isThreadAllocatedMemoryEnabled();
+		threadId = Thread.currentThread().getId();
+		
+		lastCpu = cpuSupported ? THREADS.getCurrentThreadCpuTime() : 0;
+		lastAllocated = allocationSupported ? ALLOCATIONS.getThreadAllocatedBytes(threadId) : 0;
+		lastWall = System.nanoTime();
+	}
+	
+	void mark(PHASE phase) {
+		long now = System.nanoTime();
+		wall[phase.ordinal()] += now - lastWall;
+		lastWall = now;
+		
+		if (cpuSupported) {
+			long time = THREADS.getCurrentThreadCpuTime();
+			cpu[phase.ordinal()] += time - lastCpu;
+			lastCpu = time;
+		}
+		if (allocationSupported) {
+			long bytes = ALLOCATIONS.getThreadAllocatedBytes(threadId);
+			allocated[phase.ordinal()] += bytes - lastAllocated;
+			lastAllocated = bytes;
+		}
+	}
+	
+	long getWallNanos(PHASE phase) { return wall[phase.ordinal()]; }
+	
+	long getCpuNanos(PHASE phase) { return cpuSupported ? cpu[phase.ordinal()] : -1; }
+	
+	long getAllocatedBytes(PHASE phase) { return allocationSupported ? allocated[phase.ordinal()] : -1; }
+	
+}
@@ -0,0 +1,296 @@
+package main.java.neat.core;
+
+import java.util.Arrays;
+
+/**
+ * Phenotypes of a whole population packed into one immutable structure, evaluated together
+ * against a shared batch of input rows.
+ *
+ * <p>When every agent is fed the same rows, as in supervised and XOR-style tasks, evaluating
+ * the population with {@link Agent#think(double[])} costs one graph walk per agent and row.
+ * A population network concatenates the {@link CompiledNetwork} arrays of all agents and
+ * evaluates the rows in tiles of {@link #TILE_ROWS}: each tile of inputs is activated once and
+ * stays in cache while every network sweeps it node by node, with node values stored
+ * node-major as in {@link CompiledNetwork#feed(double[][], double[][], int, double[])}. The
+ * result is an {@code [agent][row][output]} block.
+ *
+ * <p>Every row starts from zeroed node values, like a single call to
+ * {@link CompiledNetwork#feed(double[], double[])} with a new state, so recurrent connections
+ * read zero. For environments stepped in lockstep, {@link #step(double[], double[], boolean[], double[])}
+ * instead feeds every network its own input row and keeps each network's node values between
+ * calls. A population network holds no mutable state and can be shared between threads;
+ * node values live in a caller-owned state array obtained from {@link #newState()} or
+ * {@link #newStepState()}.
+ *
+ * <p>Example usage:
+ * <pre>
+ * PopulationNetwork networks = PopulationNetwork.compile(neat.getPopulation());
+ * double[][][] outputs = networks.feed(rows, networks.newState());
+ * for (int a = 0; a &lt; outputs.length; a++)
+ *     neat.getPopulation()[a].setFitness(score(outputs[a]));
+ * </pre>
+ *
+ * @author Taher Joudeh
+ */
+public final class PopulationNetwork {
+
+	/**
+	 * Number of rows evaluated by every network before moving to the next tile.
+	 */
+	public static final int TILE_ROWS = 64;
+
+	private final int numberOfNetworks, numberOfInputs, numberOfOutputs, maxNodes, maxFanIn;
+
+	/**
+	 * Node offsets of the networks: network {@code p} owns nodes [nodeStart[p], nodeStart[p+1]).
+	 */
+	private final int[] nodeStart;
+	private final double[] reluLeak;
+
+	/**
+	 * Concatenated per-node arrays of all networks. Connection offsets in {@code inStart} are
+	 * global, connection sources in {@code inSource} and {@code outputIndex} are local to their network.
+	 */
+	private final byte[] activation, aggregation;
+	private final double[] bias, response;
+	private final int[] inStart, inSource;
+	private final double[] inWeight;
+	private final int[] outputIndex;
+
+	private PopulationNetwork(CompiledNetwork[] networks) {
+		numberOfNetworks = networks.length;
+		numberOfInputs = networks.length == 0 ? 0 : networks[0].numberOfInputs;
+		numberOfOutputs = networks.length == 0 ? 0 : networks[0].numberOfOutputs;
+
+		nodeStart = new int[numberOfNetworks+1];
+		reluLeak = new double[numberOfNetworks];
+		int nodes = 0, edges = 0, maxNodes = 0, maxFanIn = 0;
+		for (int p = 0; p < numberOfNetworks; p++) {
+			CompiledNetwork network = networks[p];
+			if (network.numberOfInputs != numberOfInputs || network.numberOfOutputs != numberOfOutputs)
+				throw new IllegalArgumentException("Network " + p + " has " + network.numberOfInputs + " inputs and "
+						+ network.numberOfOutputs + " outputs, expected " + numberOfInputs + " and " + numberOfOutputs);
+			nodeStart[p] = nodes;
+			reluLeak[p] = network.reluLeak;
+			nodes += network.numberOfNodes;
+			edges += network.inSource.length;
+			maxNodes = Math.max(maxNodes, network.numberOfNodes);
+			maxFanIn = Math.max(maxFanIn, network.maxFanIn);
+		}
+		nodeStart[numberOfNetworks] = nodes;
+		this.maxNodes = maxNodes;
+		this.maxFanIn = maxFanIn;
+
+		activation = new byte[nodes];
+		aggregation = new byte[nodes];
+		bias = new double[nodes];
+		response = new double[nodes];
+		inStart = new int[nodes+1];
+		inSource = new int[edges];
+		inWeight = new double[edges];
+		outputIndex = new int[numberOfNetworks*numberOfOutputs];
+
+		int edge = 0;
+		for (int p = 0; p < numberOfNetworks; p++) {
+			CompiledNetwork network = networks[p];
+			int node = nodeStart[p];
+			System.arraycopy(network.activation, 0, activation, node, network.numberOfNodes);
+			System.arraycopy(network.aggregation, 0, aggregation, node, network.numberOfNodes);
+			System.arraycopy(network.bias, 0, bias, node, network.numberOfNodes);
+			System.arraycopy(network.response, 0, response, node, network.numberOfNodes);
+			for (int i = 0; i < network.numberOfNodes; i++)
+				inStart[node + i] = edge + network.inStart[i];
+			System.arraycopy(network.inSource, 0, inSource, edge, network.inSource.length);
+			System.arraycopy(network.inWeight, 0, inWeight, edge, network.inWeight.length);
+			System.arraycopy(network.outputIndex, 0, outputIndex, p*numberOfOutputs, numberOfOutputs);
+			edge += network.inSource.length;
+		}
+		inStart[nodes] = edge;
+	}
+
+    /**
+     * Compiles the genomes of a population into one population network.
+     * @param agents Agents to compile, e.g. {@link Neat#getPopulation()}.
+     * @return Population network whose network {@code a} evaluates the genome of {@code agents[a]}.
+     * @throws IllegalArgumentException If the genomes differ in their number of inputs or outputs.
+     */
+	public static PopulationNetwork compile(Agent[] agents) {
+		CompiledNetwork[] networks = new CompiledNetwork[agents.length];
+		for (int a = 0; a < agents.length; a++)
+			networks[a] = CompiledNetwork.compile(agents[a].getGenome());
+		return new PopulationNetwork(networks);
+	}
+
+    /**
+     * Packs compiled networks into one population network.
+     * @param networks Networks to pack; they are left unchanged.
+     * @return Population network whose network {@code p} evaluates {@code networks[p]}.
+     * @throws IllegalArgumentException If the networks differ in their number of inputs or outputs.
+     */
+	public static PopulationNetwork pack(CompiledNetwork... networks) {
+		return new PopulationNetwork(networks);
+	}
+
+    /**
+     * @return Number of packed networks.
+     */
+	public int getNumberOfNetworks() { return numberOfNetworks; }
+
+    /**
+     * @return Number of input values expected per row.
+     */
+	public int getNumberOfInputs() { return numberOfInputs; }
+
+    /**
+     * @return Number of values produced per network and row.
+     */
+	public int getNumberOfOutputs() { return numberOfOutputs; }
+
+    /**
+     * Creates a state array for this population network. It holds the node values of the
+     * largest network for one tile of rows, followed by scratch space.
+     * @return New state array.
+     */
+	public double[] newState() {
+		return new double[(maxNodes+1)*TILE_ROWS + maxFanIn];
+	}
+
+    /**
+     * Feeds every input row through every network.
+     * @param inputs Input rows, each matching the number of inputs.
+     * @param state State array created by {@link #newState()}.
+     * @return Output values indexed by {@code [network][row][output]}.
+     */
+	public double[][][] feed(double[][] inputs, double[] state) {
+		double[][][] outputs = new double[numberOfNetworks][inputs.length][numberOfOutputs];
+		feed(inputs, inputs.length, outputs, state);
+		return outputs;
+	}
+
+    /**
+     * Feeds the first rows of a batch through every network and writes the output values
+     * into the given block.
+     * @param inputs Input rows, each matching the number of inputs.
+     * @param rows Number of rows to evaluate, starting from the first.
+     * @param outputs Block receiving the output values, indexed by {@code [network][row][output]}.
+     * @param state State array created by {@link #newState()}.
+     */
+	public void feed(double[][] inputs, int rows, double[][][] outputs, double[] state) {
+		int[] inputActivation = new int[numberOfInputs];
+		double[] inputLeak = new double[numberOfInputs];
+
+		for (int first = 0; first < rows; first += TILE_ROWS) {
+			int tile = Math.min(TILE_ROWS, rows-first);
+			Arrays.fill(inputActivation, -1);
+			for (int p = 0; p < numberOfNetworks; p++) {
+				activateInputs(p, inputs, first, tile, state, inputActivation, inputLeak);
+				feedTile(p, tile, state);
+				for (int r = 0; r < tile; r++) {
+					double[] output = outputs[p][first + r];
+					for (int k = 0; k < numberOfOutputs; k++)
+						output[k] = state[outputIndex[p*numberOfOutputs + k]*tile + r];
+				}
+			}
+		}
+	}
+
+    /**
+     * Creates a state array for {@link #step(double[], double[], boolean[], double[])}, holding
+     * the node values of every network followed by scratch space.
+     * @return New zeroed step state array.
+     */
+	public double[] newStepState() {
+		return new double[nodeStart[numberOfNetworks] + maxFanIn];
+	}
+
+    /**
+     * Feeds every network its own input row, e.g. the observations of environments stepped in
+     * lockstep. Each network keeps its node values in its own part of the state array, so
+     * recurrent connections read the previous step's values, exactly like repeatedly calling
+     * {@link CompiledNetwork#feed(double[], double[])} with one state per network.
+     * @param inputs Input rows of all networks, network {@code p} reading
+     * {@code inputs[p*numberOfInputs .. (p+1)*numberOfInputs)}.
+     * @param outputs Array receiving the output values, network {@code p} writing
+     * {@code outputs[p*numberOfOutputs .. (p+1)*numberOfOutputs)}.
+     * @param skip Networks to leave untouched, or null to step all of them.
+     * @param state State array created by {@link #newStepState()}.
+     */
+	public void step(double[] inputs, double[] outputs, boolean[] skip, double[] state) {
+		int scratch = nodeStart[numberOfNetworks];
+		for (int p = 0; p < numberOfNetworks; p++) {
+			if (skip != null && skip[p])
+				continue;
+			int offset = nodeStart[p];
+			int nodes = nodeStart[p+1] - offset;
+			double leak = reluLeak[p];
+			for (int i = 0; i < numberOfInputs; i++)
+				state[offset + i] = CompiledNetwork.activate(activation[offset + i], inputs[p*numberOfInputs + i], leak);
+			for (int i = numberOfInputs; i < nodes; i++) {
+				int g = offset + i;
+				state[g] = CompiledNetwork.activate(activation[g], response[g]*aggregate(g, state, offset, 1, 0, scratch) + bias[g], leak);
+			}
+			for (int k = 0; k < numberOfOutputs; k++)
+				outputs[p*numberOfOutputs + k] = state[offset + outputIndex[p*numberOfOutputs + k]];
+		}
+	}
+
+    /**
+     * Writes the activated inputs of a tile into the input block of the state, unless the
+     * block already holds them activated with the same function by a previous network.
+     */
+	private void activateInputs(int network, double[][] inputs, int first, int tile, double[] state,
+			int[] inputActivation, double[] inputLeak) {
+		int node = nodeStart[network];
+		for (int i = 0; i < numberOfInputs; i++) {
+			byte function = activation[node + i];
+			if (inputActivation[i] == function && (function != CompiledNetwork.ACTIVATION_RELU || inputLeak[i] == reluLeak[network]))
+				continue;
+			for (int r = 0; r < tile; r++)
+				state[i*tile + r] = CompiledNetwork.activate(function, inputs[first + r][i], reluLeak[network]);
+			inputActivation[i] = function;
+			inputLeak[i] = reluLeak[network];
+		}
+	}
+
+    /**
+     * Evaluates the hidden and output nodes of one network over a tile whose activated
+     * inputs are in place.
+     */
+	private void feedTile(int network, int tile, double[] state) {
+		int offset = nodeStart[network];
+		int nodes = nodeStart[network+1] - offset;
+		int accumulator = maxNodes*tile;
+		int scratch = accumulator + tile;
+		double leak = reluLeak[network];
+		Arrays.fill(state, numberOfInputs*tile, nodes*tile, 0);
+
+		for (int i = numberOfInputs; i < nodes; i++) {
+			int g = offset + i;
+			if (aggregation[g] == CompiledNetwork.AGGREGATION_SUM) {
+				Arrays.fill(state, accumulator, scratch, 0);
+				for (int e = inStart[g]; e < inStart[g+1]; e++) {
+					int source = inSource[e]*tile;
+					double weight = inWeight[e];
+					for (int r = 0; r < tile; r++)
+						state[accumulator + r] += state[source + r]*weight;
+				}
+			}else
+				for (int r = 0; r < tile; r++)
+					state[accumulator + r] = aggregate(g, state, 0, tile, r, scratch);
+
+			int node = i*tile;
+			for (int r = 0; r < tile; r++)
+				state[node + r] = CompiledNetwork.activate(activation[g], response[g]*state[accumulator + r] + bias[g], leak);
+		}
+	}
+
+    /**
+     * Aggregates the incoming values of node {@code g} for one row, reading node values at
+     * {@code base + source*stride + row}; MEDIAN and plug-in functions gather their values in the scratch area.
+     */
+	private double aggregate(int g, double[] state, int base, int stride, int row, int scratch) {
+		return CompiledNetwork.aggregate(aggregation[g], inSource, inWeight, inStart[g], inStart[g+1],
+				state, base, stride, row, state, scratch);
+	}
+
+}
@@ -0,0 +1,73 @@
+package main.java.neat.core;
+
+/**
+ * Output error and size of a {@link QuantizedNetwork} compared with the double-precision
+ * network it was quantized from, as measured by {@link QuantizedNetwork#compare(CompiledNetwork, double[][])}.
+ *
+ * @author Taher Joudeh
+ */
+public final class QuantizationReport {
+
+	private final int samples;
+	private final double[] maxErrors;
+	private final double meanAbsoluteError, rootMeanSquaredError;
+	private final int referenceBytes, quantizedBytes;
+
+	QuantizationReport(int samples, double[] maxErrors, double meanAbsoluteError, double rootMeanSquaredError,
+			int referenceBytes, int quantizedBytes) {
+		this.samples = samples;
+		this.maxErrors = maxErrors;
+		this.meanAbsoluteError = meanAbsoluteError;
+		this.rootMeanSquaredError = rootMeanSquaredError;
+		this.referenceBytes = referenceBytes;
+		this.quantizedBytes = quantizedBytes;
+	}
+
+    /**
+     * @return Number of validation inputs.
+     */
+	public int getSamples() { return samples; }
+
+    /**
+     * @return Largest absolute error over all outputs.
+     */
+	public double getMaxAbsoluteError() {
+		double max = 0;
+		for (double error: maxErrors)
+			max = Math.max(max, error);
+		return max;
+	}
+
+    /**
+     * @return Largest absolute error of each output.
+     */
+	public double[] getMaxAbsoluteErrors() { return maxErrors.clone(); }
+
+    /**
+     * @return Mean absolute error over all outputs.
+     */
+	public double getMeanAbsoluteError() { return meanAbsoluteError; }
+
+    /**
+     * @return Root mean squared error over all outputs.
+     */
+	public double getRootMeanSquaredError() { return rootMeanSquaredError; }
+
+    /**
+     * @return Bytes of the double-precision weights, biases and responses.
+     */
+	public int getReferenceBytes() { return referenceBytes; }
+
+    /**
+     * @return Bytes of the quantized weights, biases, responses and scales.
+     */
+	public int getQuantizedBytes() { return quantizedBytes; }
+
+	@Override
+	public String toString() {
+		return String.format("samples: %d, max error: %.6g, mean error: %.6g, rms error: %.6g, parameters: %d -> %d bytes (%.1fx)",
+				samples, getMaxAbsoluteError(), meanAbsoluteError, rootMeanSquaredError,
+				referenceBytes, quantizedBytes, referenceBytes/(double)quantizedBytes);
+	}
+
+}
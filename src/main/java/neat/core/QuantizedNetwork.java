@@ -0,0 +1,340 @@
+package main.java.neat.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link CompiledNetwork} with int8 connection weights and biases, for deployment.
+ *
+ * <p>Weights are quantized symmetrically, {@code q = round(w/scale)} in [-127, 127], with
+ * either one scale for the whole network or one per node (over the node's incoming
+ * connections); biases share one network-wide scale. Responses, scales and output thresholds
+ * stay in floating point. The inference kernel accumulates {@code value*q} in double precision
+ * and multiplies by the scale once per node, so sum and mean aggregation need a single
+ * floating-point multiplication per node beyond the integer weights.
+ *
+ * <p>Use {@link #compare(CompiledNetwork, double[][])} to measure the output error against the
+ * double-precision network on validation inputs before deploying.
+ *
+ * @author Taher Joudeh
+ */
+public final class QuantizedNetwork {
+
+	/**
+	 * Granularity of the weight scales.
+	 * <ul>
+	 * <li><b>PER_NETWORK</b>: One scale for all weights; smallest, least accurate when weight magnitudes vary between nodes.</li>
+	 * <li><b>PER_NODE</b>: One scale per node over its incoming weights.</li>
+	 * </ul>
+	 */
+	public static enum SCALING {
+		PER_NETWORK,
+		PER_NODE
+	}
+
+	private final int numberOfInputs, numberOfOutputs, numberOfNodes, maxFanIn;
+	private final double reluLeak;
+	private final byte[] activation, aggregation;
+	private final byte[] bias;
+	private final float biasScale;
+	private final float[] response;
+	private final float[] weightScale;
+	private final int[] inStart, inSource;
+	private final byte[] weight;
+	private final int[] outputIndex;
+	private final double[] outputThreshold;
+
+	private QuantizedNetwork(int numberOfInputs, int numberOfOutputs, int numberOfNodes, int maxFanIn, double reluLeak,
+			byte[] activation, byte[] aggregation, byte[] bias, float biasScale, float[] response, float[] weightScale,
+			int[] inStart, int[] inSource, byte[] weight, int[] outputIndex, double[] outputThreshold) {
+		this.numberOfInputs = numberOfInputs;
+		this.numberOfOutputs = numberOfOutputs;
+		this.numberOfNodes = numberOfNodes;
+		this.maxFanIn = maxFanIn;
+		this.reluLeak = reluLeak;
+		this.activation = activation;
+		this.aggregation = aggregation;
+		this.bias = bias;
+		this.biasScale = biasScale;
+		this.response = response;
+		this.weightScale = weightScale;
+		this.inStart = inStart;
+		this.inSource = inSource;
+		this.weight = weight;
+		this.outputIndex = outputIndex;
+		this.outputThreshold = outputThreshold;
+	}
+
+    /**
+     * Quantizes a compiled network.
+     * @param network Network to quantize.
+     * @param scaling Granularity of the weight scales.
+     * @return The quantized network.
+     */
+	public static QuantizedNetwork quantize(CompiledNetwork network, SCALING scaling) {
+		int n = network.numberOfNodes;
+
+		float[] weightScale = new float[scaling == SCALING.PER_NODE ? n : 1];
+		if (scaling == SCALING.PER_NODE)
+			for (int i = 0; i < n; i++)
+				weightScale[i] = scale(network.inWeight, network.inStart[i], network.inStart[i+1]);
+		else weightScale[0] = scale(network.inWeight, 0, network.inWeight.length);
+
+		byte[] weight = new byte[network.inWeight.length];
+		for (int i = 0; i < n; i++)
+			for (int e = network.inStart[i]; e < network.inStart[i+1]; e++)
+				weight[e] = quantize(network.inWeight[e], weightScale[weightScale.length == 1 ? 0 : i]);
+
+		float biasScale = scale(network.bias, 0, n);
+		byte[] bias = new byte[n];
+		float[] response = new float[n];
+		for (int i = 0; i < n; i++) {
+			bias[i] = quantize(network.bias[i], biasScale);
+			response[i] = (float) network.response[i];
+		}
+
+		return new QuantizedNetwork(network.numberOfInputs, network.numberOfOutputs, n, network.maxFanIn, network.reluLeak,
+				network.activation, network.aggregation, bias, biasScale, response, weightScale,
+				network.inStart, network.inSource, weight, network.outputIndex, network.outputThreshold);
+	}
+
+	private static float scale(double[] values, int from, int to) {
+		double max = 0;
+		for (int i = from; i < to; i++)
+			max = Math.max(max, Math.abs(values[i]));
+		return max == 0 ? 1 : (float)(max/127);
+	}
+
+	private static byte quantize(double value, float scale) {
+		return (byte) Math.max(-127, Math.min(127, Math.round(value/scale)));
+	}
+
+    /**
+     * @return Number of input values expected by {@link #feed(double[], double[])}.
+     */
+	public int getNumberOfInputs() { return numberOfInputs; }
+
+    /**
+     * @return Number of values produced per evaluation.
+     */
+	public int getNumberOfOutputs() { return numberOfOutputs; }
+
+    /**
+     * @return Number of nodes (inputs included).
+     */
+	public int getNumberOfNodes() { return numberOfNodes; }
+
+    /**
+     * @return Number of enabled connections.
+     */
+	public int getNumberOfConnections() { return weight.length; }
+
+    /**
+     * @return Granularity of the weight scales.
+     */
+	public SCALING getScaling() { return weightScale.length == 1 ? SCALING.PER_NETWORK : SCALING.PER_NODE; }
+
+    /**
+     * @return Bytes taken by weights, biases, responses and scales.
+     */
+	public int getParameterBytes() {
+		return weight.length + bias.length + (response.length + weightScale.length + 1)*Float.BYTES;
+	}
+
+    /**
+     * Creates a zeroed state array for this network.
+     * @return New state array.
+     */
+	public double[] newState() {
+		return new double[numberOfNodes + maxFanIn];
+	}
+
+    /**
+     * Feeds input through the network and returns continuous output values.
+     * @param input Array of input values matching number of input nodes.
+     * @param state State array created by {@link #newState()}.
+     * @return Array of continuous output values from output nodes.
+     */
+	public double[] feed(double[] input, double[] state) {
+		double[] output = new double[numberOfOutputs];
+		feed(input, state, output);
+		return output;
+	}
+
+    /**
+     * Feeds input through the network and writes the output values into the given array.
+     * @param input Array of input values matching number of input nodes.
+     * @param state State array created by {@link #newState()}.
+     * @param output Array receiving the output values.
+     */
+	public void feed(double[] input, double[] state, double[] output) {
+		for (int i = 0; i < numberOfInputs; i++)
+			state[i] = CompiledNetwork.activate(activation[i], input[i], reluLeak);
+
+		for (int i = numberOfInputs; i < numberOfNodes; i++)
+			state[i] = CompiledNetwork.activate(activation[i], response[i]*aggregate(i, state) + bias[i]*biasScale, reluLeak);
+
+		for (int i = 0; i < numberOfOutputs; i++)
+			output[i] = state[outputIndex[i]];
+	}
+
+    /**
+     * Feeds input through the network and returns binary-activated outputs.
+     * @param input Array of input values matching number of input nodes.
+     * @param state State array created by {@link #newState()}.
+     * @return Array of boolean activation states from output nodes.
+     */
+	public boolean[] feed2(double[] input, double[] state) {
+		double[] values = feed(input, state);
+		boolean[] output = new boolean[numberOfOutputs];
+		for (int i = 0; i < numberOfOutputs; i++)
+			output[i] = values[i] > outputThreshold[i];
+		return output;
+	}
+
+	private double aggregate(int node, double[] state) {
+		int start = inStart[node], end = inStart[node+1];
+		if (start == end)
+			return CompiledNetwork.aggregateNothing(aggregation[node]);
+		byte function = aggregation[node];
+		double scale = weightScale[weightScale.length == 1 ? 0 : node];
+
+		if (function == CompiledNetwork.AGGREGATION_SUM || function == CompiledNetwork.AGGREGATION_MEAN) {
+			double result = 0;
+			for (int e = start; e < end; e++)
+				result += state[inSource[e]]*weight[e];
+			return function == CompiledNetwork.AGGREGATION_MEAN ? result*scale/(end-start) : result*scale;
+		}
+		for (int e = start; e < end; e++)
+			state[numberOfNodes + e-start] = state[inSource[e]]*weight[e]*scale;
+		return CompiledNetwork.reduce(function, state, numberOfNodes, numberOfNodes+end-start);
+	}
+
+    /**
+     * Measures the output error of this network against the network it was quantized from.
+     * The inputs are fed in order through both networks, each keeping its own state, so for
+     * recurrent networks they are treated as one sequence.
+     * @param reference The double-precision network.
+     * @param inputs Validation inputs.
+     * @return Error and size report.
+     */
+	public QuantizationReport compare(CompiledNetwork reference, double[][] inputs) {
+		double[] referenceState = reference.newState(), state = newState();
+		double[] expected = new double[numberOfOutputs], actual = new double[numberOfOutputs];
+		double[] maxErrors = new double[numberOfOutputs];
+		double sum = 0, squares = 0;
+
+		for (double[] input: inputs) {
+			reference.feed(input, referenceState, expected);
+			feed(input, state, actual);
+			for (int i = 0; i < numberOfOutputs; i++) {
+				double error = Math.abs(actual[i] - expected[i]);
+				maxErrors[i] = Math.max(maxErrors[i], error);
+				sum += error;
+				squares += error*error;
+			}
+		}
+
+		int values = Math.max(1, inputs.length*numberOfOutputs);
+		int referenceBytes = (reference.inWeight.length + reference.bias.length + reference.response.length)*Double.BYTES;
+		return new QuantizationReport(inputs.length, maxErrors, sum/values, Math.sqrt(squares/values), referenceBytes, getParameterBytes());
+	}
+
+    /**
+     * @return Number of bytes written by {@link #writeTo(ByteBuffer)}.
+     */
+	public int getEncodedSize() {
+		return 6*Integer.BYTES + Double.BYTES + Float.BYTES
+				+ 3*numberOfNodes + (numberOfNodes + weightScale.length)*Float.BYTES
+				+ (numberOfNodes+1)*Integer.BYTES
+				+ weight.length*(Integer.BYTES + 1)
+				+ numberOfOutputs*(Integer.BYTES + Double.BYTES);
+	}
+
+    /**
+     * Writes the network at the buffer's current position using the buffer's byte order:
+     * <pre>
+     * int inputs, int outputs, int nodes, int connections, int maxFanIn, int scales
+     * double reluLeak, float biasScale
+     * byte[nodes] activation, byte[nodes] aggregation, byte[nodes] bias, float[nodes] response
+     * float[scales] weightScale, int[nodes+1] inStart, int[connections] inSource, byte[connections] weight
+     * int[outputs] outputIndex, double[outputs] outputThreshold
+     * </pre>
+     * @param buffer Destination buffer with at least {@link #getEncodedSize()} bytes remaining.
+     */
+	public void writeTo(ByteBuffer buffer) {
+		buffer.putInt(numberOfInputs);
+		buffer.putInt(numberOfOutputs);
+		buffer.putInt(numberOfNodes);
+		buffer.putInt(weight.length);
+		buffer.putInt(maxFanIn);
+		buffer.putInt(weightScale.length);
+		buffer.putDouble(reluLeak);
+		buffer.putFloat(biasScale);
+		buffer.put(activation);
+		buffer.put(aggregation);
+		buffer.put(bias);
+		for (float value: response)
+			buffer.putFloat(value);
+		for (float value: weightScale)
+			buffer.putFloat(value);
+		for (int value: inStart)
+			buffer.putInt(value);
+		for (int value: inSource)
+			buffer.putInt(value);
+		buffer.put(weight);
+		for (int value: outputIndex)
+			buffer.putInt(value);
+		for (double value: outputThreshold)
+			buffer.putDouble(value);
+	}
+
+    /**
+     * Reads a network written by {@link #writeTo(ByteBuffer)} from the buffer's current position.
+     * @param buffer Source buffer, using the same byte order it was written with.
+     * @return The decoded network.
+     */
+	public static QuantizedNetwork readFrom(ByteBuffer buffer) {
+		int numberOfInputs = buffer.getInt();
+		int numberOfOutputs = buffer.getInt();
+		int numberOfNodes = buffer.getInt();
+		int edges = buffer.getInt();
+		int maxFanIn = buffer.getInt();
+		int scales = buffer.getInt();
+		double reluLeak = buffer.getDouble();
+		float biasScale = buffer.getFloat();
+
+		byte[] activation = new byte[numberOfNodes];
+		byte[] aggregation = new byte[numberOfNodes];
+		byte[] bias = new byte[numberOfNodes];
+		buffer.get(activation);
+		buffer.get(aggregation);
+		buffer.get(bias);
+		float[] response = new float[numberOfNodes];
+		for (int i = 0; i < numberOfNodes; i++)
+			response[i] = buffer.getFloat();
+		float[] weightScale = new float[scales];
+		for (int i = 0; i < scales; i++)
+			weightScale[i] = buffer.getFloat();
+
+		int[] inStart = new int[numberOfNodes+1];
+		for (int i = 0; i <= numberOfNodes; i++)
+			inStart[i] = buffer.getInt();
+		int[] inSource = new int[edges];
+		for (int i = 0; i < edges; i++)
+			inSource[i] = buffer.getInt();
+		byte[] weight = new byte[edges];
+		buffer.get(weight);
+
+		int[] outputIndex = new int[numberOfOutputs];
+		for (int i = 0; i < numberOfOutputs; i++)
+			outputIndex[i] = buffer.getInt();
+		double[] outputThreshold = new double[numberOfOutputs];
+		for (int i = 0; i < numberOfOutputs; i++)
+			outputThreshold[i] = buffer.getDouble();
+
+		return new QuantizedNetwork(numberOfInputs, numberOfOutputs, numberOfNodes, maxFanIn, reluLeak,
+				activation, aggregation, bias, biasScale, response, weightScale,
+				inStart, inSource, weight, outputIndex, outputThreshold);
+	}
+
+}
@@ -0,0 +1,39 @@
+package main.java.neat.core;
+
+import java.util.Random;
+
+/**
+ * Creates the random number generators of genomes, nodes, connections and species.
+ *
+ * <p>Generators are seeded by the platform, unless a seeded {@link Neat} is building or evolving
+ * its population on the calling thread: every generator created meanwhile is then seeded from
+ * the run's seed sequence, so that the same seed and the same fitness values repeat a run.
+ *
+ * @author Taher Joudeh
+ */
+final class RandomSource {
+
+	private static final ThreadLocal<Random> SEEDER = new ThreadLocal<> ();
+
+	private RandomSource() {}
+
+    /**
+     * @return A new generator, seeded from the seed sequence installed on the calling thread if any.
+     */
+	static Random newRandom() {
+		Random seeder = SEEDER.get();
+		return seeder == null ? new Random() : new Random(seeder.nextLong());
+	}
+
+    /**
+     * Installs a seed sequence on the calling thread.
+     * @param seeder Seed sequence, or null to let the platform seed new generators.
+     * @return The previously installed sequence, to be installed again when done.
+     */
+	static Random install(Random seeder) {
+		Random previous = SEEDER.get();
+		SEEDER.set(seeder);
+		return previous;
+	}
+
+}
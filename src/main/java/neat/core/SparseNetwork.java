@@ -0,0 +1,201 @@
+package main.java.neat.core;
+
+/**
+ * Evaluates a {@link CompiledNetwork} on sparse input given as index/value pairs, every input not
+ * listed being 0.
+ *
+ * <p>One-hot and mostly-zero feature vectors leave most input connections carrying the same value
+ * on every call. A sparse network therefore sorts the input connections of SUM and MEAN nodes by
+ * input, and folds the contribution of every input at 0 into a constant per node. A call only
+ * walks the connections of the listed inputs, adding the difference between their value and the
+ * value at 0; the cost of the input layer is proportional to the number of active inputs instead
+ * of the number of inputs. Other aggregations read every input, so nodes using them are evaluated
+ * as in {@link CompiledNetwork#feed(double[], double[])}. Outputs are those of the compiled
+ * network fed the dense input, up to floating-point rounding.
+ *
+ * <p>Like a compiled network, a sparse network holds no mutable state and can be shared between
+ * threads. Node values live in a caller-owned state array, which must be obtained from
+ * {@link #newState()}: between calls it holds the inputs at 0 and the constant sums.
+ *
+ * <p>Example usage:
+ * <pre>
+ * SparseNetwork network = new SparseNetwork(CompiledNetwork.compile(genome));
+ * double[] state = network.newState();
+ * double[] output = network.feed(new int[] {3, 1041}, new double[] {1, 0.5}, state);
+ * </pre>
+ *
+ * @author Taher Joudeh
+ */
+public final class SparseNetwork {
+
+	private final CompiledNetwork network;
+
+	/**
+	 * Connections from inputs to SUM and MEAN nodes by input: input {@code i} feeds
+	 * {@code inputTarget[inputStart[i] .. inputStart[i+1])} with the weights in {@code inputWeight}.
+	 */
+	private final int[] inputStart, inputTarget;
+	private final double[] inputWeight;
+
+	/**
+	 * Other connections of SUM and MEAN nodes: node {@code i} reads
+	 * {@code hiddenSource[hiddenStart[i] .. hiddenStart[i+1])} with the weights in {@code hiddenWeight}.
+	 */
+	private final int[] hiddenStart, hiddenSource;
+	private final double[] hiddenWeight;
+
+	/**
+	 * Value of every input at 0, and input sum of every SUM and MEAN node with all inputs at 0.
+	 */
+	private final double[] zero, constant;
+
+	/**
+	 * Offset of the input sums in the state array, after the node values and the scratch space.
+	 */
+	private final int sumStart;
+
+    /**
+     * Constructs a sparse network.
+     * @param network Network to evaluate.
+     */
+	public SparseNetwork(CompiledNetwork network) {
+		this.network = network;
+
+		int n = network.numberOfNodes, inputs = network.numberOfInputs;
+		zero = new double[inputs];
+		for (int i = 0; i < inputs; i++)
+			zero[i] = CompiledNetwork.activate(network.activation[i], 0, network.reluLeak);
+
+		constant = new double[n];
+		inputStart = new int[inputs+1];
+		hiddenStart = new int[n+1];
+		for (int i = inputs; i < n; i++) {
+			boolean sum = isSum(i);
+			for (int e = network.inStart[i]; e < network.inStart[i+1]; e++)
+				if (sum && network.inSource[e] < inputs) {
+					inputStart[network.inSource[e]+1]++;
+					constant[i] += zero[network.inSource[e]]*network.inWeight[e];
+				}else if (sum)
+					hiddenStart[i+1]++;
+		}
+		for (int i = 0; i < inputs; i++)
+			inputStart[i+1] += inputStart[i];
+		for (int i = 0; i < n; i++)
+			hiddenStart[i+1] += hiddenStart[i];
+
+		inputTarget = new int[inputStart[inputs]];
+		inputWeight = new double[inputStart[inputs]];
+		hiddenSource = new int[hiddenStart[n]];
+		hiddenWeight = new double[hiddenStart[n]];
+		int[] next = inputStart.clone();
+		for (int i = inputs; i < n; i++) {
+			if (!isSum(i))
+				continue;
+			int hidden = hiddenStart[i];
+			for (int e = network.inStart[i]; e < network.inStart[i+1]; e++)
+				if (network.inSource[e] < inputs) {
+					int edge = next[network.inSource[e]]++;
+					inputTarget[edge] = i;
+					inputWeight[edge] = network.inWeight[e];
+				}else {
+					hiddenSource[hidden] = network.inSource[e];
+					hiddenWeight[hidden++] = network.inWeight[e];
+				}
+		}
+
+		sumStart = n + network.maxFanIn;
+	}
+
+	private boolean isSum(int node) {
+		return network.aggregation[node] == CompiledNetwork.AGGREGATION_SUM
+				|| network.aggregation[node] == CompiledNetwork.AGGREGATION_MEAN;
+	}
+
+    /**
+     * @return The evaluated network.
+     */
+	public CompiledNetwork getNetwork() { return network; }
+
+    /**
+     * @return Number of connections from inputs to SUM and MEAN nodes, which are only walked for active inputs.
+     */
+	public int getNumberOfSparseConnections() { return inputTarget.length; }
+
+    /**
+     * Creates a state array for this network: zeroed node values, except the inputs which hold
+     * their value at 0, followed by the scratch space and the constant input sums.
+     * @return New state array.
+     */
+	public double[] newState() {
+		double[] state = new double[sumStart + network.numberOfNodes];
+		System.arraycopy(zero, 0, state, 0, zero.length);
+		System.arraycopy(constant, 0, state, sumStart, constant.length);
+		return state;
+	}
+
+    /**
+     * Feeds sparse input through the network and returns continuous output values.
+     * @param indices Indices of the active inputs.
+     * @param values Values of the active inputs, in the order of indices.
+     * @param state State array created by {@link #newState()}.
+     * @return Array of continuous output values from output nodes.
+     * @throws IllegalArgumentException If there are more indices than values, or an index is not that of an input.
+     */
+	public double[] feed(int[] indices, double[] values, double[] state) {
+		double[] output = new double[network.numberOfOutputs];
+		feed(indices, values, indices.length, state, output);
+		return output;
+	}
+
+    /**
+     * Feeds sparse input through the network and writes the output values into the given array.
+     * An index listed more than once takes its last value.
+     * @param indices Indices of the active inputs.
+     * @param values Values of the active inputs, in the order of indices.
+     * @param count Number of active inputs, read from the start of indices and values.
+     * @param state State array created by {@link #newState()}.
+     * @param output Array receiving the output values.
+     * @throws IllegalArgumentException If count exceeds the length of indices or values, or an index is not
+     * that of an input; the state is then left unchanged.
+     */
+	public void feed(int[] indices, double[] values, int count, double[] state, double[] output) {
+		CompiledNetwork network = this.network;
+		int sumStart = this.sumStart;
+
+		if (count < 0 || count > indices.length || count > values.length)
+			throw new IllegalArgumentException("Invalid count " + count + " for " + indices.length + " indices and " + values.length + " values");
+		for (int k = 0; k < count; k++)
+			if (indices[k] < 0 || indices[k] >= network.numberOfInputs)
+				throw new IllegalArgumentException("Input index out of range [0, " + network.numberOfInputs + "): " + indices[k]);
+
+		for (int k = 0; k < count; k++) {
+			int i = indices[k];
+			double value = CompiledNetwork.activate(network.activation[i], values[k], network.reluLeak);
+			double delta = value - state[i];
+			state[i] = value;
+			for (int e = inputStart[i]; e < inputStart[i+1]; e++)
+				state[sumStart + inputTarget[e]] += delta*inputWeight[e];
+		}
+
+		for (int i = network.numberOfInputs; i < network.numberOfNodes; i++) {
+			double aggregation;
+			if (isSum(i)) {
+				aggregation = state[sumStart + i];
+				state[sumStart + i] = constant[i];
+				for (int e = hiddenStart[i]; e < hiddenStart[i+1]; e++)
+					aggregation += state[hiddenSource[e]]*hiddenWeight[e];
+				int fanIn = network.inStart[i+1] - network.inStart[i];
+				if (network.aggregation[i] == CompiledNetwork.AGGREGATION_MEAN && fanIn > 0)
+					aggregation /= fanIn;
+			}else aggregation = network.aggregate(i, state, 1, 0, state, network.numberOfNodes);
+			state[i] = CompiledNetwork.activate(network.activation[i], network.response[i]*aggregation + network.bias[i], network.reluLeak);
+		}
+
+		for (int k = 0; k < count; k++)
+			state[indices[k]] = zero[indices[k]];
+
+		for (int i = 0; i < network.numberOfOutputs; i++)
+			output[i] = state[network.outputIndex[i]];
+	}
+
+}
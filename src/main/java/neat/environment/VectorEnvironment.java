@@ -0,0 +1,49 @@
+package main.java.neat.environment;
+
+/**
+ * A fixed number of environment instances stepped in lockstep, for reinforcement-learning
+ * style fitness evaluation with a {@link VectorEvaluator}.
+ *
+ * <p>Observations, actions, rewards and termination flags of all instances are exchanged
+ * in contiguous arrays: instance {@code i} owns
+ * {@code observations[i*getObservationSize() .. (i+1)*getObservationSize())} and
+ * {@code actions[i*getActionSize() .. (i+1)*getActionSize())}, and entry {@code i} of the
+ * per-instance arrays. An implementation can therefore update all instances in one loop
+ * over primitive arrays instead of one object per episode.
+ *
+ * @author Taher Joudeh
+ */
+public interface VectorEnvironment {
+
+    /**
+     * @return Number of environment instances stepped together.
+     */
+	int getNumberOfEnvironments();
+
+    /**
+     * @return Number of observation values per instance, matching the number of network inputs.
+     */
+	int getObservationSize();
+
+    /**
+     * @return Number of action values per instance, matching the number of network outputs.
+     */
+	int getActionSize();
+
+    /**
+     * Starts a new episode in every instance.
+     * @param observations Array receiving the initial observations of all instances.
+     */
+	void reset(double[] observations);
+
+    /**
+     * Advances every running instance by one step. Instances whose done flag is already set
+     * have ended their episode and must be left unchanged.
+     * @param actions Actions of all instances, as produced by their agents' networks.
+     * @param observations Array receiving the next observations of the running instances.
+     * @param rewards Array receiving the reward of this step for the running instances.
+     * @param done Termination flags; set the flag of every instance whose episode ends with this step.
+     */
+	void step(double[] actions, double[] observations, double[] rewards, boolean[] done);
+
+}
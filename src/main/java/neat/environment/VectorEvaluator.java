@@ -0,0 +1,128 @@
+package main.java.neat.environment;
+
+import java.util.Arrays;
+
+import main.java.neat.core.Agent;
+import main.java.neat.core.PopulationNetwork;
+
+/**
+ * Evaluates agents on a {@link VectorEnvironment}, one agent per environment instance.
+ *
+ * <p>Every step gathers the observations of all running instances in one contiguous array,
+ * evaluates all agents' networks on it with a single
+ * {@link PopulationNetwork#step(double[], double[], boolean[], double[])} call, and scatters
+ * the actions back to the environment. Each agent's network keeps its node values across
+ * the steps of its episode, like feeding its genome through {@link Agent#think(double[])}.
+ * The evaluator tracks which episodes have ended and sums the rewards of every agent until its
+ * episode ends or the step limit is reached; the sum becomes the agent's fitness.
+ * Populations larger than the environment are evaluated in consecutive groups, and the
+ * instances left over in the last group are marked done from the start.
+ *
+ * <p>Example usage:
+ * <pre>
+ * VectorEvaluator evaluator = new VectorEvaluator(new CartPoles(150), 1000);
+ * while (!neat.isTerminated()) {
+ *     evaluator.evaluate(neat.getPopulation());
+ *     neat.evolve(true);
+ * }
+ * </pre>
+ *
+ * <p>Instances are not thread-safe; the buffers exchanged with the environment are reused
+ * between evaluations.
+ *
+ * @author Taher Joudeh
+ */
+public class VectorEvaluator {
+
+	private final VectorEnvironment environment;
+	private final int maxSteps;
+	private final int size, observationSize, actionSize;
+
+	private final double[] observations, actions, rewards, fitness;
+	private final boolean[] done, ended;
+
+    /**
+     * Constructs an evaluator.
+     * @param environment Environment whose instances the agents control.
+     * @param maxSteps Maximum number of steps of an episode.
+     * @throws IllegalArgumentException If the environment has no instances or maxSteps is not positive.
+     */
+	public VectorEvaluator(VectorEnvironment environment, int maxSteps) {
+		if (environment.getNumberOfEnvironments() < 1)
+			throw new IllegalArgumentException("environment has no instances");
+		if (maxSteps < 1)
+			throw new IllegalArgumentException("maxSteps must be positive: " + maxSteps);
+
+		this.environment = environment;
+		this.maxSteps = maxSteps;
+		size = environment.getNumberOfEnvironments();
+		observationSize = environment.getObservationSize();
+		actionSize = environment.getActionSize();
+
+		observations = new double[size*observationSize];
+		actions = new double[size*actionSize];
+		rewards = new double[size];
+		fitness = new double[size];
+		done = new boolean[size];
+		ended = new boolean[size];
+	}
+
+    /**
+     * Runs one episode per agent and assigns the cumulative rewards as fitness values.
+     * @param agents Agents to evaluate.
+     * @throws IllegalArgumentException If the agents' numbers of inputs or outputs do not match
+     * the observation and action sizes.
+     */
+	public void evaluate(Agent[] agents) {
+		for (int first = 0; first < agents.length; first += size) {
+			Agent[] group = Arrays.copyOfRange(agents, first, Math.min(first+size, agents.length));
+			runEpisodes(group);
+			for (int i = 0; i < group.length; i++)
+				group[i].setFitness(fitness[i]);
+		}
+	}
+
+    /**
+     * Runs one episode per agent of a group no larger than the environment.
+     */
+	private void runEpisodes(Agent[] group) {
+		PopulationNetwork networks = PopulationNetwork.compile(group);
+		if (group.length > 0 && (networks.getNumberOfInputs() != observationSize || networks.getNumberOfOutputs() != actionSize))
+			throw new IllegalArgumentException("Networks have " + networks.getNumberOfInputs() + " inputs and "
+					+ networks.getNumberOfOutputs() + " outputs, the environment " + observationSize
+					+ " observations and " + actionSize + " actions");
+		double[] state = networks.newStepState();
+
+		Arrays.fill(fitness, 0);
+		Arrays.fill(done, 0, group.length, false);
+		Arrays.fill(done, group.length, size, true);
+		System.arraycopy(done, 0, ended, 0, size);
+		environment.reset(observations);
+
+		int running = group.length;
+		for (int step = 0; step < maxSteps && running > 0; step++) {
+			networks.step(observations, actions, done, state);
+			environment.step(actions, observations, rewards, done);
+			running = 0;
+			for (int i = 0; i < group.length; i++) {
+				if (ended[i])
+					continue;
+				fitness[i] += rewards[i];
+				ended[i] = done[i];
+				if (!done[i])
+					running++;
+			}
+		}
+	}
+
+    /**
+     * @return Number of environment instances, the largest group of agents evaluated together.
+     */
+	public int getNumberOfEnvironments() { return size; }
+
+    /**
+     * @return Maximum number of steps of an episode.
+     */
+	public int getMaxSteps() { return maxSteps; }
+
+}
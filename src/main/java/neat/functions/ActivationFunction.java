@@ -1,6 +1,8 @@
 package main.java.neat.functions;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
 
 import main.java.neat.config.ActivationConfig;
 
@@ -15,6 +17,12 @@ import main.java.neat.config.ActivationConfig;
  * The class also provides factory methods for creating specific activation function
  * instances based on type or at random.
  * 
+ * Activation functions are immutable flyweights: the factory methods return one shared instance
+ * per function and configuration, and nodes refer to it rather than owning a copy. Each function
+ * is identified by an opcode (see {@link FunctionRegistry}), on which compiled inference kernels
+ * dispatch. Plug-in functions extend this class, return an opcode from the plug-in range and are
+ * registered with {@link FunctionRegistry}.
+ * 
  * @author Taher Joudeh
  */
 public abstract class ActivationFunction implements Serializable {
@@ -74,13 +82,33 @@ public abstract class ActivationFunction implements Serializable {
      * When the output of the activation function exceeds this threshold,
      * isActivated() will return true.
      */
-	private double threshold;
+	private final double threshold;
+	
+    /**
+     * Shared instances of the built-in functions by opcode and parameters.
+     */
+	private static final ConcurrentHashMap<String, ActivationFunction> INTERNED = new ConcurrentHashMap<> ();
 	
     /**
-     * The last value computed by the activate() method.
-     * This allows checking activation status without recomputation.
+     * Number of opcodes reserved for the ordinals of the ACTIVATION_FUNCTION constants, which
+     * leaves room for new constants without moving the opcodes of the other built-in functions.
      */
-	private double activatedValue;
+	public static final int BUILT_IN_OPCODES = 8;
+	
+    /**
+     * Opcode of the fast-math sigmoid (see {@link FastActivation}).
+     */
+	public static final int FAST_SIGMOID_OPCODE = BUILT_IN_OPCODES;
+	
+    /**
+     * Opcode of the fast-math tanh (see {@link FastActivation}).
+     */
+	public static final int FAST_TANH_OPCODE = BUILT_IN_OPCODES+1;
+	
+	static {
+		if (ACTIVATION_FUNCTION.values().length > BUILT_IN_OPCODES || FAST_TANH_OPCODE >= FunctionRegistry.FIRST_PLUGIN_OPCODE)
+			throw new IllegalStateException("Built-in activation opcodes overlap");
+	}
 	
     /**
      * Creates a new activation function with the specified threshold.
@@ -99,51 +127,65 @@ public abstract class ActivationFunction implements Serializable {
 	public double getThreshold() { return threshold; }
 	
     /**
-     * Sets the activation threshold for this function.
+     * Checks if an activation value exceeds the threshold.
      * 
-     * @param threshold The new threshold value
+     * @param value A value computed by {@link #activate(double)}
+     * @return true if the value counts as activated, false otherwise
      */
-	protected void setThreshold(double threshold) { this.threshold = threshold; }
+	public boolean isActivated(double value) { return value > threshold; }
 	
     /**
-     * Sets the stored activated value after computation.
+     * Applies the activation function to the input value.
+     * This method must be implemented by all concrete activation functions.
      * 
-     * @param activatedValue The computed activation value to store
+     * @param x The input value to be transformed
+     * @return The transformed output value
      */
-	protected void setActivatedValue(double activatedValue) { this.activatedValue = activatedValue; }
+	public abstract double activate(double x);
 	
     /**
-     * Checks if the last computed activation value exceeds the threshold.
+     * Gets the opcode identifying this function. Built-in functions use the ordinal of their
+     * ACTIVATION_FUNCTION constant, below {@link #BUILT_IN_OPCODES}, except for the fast-math
+     * sigmoid and tanh, which use {@link #FAST_SIGMOID_OPCODE} and {@link #FAST_TANH_OPCODE}
+     * above it; plug-in functions use a fixed opcode between
+     * {@link FunctionRegistry#FIRST_PLUGIN_OPCODE} and {@link FunctionRegistry#LAST_PLUGIN_OPCODE}.
      * 
-     * @return true if the node is activated, false otherwise
+     * @return The opcode of this function
      */
-	public boolean isActivated() { return activatedValue > threshold; }
+	public abstract int getOpcode();
 	
     /**
-     * Applies the activation function to the input value.
-     * This method must be implemented by all concrete activation functions.
+     * Gets the type of this activation function.
      * 
-     * @param x The input value to be transformed
-     * @return The transformed output value
+     * @return The ACTIVATION_FUNCTION constant this function implements, or null for a plug-in function
      */
-	public abstract double activate(double x);
+	public ACTIVATION_FUNCTION getType() {
+		if (getOpcode() == FAST_SIGMOID_OPCODE)
+			return ACTIVATION_FUNCTION.SIGMOID;
+		if (getOpcode() == FAST_TANH_OPCODE)
+			return ACTIVATION_FUNCTION.TANH;
+		return getOpcode() < ACTIVATION_FUNCTION.RANDOM.ordinal() ? ACTIVATION_FUNCTION.values()[getOpcode()] : null;
+	}
 	
     /**
-     * Creates a deep copy of this activation function.
+     * Gets the name of this activation function.
      * 
-     * @return A new instance of the same activation function with the same parameters
+     * @return The name of the ACTIVATION_FUNCTION constant, or the class name for a plug-in function
      */
-	public abstract ActivationFunction clone();
+	public String getName() {
+		return getType() != null ? getType().name() : getClass().getSimpleName();
+	}
 	
     /**
      * Factory method to create an activation function of the specified type.
      * 
      * This method uses the provided ActivationConfig to initialize the function
-     * with appropriate threshold values.
+     * with appropriate threshold values, and returns the fast-math sigmoid and tanh
+     * if the configuration enables fast math.
      * 
      * @param activationFunction The type of activation function to create
      * @param actConfig Configuration object containing threshold parameters
-     * @return A new activation function instance of the requested type
+     * @return The shared activation function instance of the requested type
      */
 	public final static ActivationFunction getActivationFunction(ACTIVATION_FUNCTION activationFunction, ActivationConfig actConfig) {
 		
@@ -151,41 +193,93 @@ public abstract class ActivationFunction implements Serializable {
 		
 		switch (activationFunction) {
 		case TANH:
-			actFunc = new TanhActivationFunction(actConfig.getTanhActivationThreshold());
+			actFunc = actConfig.isFastMath() ? new FastTanhActivationFunction(actConfig.getTanhActivationThreshold())
+					: new TanhActivationFunction(actConfig.getTanhActivationThreshold());
 			break;
 		case STEP:
 			actFunc = new StepActivationFunction(actConfig.getStepActivationThreshold());
-			actFunc.threshold = actConfig.getStepActivationThreshold();
 			break;
 		case RELU:
 			actFunc = new ReluActivationFunction(actConfig.getReluActivationThreshold(), actConfig.getReluLeak());
 			break;
 		case LINEAR:
 			actFunc = new LinearActivationFunction(actConfig.getLinearActivationThreshold());
-			actFunc.threshold = actConfig.getLinearActivationThreshold();
 			break;
 		case SIGMOID:
-			actFunc = new SigmoidActivationFunction(actConfig.getSigmoidActivationThreshold());
-			actFunc.threshold = actConfig.getSigmoidActivationThreshold();
+			actFunc = actConfig.isFastMath() ? new FastSigmoidActivationFunction(actConfig.getSigmoidActivationThreshold())
+					: new SigmoidActivationFunction(actConfig.getSigmoidActivationThreshold());
 			break;
 		case RANDOM:
-			actFunc = getRandomActivationFunction(actConfig);
-			break;
+			return getRandomActivationFunction(actConfig);
 		}
 		
-		return actFunc;
+		return actFunc.intern();
+	}
+	
+    /**
+     * Gets the activation function identified by an opcode. The opcode alone decides between
+     * the exact and the fast-math sigmoid and tanh, whatever the configuration's fast-math mode.
+     * 
+     * @param opcode The opcode of a built-in or registered plug-in function
+     * @param actConfig Configuration object containing threshold parameters for built-in functions
+     * @return The shared function instance
+     * @throws IllegalArgumentException if no function has the opcode
+     */
+	public static ActivationFunction getActivationFunction(int opcode, ActivationConfig actConfig) {
+		ActivationFunction actFunc = null;
+		if (opcode == ACTIVATION_FUNCTION.SIGMOID.ordinal())
+			actFunc = new SigmoidActivationFunction(actConfig.getSigmoidActivationThreshold());
+		else if (opcode == ACTIVATION_FUNCTION.TANH.ordinal())
+			actFunc = new TanhActivationFunction(actConfig.getTanhActivationThreshold());
+		else if (opcode == FAST_SIGMOID_OPCODE)
+			actFunc = new FastSigmoidActivationFunction(actConfig.getSigmoidActivationThreshold());
+		else if (opcode == FAST_TANH_OPCODE)
+			actFunc = new FastTanhActivationFunction(actConfig.getTanhActivationThreshold());
+		if (actFunc != null)
+			return actFunc.intern();
+		if (opcode >= 0 && opcode < ACTIVATION_FUNCTION.RANDOM.ordinal())
+			return getActivationFunction(ACTIVATION_FUNCTION.values()[opcode], actConfig);
+		ActivationFunction plugin = FunctionRegistry.getActivationFunction(opcode);
+		if (plugin == null)
+			throw new IllegalArgumentException("Unknown activation function opcode: " + opcode);
+		return plugin;
 	}
 	
     /**
      * Creates a random activation function from the available types.
      * 
      * @param actConfig Configuration object containing threshold parameters
-     * @return A randomly selected activation function instance
+     * @return A randomly selected shared activation function instance
      */
 	public static ActivationFunction getRandomActivationFunction(ActivationConfig actConfig) {
 		int numOfActFuncs = ACTIVATION_FUNCTION.values().length-1;
 		return getActivationFunction(ACTIVATION_FUNCTION.values()[(int)(Math.random()*numOfActFuncs)],actConfig);
 	}
+	
+    /**
+     * Key under which a built-in function is shared: its opcode and parameters.
+     */
+	String getInternKey() {
+		return getOpcode() + ":" + Double.doubleToLongBits(threshold);
+	}
+	
+	private ActivationFunction intern() {
+		ActivationFunction shared = INTERNED.putIfAbsent(getInternKey(), this);
+		return shared == null ? this : shared;
+	}
+	
+    /**
+     * Replaces a deserialized function with the shared instance, registering plug-in
+     * functions that are not registered yet.
+     * 
+     * @return The shared instance
+     * @throws ObjectStreamException never
+     */
+	protected Object readResolve() throws ObjectStreamException {
+		if (getOpcode() >= FunctionRegistry.FIRST_PLUGIN_OPCODE)
+			return FunctionRegistry.register(this);
+		return intern();
+	}
 			
 }
 
@@ -206,14 +300,12 @@ class SigmoidActivationFunction extends ActivationFunction {
 	
 	@Override
 	public double activate(double x) {
-		double activatedValue = 1d/(1d+Math.exp(-x));
-		setActivatedValue(activatedValue);
-		return activatedValue;
+		return 1d/(1d+Math.exp(-x));
 	}
 	
 	@Override
-	public ActivationFunction clone() {
-		return new SigmoidActivationFunction(getThreshold());
+	public int getOpcode() {
+		return ACTIVATION_FUNCTION.SIGMOID.ordinal();
 	}
 	
 }
@@ -222,8 +314,8 @@ class SigmoidActivationFunction extends ActivationFunction {
  * Hyperbolic tangent (tanh) activation function implementation.
  * 
  * The tanh function has the form f(x) = (e^x - e^(-x))/(e^x + e^(-x))
- * and produces outputs in the range (-1,1). It is similar to the sigmoid
- * but is zero-centered, which can help with learning dynamics.
+ * and produces outputs in the range (-1,1), computed by {@link Math#tanh(double)}. It is
+ * similar to the sigmoid but is zero-centered, which can help with learning dynamics.
  */
 class TanhActivationFunction extends ActivationFunction {
 
@@ -235,14 +327,64 @@ class TanhActivationFunction extends ActivationFunction {
 
 	@Override
 	public double activate(double x) {
-		double activatedValue = (Math.exp(x)-Math.exp(-x))/(Math.exp(x)+Math.exp(-x));
-		setActivatedValue(activatedValue);
-		return activatedValue;
+		return Math.tanh(x);
+	}
+	
+	@Override
+	public int getOpcode() {
+		return ACTIVATION_FUNCTION.TANH.ordinal();
+	}
+	
+}
+
+/**
+ * Fast-math sigmoid activation function implementation.
+ * 
+ * Approximates the sigmoid with {@link FastActivation#sigmoid(double)}, within
+ * {@link FastActivation#MAX_SIGMOID_ERROR} of the exact function.
+ */
+class FastSigmoidActivationFunction extends ActivationFunction {
+
+	private static final long serialVersionUID = 2467325937006458912L;
+
+	public FastSigmoidActivationFunction(double threshold) {
+		super(threshold);
+	}
+	
+	@Override
+	public double activate(double x) {
+		return FastActivation.sigmoid(x);
 	}
 	
 	@Override
-	public ActivationFunction clone() {
-		return new TanhActivationFunction(getThreshold());
+	public int getOpcode() {
+		return FAST_SIGMOID_OPCODE;
+	}
+	
+}
+
+/**
+ * Fast-math hyperbolic tangent (tanh) activation function implementation.
+ * 
+ * Approximates tanh with {@link FastActivation#tanh(double)}, within
+ * {@link FastActivation#MAX_TANH_ERROR} of the exact function.
+ */
+class FastTanhActivationFunction extends ActivationFunction {
+
+	private static final long serialVersionUID = -3841579218617004183L;
+
+	public FastTanhActivationFunction(double threshold) {
+		super(threshold);
+	}
+	
+	@Override
+	public double activate(double x) {
+		return FastActivation.tanh(x);
+	}
+	
+	@Override
+	public int getOpcode() {
+		return FAST_TANH_OPCODE;
 	}
 	
 }
@@ -263,13 +405,11 @@ class StepActivationFunction extends ActivationFunction {
 
 	@Override
 	public double activate(double x) {
-		double activatedValue = x >= 0 ? 1 : 0;
-		setActivatedValue(activatedValue);
-		return activatedValue;
+		return x >= 0 ? 1 : 0;
 	}
 	@Override
-	public ActivationFunction clone() {
-		return new StepActivationFunction(getThreshold());
+	public int getOpcode() {
+		return ACTIVATION_FUNCTION.STEP.ordinal();
 	}
 	
 }
@@ -286,22 +426,25 @@ class ReluActivationFunction extends ActivationFunction {
 
 	private static final long serialVersionUID = -6013329598788818087L;
 
-	private double reluLeak;
+	private final double reluLeak;
 	public ReluActivationFunction(double threshold, double reluLeak) {
 		super(threshold);
 		this.reluLeak = reluLeak;
 	}
 	
+	@Override
+	String getInternKey() {
+		return super.getInternKey() + ":" + Double.doubleToLongBits(reluLeak);
+	}
+	
 	@Override
 	public double activate(double x) {
-		double activatedValue = x >= 0 ? x : x*reluLeak;
-		setActivatedValue(activatedValue);
-		return activatedValue;
+		return x >= 0 ? x : x*reluLeak;
 	}
 	
 	@Override
-	public ActivationFunction clone() {
-		return new ReluActivationFunction(getThreshold(), reluLeak);
+	public int getOpcode() {
+		return ACTIVATION_FUNCTION.RELU.ordinal();
 	}
 	
 }
@@ -323,14 +466,12 @@ class LinearActivationFunction extends ActivationFunction {
 
 	@Override
 	public double activate(double x) {
-		double activatedValue = x;
-		setActivatedValue(activatedValue);
-		return activatedValue;
+		return x;
 	}
 	
 	@Override
-	public ActivationFunction clone() {
-		return new LinearActivationFunction(getThreshold());
+	public int getOpcode() {
+		return ACTIVATION_FUNCTION.LINEAR.ordinal();
 	}
 
 }
\ No newline at end of file
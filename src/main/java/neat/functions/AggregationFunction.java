@@ -1,5 +1,6 @@
 package main.java.neat.functions;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.Arrays;
 
@@ -8,6 +9,13 @@ import java.util.Arrays;
  * Aggregation functions determine how a node combines its input values into
  * a single output value before applying the activation function.
  * 
+ * <p>Inputs can be aggregated as an array with {@link #aggregate(double[])}, or streamed one at
+ * a time into an {@link Accumulator}, which needs no input array and allocates nothing once
+ * created. Aggregation functions hold no state: the factory methods return one shared instance
+ * per function, identified by an opcode (see {@link FunctionRegistry}) on which compiled inference
+ * kernels dispatch. Plug-in functions extend this class, return an opcode from the plug-in range
+ * and are registered with {@link FunctionRegistry}.
+ * 
  * @author Taher Joudeh
  */
 public abstract class AggregationFunction implements Serializable {
@@ -60,43 +68,68 @@ public abstract class AggregationFunction implements Serializable {
 		RANDOM
 	}
 	
+    /**
+     * Shared instances of the built-in functions, indexed by opcode.
+     */
+	private static final AggregationFunction[] BUILT_IN = {
+			new SumAggregationFunction(), new ProductAggregationFunction(), new MinAggregationFunction(),
+			new MaxAggregationFunction(), new MeanAggregationFunction(), new MedianAggregationFunction(),
+			new MaxabsAggregationFunction()
+	};
+	
     /**
      * Factory method to get an aggregation function instance based on the specified type.
      * 
      * @param aggregationFunction the type of aggregation function to create
-     * @return concrete implementation of the specified aggregation function
+     * @return shared instance of the specified aggregation function
      * @throws IllegalArgumentException if an unknown aggregation function type is requested
      */
 	public final static AggregationFunction getAggregationFunction(AGGREGATION_FUNCTION aggregationFunction) {
-		AggregationFunction aggFunction = null;
+		if (aggregationFunction == AGGREGATION_FUNCTION.RANDOM)
+			return getRandomAggregationFunction();
+		return BUILT_IN[aggregationFunction.ordinal()];
+	}
+	
+    /**
+     * Gets the aggregation function identified by an opcode.
+     * 
+     * @param opcode the opcode of a built-in or registered plug-in function
+     * @return the shared function instance
+     * @throws IllegalArgumentException if no function has the opcode
+     */
+	public static AggregationFunction getAggregationFunction(int opcode) {
+		if (opcode >= 0 && opcode < BUILT_IN.length)
+			return BUILT_IN[opcode];
+		AggregationFunction plugin = FunctionRegistry.getAggregationFunction(opcode);
+		if (plugin == null)
+			throw new IllegalArgumentException("Unknown aggregation function opcode: " + opcode);
+		return plugin;
+	}
+	
+	/**
+     * Streaming aggregation of input values, one value at a time.
+     * An accumulator is reusable but not thread-safe; use one per node and thread.
+     */
+	public static interface Accumulator {
 		
-		switch (aggregationFunction) {
-		case PRODUCT:
-			aggFunction = new ProductAggregationFunction();
-			break;
-		case MIN:
-			aggFunction = new MinAggregationFunction();
-			break;
-		case MAX:
-			aggFunction = new MaxAggregationFunction();
-			break;
-		case MEAN:
-			aggFunction = new MeanAggregationFunction();
-			break;
-		case MEDIAN:
-			aggFunction = new MedianAggregationFunction();
-			break;
-		case MAXABS:
-			aggFunction = new MaxabsAggregationFunction();
-			break;
-		case SUM:
-			aggFunction = new SumAggregationFunction();
-			break;
-		case RANDOM:
-			aggFunction = getRandomAggregationFunction();
-		}
+        /**
+         * Discards all values accepted so far.
+         */
+		void reset();
+		
+        /**
+         * Adds an input value.
+         * 
+         * @param x the input value
+         */
+		void accept(double x);
 		
-		return aggFunction;
+        /**
+         * Aggregates the values accepted since the last reset. The accumulator keeps them.
+         * 
+         * @return the aggregated result, the same as {@link AggregationFunction#aggregate(double[])} of the values
+         */
+		double result();
 	}
 	
 	/**
@@ -107,6 +140,53 @@ public abstract class AggregationFunction implements Serializable {
      */
 	public abstract double aggregate(double[] x);
 	
+    /**
+     * Creates an accumulator computing this aggregation function.
+     * 
+     * @return a new, empty accumulator
+     */
+	public abstract Accumulator newAccumulator();
+	
+    /**
+     * Gets the opcode identifying this function. Built-in functions use the ordinal of their
+     * AGGREGATION_FUNCTION constant; plug-in functions use a fixed opcode between
+     * {@link FunctionRegistry#FIRST_PLUGIN_OPCODE} and {@link FunctionRegistry#LAST_PLUGIN_OPCODE}.
+     * 
+     * @return the opcode of this function
+     */
+	public abstract int getOpcode();
+	
+    /**
+     * Gets the type of this aggregation function.
+     * 
+     * @return the AGGREGATION_FUNCTION constant this function implements, or null for a plug-in function
+     */
+	public AGGREGATION_FUNCTION getType() {
+		return getOpcode() < AGGREGATION_FUNCTION.RANDOM.ordinal() ? AGGREGATION_FUNCTION.values()[getOpcode()] : null;
+	}
+	
+    /**
+     * Gets the name of this aggregation function.
+     * 
+     * @return the name of the AGGREGATION_FUNCTION constant, or the class name for a plug-in function
+     */
+	public String getName() {
+		return getType() != null ? getType().name() : getClass().getSimpleName();
+	}
+	
+    /**
+     * Replaces a deserialized function with the shared instance, registering plug-in
+     * functions that are not registered yet.
+     * 
+     * @return the shared instance
+     * @throws ObjectStreamException never
+     */
+	protected Object readResolve() throws ObjectStreamException {
+		if (getOpcode() >= FunctionRegistry.FIRST_PLUGIN_OPCODE)
+			return FunctionRegistry.register(this);
+		return BUILT_IN[getOpcode()];
+	}
+	
     /**
      * Returns a random aggregation function instance.
      * 
@@ -126,6 +206,60 @@ public abstract class AggregationFunction implements Serializable {
 		return getAggregationFunction(AGGREGATION_FUNCTION.values()[(int)(Math.random()*numOfAggFuncs)]);
 		
 	}
+	
+    /**
+     * Computes the median of a range of values by quickselect, in expected linear time.
+     * The range is reordered; nothing is allocated.
+     * 
+     * @param values array holding the values
+     * @param from index of the first value (inclusive)
+     * @param to index after the last value (exclusive)
+     * @return median of the range, the mean of the two middle values for an even count, or 0 if the range is empty
+     */
+	public static double median(double[] values, int from, int to) {
+		int length = to-from;
+		if (length == 0)
+			return 0;
+		
+		int middle = from + length/2;
+		select(values, from, to-1, middle);
+		double median = values[middle];
+		if (length%2 == 0) {
+			double lower = values[from];
+			for (int i = from+1; i < middle; i++)
+				lower = Math.max(lower, values[i]);
+			median = (lower + median)/2d;
+		}
+		
+		return median;
+	}
+	
+    /**
+     * Partially orders {@code values[left..right]} so that the value at index {@code k} is
+     * the one sorting would put there, smaller values before it and larger ones after it.
+     */
+	private static void select(double[] values, int left, int right, int k) {
+		while (left < right) {
+			double pivot = values[(left+right) >>> 1];
+			int i = left, j = right;
+			while (i <= j) {
+				while (values[i] < pivot)
+					i++;
+				while (values[j] > pivot)
+					j--;
+				if (i <= j) {
+					double swap = values[i];
+					values[i++] = values[j];
+					values[j--] = swap;
+				}
+			}
+			if (k <= j)
+				right = j;
+			else if (k >= i)
+				left = i;
+			else return;
+		}
+	}
 }
 
 /**
@@ -143,7 +277,25 @@ class SumAggregationFunction extends AggregationFunction {
      */
 	@Override
 	public double aggregate(double[] x) {
-		return Arrays.stream(x).sum();
+		double sum = 0;
+		for (double value: x)
+			sum += value;
+		return sum;
+	}
+	
+	@Override
+	public Accumulator newAccumulator() {
+		return new Accumulator() {
+			private double sum;
+			public void reset() { sum = 0; }
+			public void accept(double x) { sum += x; }
+			public double result() { return sum; }
+		};
+	}
+	
+	@Override
+	public int getOpcode() {
+		return AGGREGATION_FUNCTION.SUM.ordinal();
 	}
 	
 }
@@ -163,7 +315,25 @@ class ProductAggregationFunction extends AggregationFunction {
      */
 	@Override
 	public double aggregate(double[] x) {
-		return Arrays.stream(x).reduce(1, (a, b) -> a * b);
+		double product = 1;
+		for (double value: x)
+			product *= value;
+		return product;
+	}
+	
+	@Override
+	public Accumulator newAccumulator() {
+		return new Accumulator() {
+			private double product = 1;
+			public void reset() { product = 1; }
+			public void accept(double x) { product *= x; }
+			public double result() { return product; }
+		};
+	}
+	
+	@Override
+	public int getOpcode() {
+		return AGGREGATION_FUNCTION.PRODUCT.ordinal();
 	}
 	
 }
@@ -183,7 +353,28 @@ class MinAggregationFunction extends AggregationFunction {
      */
 	@Override
 	public double aggregate(double[] x) {
-		return Arrays.stream(x).min().orElse(0);
+		if (x.length == 0)
+			return 0;
+		double min = x[0];
+		for (int i = 1; i < x.length; i++)
+			min = Math.min(min, x[i]);
+		return min;
+	}
+	
+	@Override
+	public Accumulator newAccumulator() {
+		return new Accumulator() {
+			private double min = Double.POSITIVE_INFINITY;
+			private boolean empty = true;
+			public void reset() { min = Double.POSITIVE_INFINITY; empty = true; }
+			public void accept(double x) { min = Math.min(min, x); empty = false; }
+			public double result() { return empty ? 0 : min; }
+		};
+	}
+	
+	@Override
+	public int getOpcode() {
+		return AGGREGATION_FUNCTION.MIN.ordinal();
 	}
 	
 }
@@ -203,7 +394,28 @@ class MaxAggregationFunction extends AggregationFunction {
      */
 	@Override
 	public double aggregate(double[] x) {
-		return Arrays.stream(x).max().orElse(0);
+		if (x.length == 0)
+			return 0;
+		double max = x[0];
+		for (int i = 1; i < x.length; i++)
+			max = Math.max(max, x[i]);
+		return max;
+	}
+	
+	@Override
+	public Accumulator newAccumulator() {
+		return new Accumulator() {
+			private double max = Double.NEGATIVE_INFINITY;
+			private boolean empty = true;
+			public void reset() { max = Double.NEGATIVE_INFINITY; empty = true; }
+			public void accept(double x) { max = Math.max(max, x); empty = false; }
+			public double result() { return empty ? 0 : max; }
+		};
+	}
+	
+	@Override
+	public int getOpcode() {
+		return AGGREGATION_FUNCTION.MAX.ordinal();
 	}
 	
 }
@@ -223,7 +435,28 @@ class MeanAggregationFunction extends AggregationFunction {
      */
 	@Override
 	public double aggregate(double[] x) {
-		return Arrays.stream(x).average().orElse(0);
+		if (x.length == 0)
+			return 0;
+		double sum = 0;
+		for (double value: x)
+			sum += value;
+		return sum/x.length;
+	}
+	
+	@Override
+	public Accumulator newAccumulator() {
+		return new Accumulator() {
+			private double sum;
+			private int count;
+			public void reset() { sum = 0; count = 0; }
+			public void accept(double x) { sum += x; count++; }
+			public double result() { return count == 0 ? 0 : sum/count; }
+		};
+	}
+	
+	@Override
+	public int getOpcode() {
+		return AGGREGATION_FUNCTION.MEAN.ordinal();
 	}
 	
 }
@@ -238,19 +471,36 @@ class MedianAggregationFunction extends AggregationFunction {
     /**
      * Calculates the median of input values.
      * 
-     * @param x array of input values
-     * @return median value of the input array
+     * @param x array of input values; left unchanged
+     * @return median value of the input array, or 0 if array is empty
      */
 	@Override
 	public double aggregate(double[] x) {
-		int length = x.length;
-		double[] sorted = Arrays.stream(x).sorted().toArray();
-		
-		double median = sorted[length/2];
-		if (length%2 == 0)
-			median = (sorted[length/2 - 1] + sorted[length/2])/2d;
-		
-		return median;
+		return median(x.clone(), 0, x.length);
+	}
+	
+    /**
+     * Creates an accumulator that collects its values in a scratch buffer, which grows to the
+     * largest number of inputs seen and is then reused, and selects the median in place.
+     */
+	@Override
+	public Accumulator newAccumulator() {
+		return new Accumulator() {
+			private double[] values = new double[8];
+			private int count;
+			public void reset() { count = 0; }
+			public void accept(double x) {
+				if (count == values.length)
+					values = Arrays.copyOf(values, 2*count);
+				values[count++] = x;
+			}
+			public double result() { return median(values, 0, count); }
+		};
+	}
+	
+	@Override
+	public int getOpcode() {
+		return AGGREGATION_FUNCTION.MEDIAN.ordinal();
 	}
 	
 }
@@ -270,7 +520,25 @@ class MaxabsAggregationFunction extends AggregationFunction {
      */
 	@Override
 	public double aggregate(double[] x) {
-		return Arrays.stream(x).reduce(0, (a,b) -> Math.max(Math.abs(a), Math.abs(b)));
+		double max = 0;
+		for (double value: x)
+			max = Math.max(max, Math.abs(value));
+		return max;
+	}
+	
+	@Override
+	public Accumulator newAccumulator() {
+		return new Accumulator() {
+			private double max;
+			public void reset() { max = 0; }
+			public void accept(double x) { max = Math.max(max, Math.abs(x)); }
+			public double result() { return max; }
+		};
+	}
+	
+	@Override
+	public int getOpcode() {
+		return AGGREGATION_FUNCTION.MAXABS.ordinal();
 	}
 	
 }
\ No newline at end of file
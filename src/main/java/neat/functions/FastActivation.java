@@ -0,0 +1,67 @@
+package main.java.neat.functions;
+
+/**
+ * Fast approximations of the sigmoid and tanh activation functions, used by the fast-math mode of
+ * {@link main.java.neat.config.ActivationConfig}.
+ * 
+ * tanh is read from a table of exact values on [0, 9] in steps of 1/128, linearly interpolated,
+ * mirrored for negative inputs and saturated to &plusmn;1 beyond 9. Sigmoid uses the identity
+ * sigmoid(x) = (1 + tanh(x/2))/2. Both cost a multiplication, a table lookup and an interpolation
+ * instead of one or more calls to {@link Math#exp(double)}; the 9KB table stays in the L1 cache.
+ * Outputs stay within the exact range, are exact at 0, and NaN inputs return NaN.
+ * 
+ * The maximum absolute errors over all inputs are {@link #MAX_TANH_ERROR} and
+ * {@link #MAX_SIGMOID_ERROR}, as checked by {@code main.java.test.functions.ActivationBenchmark}.
+ * 
+ * @author Taher Joudeh
+ */
+public final class FastActivation {
+	
+    /**
+     * Upper bound of the absolute error of {@link #tanh(double)}.
+     */
+	public static final double MAX_TANH_ERROR = 6e-6;
+	
+    /**
+     * Upper bound of the absolute error of {@link #sigmoid(double)}.
+     */
+	public static final double MAX_SIGMOID_ERROR = 3e-6;
+	
+	private static final int STEPS_PER_UNIT = 128;
+	private static final int RANGE = 9;
+	private static final double[] TANH = new double[RANGE*STEPS_PER_UNIT + 1];
+	
+	static {
+		for (int i = 0; i < TANH.length; i++)
+			TANH[i] = Math.tanh(i/(double)STEPS_PER_UNIT);
+	}
+	
+	private FastActivation() {}
+	
+    /**
+     * Approximates the hyperbolic tangent.
+     * 
+     * @param x The input value
+     * @return tanh(x) within {@link #MAX_TANH_ERROR}
+     */
+	public static double tanh(double x) {
+		double position = Math.abs(x)*STEPS_PER_UNIT;
+		if (!(position < RANGE*STEPS_PER_UNIT))
+			return Double.isNaN(x) ? x : Math.copySign(1d, x);
+		int index = (int)position;
+		double fraction = position - index;
+		double y = TANH[index] + fraction*(TANH[index+1] - TANH[index]);
+		return Math.copySign(y, x);
+	}
+	
+    /**
+     * Approximates the logistic sigmoid 1/(1+e^(-x)).
+     * 
+     * @param x The input value
+     * @return sigmoid(x) within {@link #MAX_SIGMOID_ERROR}
+     */
+	public static double sigmoid(double x) {
+		return 0.5 + 0.5*tanh(0.5*x);
+	}
+	
+}
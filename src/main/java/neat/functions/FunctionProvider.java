@@ -0,0 +1,45 @@
+package main.java.neat.functions;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Service provider interface for plug-in activation and aggregation functions.
+ * 
+ * Implementations are discovered with {@link java.util.ServiceLoader}: list the fully qualified
+ * name of the implementing class in a resource file named
+ * {@code META-INF/services/main.java.neat.functions.FunctionProvider}. Their functions are
+ * registered with {@link FunctionRegistry} when the registry is first used.
+ * 
+ * Example usage:
+ * <pre>
+ * public class GaussianProvider implements FunctionProvider {
+ *     public Collection&lt;ActivationFunction&gt; getActivationFunctions() {
+ *         return List.of(new GaussianActivationFunction());
+ *     }
+ * }
+ * </pre>
+ * 
+ * @author Taher Joudeh
+ */
+public interface FunctionProvider {
+	
+    /**
+     * Gets the plug-in activation functions of this provider.
+     * 
+     * @return activation functions to register, each with its own opcode
+     */
+	default Collection<ActivationFunction> getActivationFunctions() {
+		return Collections.emptyList();
+	}
+	
+    /**
+     * Gets the plug-in aggregation functions of this provider.
+     * 
+     * @return aggregation functions to register, each with its own opcode
+     */
+	default Collection<AggregationFunction> getAggregationFunctions() {
+		return Collections.emptyList();
+	}
+	
+}
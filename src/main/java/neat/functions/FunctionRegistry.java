@@ -0,0 +1,106 @@
+package main.java.neat.functions;
+
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Registry of plug-in activation and aggregation functions by opcode.
+ * 
+ * Every function is identified by a one-byte opcode, which is what compiled networks and binary
+ * genomes store and what inference kernels switch on. Built-in functions use the ordinal of their
+ * {@link ActivationFunction.ACTIVATION_FUNCTION} or {@link AggregationFunction.AGGREGATION_FUNCTION}
+ * constant. Plug-in functions choose a fixed opcode between {@link #FIRST_PLUGIN_OPCODE} and
+ * {@link #LAST_PLUGIN_OPCODE}, so that networks and genomes stored by one process decode in
+ * another that registers the same plug-ins.
+ * 
+ * Plug-ins are registered by calling {@link #register(ActivationFunction)} or
+ * {@link #register(AggregationFunction)}, or by shipping a {@link FunctionProvider}. Each opcode
+ * maps to a single shared instance; functions hold no per-node state.
+ * 
+ * @author Taher Joudeh
+ */
+public final class FunctionRegistry {
+	
+    /**
+     * Smallest opcode available to plug-in functions.
+     */
+	public static final int FIRST_PLUGIN_OPCODE = 16;
+	
+    /**
+     * Largest opcode available to plug-in functions.
+     */
+	public static final int LAST_PLUGIN_OPCODE = 254;
+	
+	private static final AtomicReferenceArray<ActivationFunction> activationFunctions = new AtomicReferenceArray<> (LAST_PLUGIN_OPCODE+1);
+	private static final AtomicReferenceArray<AggregationFunction> aggregationFunctions = new AtomicReferenceArray<> (LAST_PLUGIN_OPCODE+1);
+	
+	static {
+		for (FunctionProvider provider: ServiceLoader.load(FunctionProvider.class)) {
+			for (ActivationFunction function: provider.getActivationFunctions())
+				register(function);
+			for (AggregationFunction function: provider.getAggregationFunctions())
+				register(function);
+		}
+	}
+	
+	private FunctionRegistry() {}
+	
+    /**
+     * Registers a plug-in activation function under its opcode.
+     * Registering another instance of an already registered class keeps the first instance.
+     * 
+     * @param function the function to register
+     * @return the registered instance for the function's opcode
+     * @throws IllegalArgumentException if the opcode is outside the plug-in range or taken by a different function
+     */
+	public static ActivationFunction register(ActivationFunction function) {
+		int opcode = checkOpcode(function.getOpcode());
+		if (!activationFunctions.compareAndSet(opcode, null, function)
+				&& activationFunctions.get(opcode).getClass() != function.getClass())
+			throw new IllegalArgumentException("Activation function opcode " + opcode + " is taken by " + activationFunctions.get(opcode).getName());
+		return activationFunctions.get(opcode);
+	}
+	
+    /**
+     * Registers a plug-in aggregation function under its opcode.
+     * Registering another instance of an already registered class keeps the first instance.
+     * 
+     * @param function the function to register
+     * @return the registered instance for the function's opcode
+     * @throws IllegalArgumentException if the opcode is outside the plug-in range or taken by a different function
+     */
+	public static AggregationFunction register(AggregationFunction function) {
+		int opcode = checkOpcode(function.getOpcode());
+		if (!aggregationFunctions.compareAndSet(opcode, null, function)
+				&& aggregationFunctions.get(opcode).getClass() != function.getClass())
+			throw new IllegalArgumentException("Aggregation function opcode " + opcode + " is taken by " + aggregationFunctions.get(opcode).getName());
+		return aggregationFunctions.get(opcode);
+	}
+	
+    /**
+     * Gets the plug-in activation function registered under an opcode.
+     * 
+     * @param opcode the opcode
+     * @return the registered function, or null if none is registered
+     */
+	public static ActivationFunction getActivationFunction(int opcode) {
+		return opcode >= FIRST_PLUGIN_OPCODE && opcode <= LAST_PLUGIN_OPCODE ? activationFunctions.get(opcode) : null;
+	}
+	
+    /**
+     * Gets the plug-in aggregation function registered under an opcode.
+     * 
+     * @param opcode the opcode
+     * @return the registered function, or null if none is registered
+     */
+	public static AggregationFunction getAggregationFunction(int opcode) {
+		return opcode >= FIRST_PLUGIN_OPCODE && opcode <= LAST_PLUGIN_OPCODE ? aggregationFunctions.get(opcode) : null;
+	}
+	
+	private static int checkOpcode(int opcode) {
+		if (opcode < FIRST_PLUGIN_OPCODE || opcode > LAST_PLUGIN_OPCODE)
+			throw new IllegalArgumentException("Plug-in opcode " + opcode + " is outside [" + FIRST_PLUGIN_OPCODE + ", " + LAST_PLUGIN_OPCODE + "]");
+		return opcode;
+	}
+	
+}
@@ -7,20 +7,28 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import javax.imageio.ImageIO;
+import main.java.neat.config.NEATConfig;
 import main.java.neat.core.Genome;
+import main.java.neat.core.GenomeCodec;
 
 /**
  * Utility class for handling genome serialization/deserialization and image saving.
  * Provides static methods to save/load NEAT genomes and export network visualizations.
  * <p>
  * This class cannot be instantiated and uses Java object serialization for genome persistence.
+ * Genomes can also be stored in the compact binary format of {@link GenomeCodec}, with the
+ * shared {@link NEATConfig} saved once in its own file.
  * 
  * @author Taher Joudeh
  */
 public final class GenomeFileHandler {
 
 	private final static String FILE_FORMAT = "neat";
+	private final static String BINARY_FILE_FORMAT = "neatb";
+	private final static String CONFIG_FILE_FORMAT = "neatconfig";
 	
     /**
      * Serializes and saves a Genome object to a file in NEAT format.
@@ -64,6 +72,61 @@ public final class GenomeFileHandler {
 		return genome;
 	}
 	
+    /**
+     * Saves a genome in the compact binary format of {@link GenomeCodec}.
+     * The genome's configuration is not stored, only its hash; save it once with {@link #saveConfig(NEATConfig, String, String)}.
+     * @param genome The genome to save.
+     * @param path Directory path for saving (can be null for current directory).
+     * @param name Filename without extension.
+     * @param compress If true, the genome is compressed with a Deflater.
+     */
+	public final static void saveGenomeBinary(Genome genome, String path, String name, boolean compress) {
+		File file = new File(path, name+"."+BINARY_FILE_FORMAT);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			GenomeCodec.write(genome, channel, compress);
+		} catch (IOException e) { e.printStackTrace(); }
+	}
+	
+    /**
+     * Loads a genome saved with {@link #saveGenomeBinary(Genome, String, String, boolean)}.
+     * @param filePath Full path to the genome file (including extension).
+     * @param neatConfig The configuration the genome was saved with.
+     * @return Loaded Genome object, or null if loading fails or the configuration does not match.
+     */
+	public final static Genome loadGenomeBinary(String filePath, NEATConfig neatConfig) {
+		Genome genome = null;
+		try (FileChannel channel = FileChannel.open(new File(filePath).toPath(), StandardOpenOption.READ)) {
+			genome = GenomeCodec.read(channel, neatConfig);
+		} catch (IOException e) { e.printStackTrace(); }
+		return genome;
+	}
+	
+    /**
+     * Serializes and saves a NEATConfig object, to be shared by binary genome files.
+     * @param neatConfig The configuration to serialize.
+     * @param path Directory path for saving (can be null for current directory).
+     * @param name Filename without extension.
+     */
+	public final static void saveConfig(NEATConfig neatConfig, String path, String name) {
+		File file = new File(path, name+"."+CONFIG_FILE_FORMAT);
+		try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(file))) {
+			oos.writeObject(neatConfig);
+		} catch (IOException e) { e.printStackTrace(); }
+	}
+	
+    /**
+     * Loads and deserializes a NEATConfig from file.
+     * @param filePath Full path to the configuration file (including extension).
+     * @return Deserialized NEATConfig object, or null if loading fails.
+     */
+	public final static NEATConfig loadConfig(String filePath) {
+		NEATConfig neatConfig = null;
+		try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filePath))) {
+			neatConfig = (NEATConfig) ois.readObject();
+		} catch (IOException | ClassNotFoundException e) { e.printStackTrace(); }
+		return neatConfig;
+	}
+	
     /**
      * Saves a network visualization image to disk.
      * @param image BufferedImage containing network visualization.
@@ -0,0 +1,23 @@
+package main.java.neat.ipc;
+
+import main.java.neat.core.CompiledNetwork;
+
+/**
+ * Fitness function run inside a {@link SharedMemoryWorker} process.
+ *
+ * <p>Implementations typically drive a simulator with the network, using
+ * {@link CompiledNetwork#newState()} for the network's node values.
+ *
+ * @author Taher Joudeh
+ */
+@FunctionalInterface
+public interface NetworkEvaluator {
+
+    /**
+     * Evaluates a single network.
+     * @param network Network read from the shared region.
+     * @return Fitness of the network.
+     */
+	double evaluate(CompiledNetwork network);
+
+}
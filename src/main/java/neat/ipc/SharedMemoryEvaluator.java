@@ -0,0 +1,242 @@
+package main.java.neat.ipc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import main.java.neat.core.Agent;
+import main.java.neat.core.CompiledNetwork;
+
+/**
+ * Coordinator side of local multi-process fitness evaluation.
+ *
+ * <p>The evaluator owns a memory-mapped file. For every batch it compiles the agents'
+ * genomes, writes the {@link CompiledNetwork}s into the mapped region and publishes one
+ * task per agent on a lock-free ring inside the same region. {@link SharedMemoryWorker}s
+ * running in other JVMs map the same file, claim tasks, and write the fitness values back
+ * in place. No sockets and no Java serialization are involved.
+ *
+ * <p>Example usage:
+ * <pre>
+ * try (SharedMemoryEvaluator evaluator = new SharedMemoryEvaluator(path, 150, 64 &lt;&lt; 20)) {
+ *     while (!neat.isTerminated()) {
+ *         evaluator.evaluate(neat.getPopulation());
+ *         neat.evolve(true);
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>A task claimed by a worker that does not finish it within the claim timeout is
+ * presumed lost with its worker and published again for another worker; the claim timeout
+ * must therefore exceed the longest evaluation. If no worker claims or finishes a task for
+ * the progress timeout, the batch is abandoned and {@link #evaluate(Agent[])} throws. A task
+ * whose evaluation throws in the worker is reported as failed: the agent keeps its fitness
+ * and {@link #evaluate(Agent[])} throws once the rest of the batch is evaluated.
+ *
+ * <p>Instances are not thread-safe; a single coordinator thread must drive the evaluator.
+ *
+ * @author Taher Joudeh
+ */
+public class SharedMemoryEvaluator implements Closeable {
+
+	/**
+	 * Default time after which a claimed task is published again, in milliseconds.
+	 */
+	public static final long DEFAULT_CLAIM_TIMEOUT_MILLIS = 60_000;
+
+	/**
+	 * Default time without any claim or completion after which a batch is abandoned, in milliseconds.
+	 */
+	public static final long DEFAULT_PROGRESS_TIMEOUT_MILLIS = 300_000;
+
+	private static final int IDLE_ROUNDS_PER_CHECK = 256;
+
+	private final SharedRegion region;
+	private final int capacity;
+	private final int dataOffset;
+	private final long claimTimeoutNanos, progressTimeoutNanos;
+	private long tail;
+
+	/**
+	 * Attempt number of the last claim seen on each task slot, and when it was first seen.
+	 */
+	private final long[] claimAttempt, claimSeen;
+
+    /**
+     * Creates (or truncates) the shared file and maps it, with the default timeouts.
+     * @param file Path of the file backing the shared region.
+     * @param capacity Maximum number of agents per batch (usually the population size).
+     * @param size Total size of the region in bytes.
+     * @throws IOException If the file cannot be created or mapped.
+     * @throws IllegalArgumentException If capacity is not positive or size cannot hold the task table.
+     */
+	public SharedMemoryEvaluator(Path file, int capacity, int size) throws IOException {
+		this(file, capacity, size, DEFAULT_CLAIM_TIMEOUT_MILLIS, DEFAULT_PROGRESS_TIMEOUT_MILLIS);
+	}
+
+    /**
+     * Creates (or truncates) the shared file and maps it.
+     * @param file Path of the file backing the shared region.
+     * @param capacity Maximum number of agents per batch (usually the population size).
+     * @param size Total size of the region in bytes.
+     * @param claimTimeoutMillis Time after which a claimed but unfinished task is published again.
+     * @param progressTimeoutMillis Time without any claim or completion after which a batch is abandoned.
+     * @throws IOException If the file cannot be created or mapped.
+     * @throws IllegalArgumentException If capacity or a timeout is not positive or size cannot hold the task table.
+     */
+	public SharedMemoryEvaluator(Path file, int capacity, int size, long claimTimeoutMillis, long progressTimeoutMillis) throws IOException {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		if (size <= SharedRegion.dataOffset(capacity))
+			throw new IllegalArgumentException("size too small for " + capacity + " tasks: " + size);
+		if (claimTimeoutMillis < 1 || progressTimeoutMillis < 1)
+			throw new IllegalArgumentException("timeouts must be positive: " + claimTimeoutMillis + ", " + progressTimeoutMillis);
+
+		this.capacity = capacity;
+		this.dataOffset = SharedRegion.dataOffset(capacity);
+		this.claimTimeoutNanos = claimTimeoutMillis*1_000_000;
+		this.progressTimeoutNanos = progressTimeoutMillis*1_000_000;
+		claimAttempt = new long[capacity];
+		claimSeen = new long[capacity];
+		region = SharedRegion.create(file, size);
+
+		ByteBuffer buffer = region.buffer();
+		buffer.putInt(SharedRegion.VERSION_OFFSET, SharedRegion.VERSION);
+		buffer.putInt(SharedRegion.CAPACITY_OFFSET, capacity);
+		for (int i = 0; i < capacity; i++)
+			buffer.putLong(SharedRegion.taskOffset(i, capacity) + SharedRegion.TASK_STATUS, SharedRegion.status(0, SharedRegion.DONE));
+		region.setIntVolatile(SharedRegion.MAGIC_OFFSET, SharedRegion.MAGIC);
+	}
+
+    /**
+     * Evaluates the agents on the attached workers and assigns the returned fitness values.
+     * Blocks until every agent has been evaluated or has failed.
+     * @param agents Agents to evaluate, at most {@code capacity} of them.
+     * @throws IllegalArgumentException If there are more agents than the capacity or their networks do not fit in the region.
+     * @throws IllegalStateException If the evaluation of some agents failed in a worker, which leaves their fitness
+     * unchanged, or if no worker made progress within the progress timeout.
+     */
+	public void evaluate(Agent[] agents) {
+		if (agents.length > capacity)
+			throw new IllegalArgumentException("batch of " + agents.length + " exceeds capacity " + capacity);
+
+		ByteBuffer buffer = region.buffer();
+		CompiledNetwork[] networks = new CompiledNetwork[agents.length];
+		long end = dataOffset;
+		for (int i = 0; i < agents.length; i++) {
+			networks[i] = CompiledNetwork.compile(agents[i].getGenome());
+			end += (networks[i].getEncodedSize() + 7) & ~7;
+		}
+		if (end > buffer.capacity())
+			throw new IllegalArgumentException("networks exceed the shared region size " + buffer.capacity());
+
+		long target = region.getLongVolatile(SharedRegion.COMPLETED_OFFSET) + agents.length;
+		int position = dataOffset;
+		for (int i = 0; i < agents.length; i++) {
+			CompiledNetwork network = networks[i];
+			int length = network.getEncodedSize();
+			buffer.position(position);
+			network.writeTo(buffer);
+
+			int task = SharedRegion.taskOffset(tail+i, capacity);
+			buffer.putLong(task + SharedRegion.TASK_NETWORK_OFFSET, position);
+			buffer.putInt(task + SharedRegion.TASK_NETWORK_LENGTH, length);
+			buffer.putDouble(task + SharedRegion.TASK_FITNESS, Double.NaN);
+			long attempt = SharedRegion.attempt(region.getLongVolatile(task + SharedRegion.TASK_STATUS)) + 1;
+			region.setLongVolatile(task + SharedRegion.TASK_STATUS, SharedRegion.status(attempt, SharedRegion.PUBLISHED));
+
+			position += (length + 7) & ~7;
+		}
+
+		region.setLongVolatile(SharedRegion.TAIL_OFFSET, tail + agents.length);
+
+		long lastProgress = System.nanoTime(), completed = -1, head = -1;
+		for (int idleRounds = 0; region.getLongVolatile(SharedRegion.COMPLETED_OFFSET) < target; idleRounds++) {
+			SharedRegion.idle(idleRounds);
+			if (idleRounds % IDLE_ROUNDS_PER_CHECK != 0)
+				continue;
+
+			long now = System.nanoTime();
+			if (region.getLongVolatile(SharedRegion.COMPLETED_OFFSET) != completed || region.getLongVolatile(SharedRegion.HEAD_OFFSET) != head) {
+				completed = region.getLongVolatile(SharedRegion.COMPLETED_OFFSET);
+				head = region.getLongVolatile(SharedRegion.HEAD_OFFSET);
+				lastProgress = now;
+			}
+			if (requeueStaleClaims(agents.length, now))
+				lastProgress = now;
+			if (now - lastProgress > progressTimeoutNanos) {
+				abandon(agents.length);
+				tail += agents.length;
+				throw new IllegalStateException("No worker progress for " + progressTimeoutNanos/1_000_000 + " ms");
+			}
+		}
+
+		ArrayList<Integer> failed = new ArrayList<> ();
+		for (int i = 0; i < agents.length; i++) {
+			int task = SharedRegion.taskOffset(tail+i, capacity);
+			if (SharedRegion.state(region.getLongVolatile(task + SharedRegion.TASK_STATUS)) == SharedRegion.DONE)
+				agents[i].setFitness(buffer.getDouble(task + SharedRegion.TASK_FITNESS));
+			else failed.add(i);
+		}
+		tail += agents.length;
+		if (!failed.isEmpty())
+			throw new IllegalStateException("Evaluation failed in a worker for agents " + failed);
+	}
+
+    /**
+     * Publishes again the tasks whose claim is older than the claim timeout.
+     * @return True if a new claim was seen.
+     */
+	private boolean requeueStaleClaims(int tasks, long now) {
+		boolean claimed = false;
+		for (int i = 0; i < tasks; i++) {
+			int slot = (int)((tail+i) % capacity);
+			int task = SharedRegion.taskOffset(tail+i, capacity);
+			long status = region.getLongVolatile(task + SharedRegion.TASK_STATUS);
+			if (SharedRegion.state(status) != SharedRegion.CLAIMED)
+				continue;
+
+			long attempt = SharedRegion.attempt(status);
+			if (claimAttempt[slot] != attempt) {
+				claimAttempt[slot] = attempt;
+				claimSeen[slot] = now;
+				claimed = true;
+			}else if (now - claimSeen[slot] > claimTimeoutNanos)
+				region.compareAndSetLong(task + SharedRegion.TASK_STATUS, status, SharedRegion.status(attempt+1, SharedRegion.PUBLISHED));
+		}
+		return claimed;
+	}
+
+    /**
+     * Marks every unfinished task of the batch as failed, so late workers cannot complete them.
+     */
+	private void abandon(int tasks) {
+		for (int i = 0; i < tasks; i++) {
+			int task = SharedRegion.taskOffset(tail+i, capacity);
+			for (int idleRounds = 0; ; idleRounds++) {
+				long status = region.getLongVolatile(task + SharedRegion.TASK_STATUS);
+				int state = SharedRegion.state(status);
+				if (state == SharedRegion.DONE || state == SharedRegion.FAILED)
+					break;
+				if (state != SharedRegion.COMPLETING && region.compareAndSetLong(task + SharedRegion.TASK_STATUS, status,
+						SharedRegion.status(SharedRegion.attempt(status)+1, SharedRegion.FAILED))) {
+					region.getAndAddLong(SharedRegion.COMPLETED_OFFSET, 1);
+					break;
+				}
+				SharedRegion.idle(idleRounds);
+			}
+		}
+	}
+
+    /**
+     * Signals the workers to stop and releases the mapped file.
+     */
+	@Override
+	public void close() throws IOException {
+		region.setIntVolatile(SharedRegion.CLOSED_OFFSET, 1);
+		region.close();
+	}
+
+}
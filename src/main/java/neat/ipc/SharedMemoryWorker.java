@@ -0,0 +1,131 @@
+package main.java.neat.ipc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import main.java.neat.core.CompiledNetwork;
+
+/**
+ * Worker side of local multi-process fitness evaluation.
+ *
+ * <p>A worker maps the file created by a {@link SharedMemoryEvaluator}, claims published
+ * tasks from the lock-free ring, reads each {@link CompiledNetwork} straight out of the
+ * mapped region, runs the {@link NetworkEvaluator} and writes the fitness back in place.
+ * Any number of workers, in any number of processes, may attach to the same file.
+ *
+ * <p>Example usage (in the simulator process):
+ * <pre>
+ * new SharedMemoryWorker(path, network -&gt; simulator.run(network)).run();
+ * </pre>
+ *
+ * <p>If the evaluator throws, the task is reported as failed so the coordinator is never
+ * left waiting, and the coordinator's {@link SharedMemoryEvaluator#evaluate} throws for the
+ * batch. An {@link Exception} leaves the worker running; an {@link Error} is rethrown after the
+ * task is reported, ending the worker. When the ring is empty, a worker also takes over tasks
+ * the coordinator published again because their worker stopped responding.
+ *
+ * @author Taher Joudeh
+ */
+public class SharedMemoryWorker implements Runnable {
+
+	private final SharedRegion region;
+	private final NetworkEvaluator evaluator;
+	private final int capacity;
+
+    /**
+     * Maps an existing shared region.
+     * @param file Path of the file created by the coordinator.
+     * @param evaluator Fitness function applied to each claimed network.
+     * @throws IOException If the file cannot be mapped or is not a shared evaluation region.
+     */
+	public SharedMemoryWorker(Path file, NetworkEvaluator evaluator) throws IOException {
+		this.region = SharedRegion.open(file);
+		this.evaluator = evaluator;
+
+		if (region.getIntVolatile(SharedRegion.MAGIC_OFFSET) != SharedRegion.MAGIC
+				|| region.buffer().getInt(SharedRegion.VERSION_OFFSET) != SharedRegion.VERSION) {
+			region.close();
+			throw new IOException("Not a shared evaluation region: " + file);
+		}
+		this.capacity = region.buffer().getInt(SharedRegion.CAPACITY_OFFSET);
+	}
+
+    /**
+     * Claims and evaluates tasks until the coordinator closes the region.
+     * @throws UncheckedIOException If the region cannot be released.
+     */
+	@Override
+	public void run() {
+		try {
+			int idleRounds = 0;
+			while (region.getIntVolatile(SharedRegion.CLOSED_OFFSET) == 0) {
+				long head = region.getLongVolatile(SharedRegion.HEAD_OFFSET);
+				boolean processed = false;
+				if (head < region.getLongVolatile(SharedRegion.TAIL_OFFSET)) {
+					if (region.compareAndSetLong(SharedRegion.HEAD_OFFSET, head, head+1))
+						processed = claim(SharedRegion.taskOffset(head, capacity));
+				}else processed = claimRequeued();
+
+				if (processed)
+					idleRounds = 0;
+				else SharedRegion.idle(idleRounds++);
+			}
+		}finally {
+			try {
+				region.close();
+			} catch (IOException e) { throw new UncheckedIOException(e); }
+		}
+	}
+
+    /**
+     * Claims and processes the first task published again by the coordinator, if any.
+     */
+	private boolean claimRequeued() {
+		for (int i = 0; i < capacity; i++)
+			if (claim(SharedRegion.taskOffset(i, capacity)))
+				return true;
+		return false;
+	}
+
+    /**
+     * Claims and processes a task if it is published.
+     * @return True if the task was claimed.
+     */
+	private boolean claim(int task) {
+		long status = region.getLongVolatile(task + SharedRegion.TASK_STATUS);
+		if (SharedRegion.state(status) != SharedRegion.PUBLISHED)
+			return false;
+		long claimed = SharedRegion.status(SharedRegion.attempt(status), SharedRegion.CLAIMED);
+		if (!region.compareAndSetLong(task + SharedRegion.TASK_STATUS, status, claimed))
+			return false;
+		process(task, claimed);
+		return true;
+	}
+
+	private void process(int task, long claimed) {
+		ByteBuffer buffer = region.buffer();
+		ByteBuffer view = buffer.duplicate().order(buffer.order());
+		view.position((int) buffer.getLong(task + SharedRegion.TASK_NETWORK_OFFSET));
+
+		double fitness = Double.NaN;
+		Throwable failure = null;
+		try {
+			fitness = evaluator.evaluate(CompiledNetwork.readFrom(view));
+		} catch (Throwable e) {
+			failure = e;
+		}
+
+		long attempt = SharedRegion.attempt(claimed);
+		if (region.compareAndSetLong(task + SharedRegion.TASK_STATUS, claimed, SharedRegion.status(attempt, SharedRegion.COMPLETING))) {
+			buffer.putDouble(task + SharedRegion.TASK_FITNESS, fitness);
+			region.setLongVolatile(task + SharedRegion.TASK_STATUS,
+					SharedRegion.status(attempt, failure == null ? SharedRegion.DONE : SharedRegion.FAILED));
+			region.getAndAddLong(SharedRegion.COMPLETED_OFFSET, 1);
+		}
+		if (failure instanceof Error)
+			throw (Error) failure;
+	}
+
+}
@@ -0,0 +1,134 @@
+package main.java.neat.ipc;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Layout and atomic accessors of the memory-mapped region shared by a
+ * {@link SharedMemoryEvaluator} and its {@link SharedMemoryWorker}s.
+ *
+ * <p>Region layout (native byte order):
+ * <pre>
+ * [0]    int  magic          [4]  int version
+ * [8]    int  capacity       [12] int closed flag
+ * [64]   long head           next task sequence to be claimed by a worker
+ * [128]  long tail           end of the published task sequences
+ * [192]  long completed      number of finished tasks
+ * [256]  task table          capacity entries of TASK_SIZE bytes
+ * [...]  network data        compiled networks written back to back
+ * </pre>
+ * Each task entry holds the offset (long) and length (int) of its network, the fitness
+ * (double) written back by the worker and a status word (long). The head, tail and completed
+ * counters sit on separate cache lines and form a single-producer, multi-consumer ring:
+ * the coordinator publishes by advancing the tail, workers claim by CAS on the head.
+ *
+ * <p>The status word combines a task state with an attempt number that grows with every
+ * publication of the slot, so a worker holding a stale claim can never complete a task
+ * that was republished. A worker takes a task from PUBLISHED to CLAIMED, then to
+ * COMPLETING while it writes the fitness, then to DONE or FAILED; the coordinator may take
+ * a CLAIMED task back to PUBLISHED under a new attempt number when its worker is presumed
+ * dead. DONE and FAILED are final and counted once in the completed counter.
+ *
+ * @author Taher Joudeh
+ */
+final class SharedRegion {
+
+	static final int MAGIC = 0x4E454154;
+	static final int VERSION = 2;
+
+	static final int MAGIC_OFFSET = 0;
+	static final int VERSION_OFFSET = 4;
+	static final int CAPACITY_OFFSET = 8;
+	static final int CLOSED_OFFSET = 12;
+	static final int HEAD_OFFSET = 64;
+	static final int TAIL_OFFSET = 128;
+	static final int COMPLETED_OFFSET = 192;
+	static final int TASKS_OFFSET = 256;
+
+	static final int TASK_SIZE = 32;
+	static final int TASK_NETWORK_OFFSET = 0;
+	static final int TASK_NETWORK_LENGTH = 8;
+	static final int TASK_FITNESS = 16;
+	static final int TASK_STATUS = 24;
+
+	static final int PUBLISHED = 0, CLAIMED = 1, COMPLETING = 2, DONE = 3, FAILED = 4;
+	private static final int STATE_BITS = 3;
+
+	private static final int SPINS_BEFORE_PARKING = 1000;
+	private static final long PARK_NANOS = 50_000;
+
+	private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+	private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+
+	private SharedRegion(FileChannel channel, MappedByteBuffer buffer) {
+		this.channel = channel;
+		this.buffer = buffer;
+		this.buffer.order(ByteOrder.nativeOrder());
+	}
+
+	static SharedRegion create(Path file, long size) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		return new SharedRegion(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+	}
+
+	static SharedRegion open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		return new SharedRegion(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+	}
+
+	static int dataOffset(int capacity) {
+		return TASKS_OFFSET + capacity*TASK_SIZE;
+	}
+
+	static int taskOffset(long sequence, int capacity) {
+		return TASKS_OFFSET + (int)(sequence % capacity)*TASK_SIZE;
+	}
+
+	static long status(long attempt, int state) {
+		return attempt << STATE_BITS | state;
+	}
+
+	static long attempt(long status) {
+		return status >>> STATE_BITS;
+	}
+
+	static int state(long status) {
+		return (int) status & ((1 << STATE_BITS) - 1);
+	}
+
+	MappedByteBuffer buffer() { return buffer; }
+
+	int getIntVolatile(int offset) { return (int) INT.getVolatile(buffer, offset); }
+	void setIntVolatile(int offset, int value) { INT.setVolatile(buffer, offset, value); }
+
+	long getLongVolatile(int offset) { return (long) LONG.getVolatile(buffer, offset); }
+	void setLongVolatile(int offset, long value) { LONG.setVolatile(buffer, offset, value); }
+	boolean compareAndSetLong(int offset, long expected, long value) { return LONG.compareAndSet(buffer, offset, expected, value); }
+	long getAndAddLong(int offset, long delta) { return (long) LONG.getAndAdd(buffer, offset, delta); }
+
+	/**
+	 * Backs off after an unsuccessful poll: busy-spins first, then parks briefly.
+	 * @param idleRounds Number of consecutive unsuccessful polls.
+	 */
+	static void idle(int idleRounds) {
+		if (idleRounds < SPINS_BEFORE_PARKING)
+			Thread.onSpinWait();
+		else LockSupport.parkNanos(PARK_NANOS);
+	}
+
+	void close() throws IOException {
+		channel.close();
+	}
+
+}
@@ -0,0 +1,61 @@
+package main.java.neat.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering one phase of {@code Neat.evolve}, with the same phases
+ * as {@code GenerationEvent.PHASE}. Disabled by default; enable it with a JFR settings file
+ * or {@code -XX:StartFlightRecording:settings=...}.
+ * 
+ * @author Taher Joudeh
+ */
+@Name("neat.EvolvePhase")
+@Label("Evolve Phase")
+@Description("One phase of an evolutionary generation")
+@Category({"NEAT", "Evolution"})
+@Enabled(false)
+@StackTrace(false)
+public final class EvolvePhaseEvent extends Event {
+
+	@Label("Generation")
+	public int generation;
+	
+	@Label("Phase")
+	public String phase;
+	
+    /**
+     * Starts timing the first phase of a generation.
+     * @param generation Generation being evolved.
+     * @return A begun event, or null if the event is disabled.
+     */
+	public static EvolvePhaseEvent start(int generation) {
+		EvolvePhaseEvent event = new EvolvePhaseEvent();
+		if (!event.isEnabled())
+			return null;
+		event.generation = generation;
+		event.begin();
+		return event;
+	}
+	
+    /**
+     * Commits this event as the given phase and starts timing the next one.
+     * @param phase Name of the phase that just ended.
+     * @return A begun event for the next phase.
+     */
+	public EvolvePhaseEvent next(String phase) {
+		this.phase = phase;
+		commit();
+		
+		EvolvePhaseEvent next = new EvolvePhaseEvent();
+		next.generation = generation;
+		next.begin();
+		return next;
+	}
+	
+}
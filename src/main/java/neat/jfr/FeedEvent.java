@@ -0,0 +1,55 @@
+package main.java.neat.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a sampled forward pass of a genome. Only one call in
+ * {@value #SAMPLE_INTERVAL} per genome is considered, so the event can stay enabled in
+ * production. Disabled by default.
+ * 
+ * @author Taher Joudeh
+ */
+@Name("neat.Feed")
+@Label("Feed")
+@Description("Sampled forward pass of a genome")
+@Category({"NEAT", "Inference"})
+@Enabled(false)
+@StackTrace(false)
+public final class FeedEvent extends Event {
+
+	/**
+	 * Number of feed calls per genome between two sampled calls (a power of two).
+	 */
+	public static final int SAMPLE_INTERVAL = 1024;
+	
+	@Label("Nodes")
+	public int nodes;
+	
+	@Label("Connections")
+	public int connections;
+	
+	@Label("Layers")
+	public int layers;
+	
+    /**
+     * Starts timing a feed call if it is sampled.
+     * @param calls Number of feed calls made on the genome so far, including this one.
+     * @return A begun event, or null if the call is not sampled or the event is disabled.
+     */
+	public static FeedEvent sample(int calls) {
+		if ((calls & (SAMPLE_INTERVAL-1)) != 0)
+			return null;
+		FeedEvent event = new FeedEvent();
+		if (!event.isEnabled())
+			return null;
+		event.begin();
+		return event;
+	}
+	
+}
@@ -0,0 +1,41 @@
+package main.java.neat.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering the reproduction of one species' offspring.
+ * Disabled by default.
+ * 
+ * @author Taher Joudeh
+ */
+@Name("neat.Reproduction")
+@Label("Reproduction")
+@Description("Offspring produced by one species")
+@Category({"NEAT", "Evolution"})
+@Enabled(false)
+@StackTrace(false)
+public final class ReproductionEvent extends Event {
+
+	@Label("Generation")
+	public int generation;
+	
+	@Label("Species")
+	public int species;
+	
+	@Label("Offspring")
+	public int offspring;
+	
+	@Label("Crossovers")
+	@Description("Offspring created by crossover of two distinct parents")
+	public int crossovers;
+	
+	@Label("Selection Pool")
+	public int selectionPool;
+	
+}
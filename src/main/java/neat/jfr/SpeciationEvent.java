@@ -0,0 +1,41 @@
+package main.java.neat.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering one speciation pass over the population.
+ * Disabled by default.
+ * 
+ * @author Taher Joudeh
+ */
+@Name("neat.Speciation")
+@Label("Speciation")
+@Description("Assignment of the population to species")
+@Category({"NEAT", "Evolution"})
+@Enabled(false)
+@StackTrace(false)
+public final class SpeciationEvent extends Event {
+
+	@Label("Generation")
+	public int generation;
+	
+	@Label("Agents")
+	public int agents;
+	
+	@Label("Species")
+	public int species;
+	
+	@Label("Distance Calls")
+	@Description("Number of compatibility distance computations")
+	public long distanceCalls;
+	
+	@Label("Compatibility Threshold")
+	public double compatibilityThreshold;
+	
+}
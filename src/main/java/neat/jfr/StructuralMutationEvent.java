@@ -0,0 +1,37 @@
+package main.java.neat.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a structural mutation that changed a genome.
+ * Disabled by default.
+ * 
+ * @author Taher Joudeh
+ */
+@Name("neat.StructuralMutation")
+@Label("Structural Mutation")
+@Description("Addition or deletion of a node or connection")
+@Category({"NEAT", "Mutation"})
+@Enabled(false)
+@StackTrace(false)
+public final class StructuralMutationEvent extends Event {
+
+	@Label("Mutation")
+	@Description("ADD_CONNECTION, ADD_NODE, DELETE_CONNECTION or DELETE_NODE")
+	public String mutation;
+	
+	@Label("Nodes")
+	@Description("Number of nodes after the mutation")
+	public int nodes;
+	
+	@Label("Connections")
+	@Description("Number of connections after the mutation")
+	public int connections;
+	
+}
@@ -0,0 +1,67 @@
+package main.java.neat.metrics;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed, exponentially growing buckets
+ * (1 microsecond to about 67 seconds, doubling). Any number of threads may record concurrently.
+ * A rendered histogram takes its count from the snapshot of its buckets, so the +Inf bucket and
+ * the count always agree; the sum may include observations recorded during the snapshot.
+ * 
+ * @author Taher Joudeh
+ */
+final class LatencyHistogram {
+
+	private static final int BUCKETS = 27;
+	private static final long FIRST_BOUND_NANOS = 1_000;
+	
+	/**
+	 * Upper bounds of the buckets in seconds, as exact plain decimals.
+	 */
+	private static final String[] BOUNDS = new String[BUCKETS];
+	
+	static {
+		for (int i = 0; i < BUCKETS; i++)
+			BOUNDS[i] = BigDecimal.valueOf(FIRST_BOUND_NANOS << i, 9).stripTrailingZeros().toPlainString();
+	}
+	
+	private final LongAdder[] counts = new LongAdder[BUCKETS+1];
+	private final LongAdder sumNanos = new LongAdder();
+	
+	LatencyHistogram() {
+		for (int i = 0; i < counts.length; i++)
+			counts[i] = new LongAdder();
+	}
+	
+	void record(long nanos) {
+		int bucket = 0;
+		long bound = FIRST_BOUND_NANOS;
+		while (bucket < BUCKETS && nanos > bound) {
+			bucket++;
+			bound <<= 1;
+		}
+		counts[bucket].increment();
+		sumNanos.add(nanos);
+	}
+	
+	void write(StringBuilder out, String name, String help) {
+		long[] counts = new long[BUCKETS+1];
+		for (int i = 0; i <= BUCKETS; i++)
+			counts[i] = this.counts[i].sum();
+		long sumNanos = this.sumNanos.sum();
+		
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(" histogram\n");
+		long cumulative = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			cumulative += counts[i];
+			out.append(name).append("_bucket{le=\"").append(BOUNDS[i]).append("\"} ").append(cumulative).append('\n');
+		}
+		cumulative += counts[BUCKETS];
+		out.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+		out.append(name).append("_sum ").append(MetricsExporter.format(sumNanos/1e9)).append('\n');
+		out.append(name).append("_count ").append(cumulative).append('\n');
+	}
+	
+}
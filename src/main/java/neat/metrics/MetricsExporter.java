@@ -0,0 +1,224 @@
+package main.java.neat.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import main.java.neat.core.Agent;
+import main.java.neat.core.EvolutionListener;
+import main.java.neat.core.GenerationEvent;
+
+/**
+ * Embedded HTTP endpoint publishing evolution metrics in the Prometheus text exposition format.
+ * 
+ * <p>The exporter listens to {@link GenerationEvent}s for generation-level metrics (species
+ * count, compatibility threshold, fitness, genome size distributions) and counts evaluations
+ * reported by the fitness code. Evaluation threads may report concurrently.
+ * 
+ * <p>Example usage:
+ * <pre>
+ * try (MetricsExporter metrics = new MetricsExporter(9400)) {
+ *     neat.addEvolutionListener(metrics);
+ *     while (!neat.isTerminated()) {
+ *         for (Agent agent: neat.getPopulation())
+ *             metrics.evaluate(agent, a -&gt; simulate(a));
+ *         neat.evolve(false);
+ *     }
+ * }
+ * </pre>
+ * Metrics are served at {@code http://host:port/metrics}.
+ * 
+ * @author Taher Joudeh
+ */
+public class MetricsExporter implements EvolutionListener, Closeable {
+
+	private static final double[] QUANTILES = {0, 0.5, 0.9, 0.99, 1};
+	
+	private final HttpServer server;
+	
+	private final LongAdder evaluations = new LongAdder();
+	private final LatencyHistogram evaluationLatency = new LatencyHistogram();
+	private final LongAdder generations = new LongAdder();
+	
+	private volatile Snapshot snapshot;
+	private long lastEventNanos;
+	private long lastEvaluations;
+	
+	/**
+	 * Generation-level values, replaced as a whole after every generation.
+	 */
+	private static final class Snapshot {
+		private final GenerationEvent event;
+		private final double generationsPerSecond, evaluationsPerSecond;
+		private final int[] nodeCounts, connectionCounts;
+		
+		private Snapshot(GenerationEvent event, double generationsPerSecond, double evaluationsPerSecond) {
+			this.event = event;
+			this.generationsPerSecond = generationsPerSecond;
+			this.evaluationsPerSecond = evaluationsPerSecond;
+			nodeCounts = event.getNodeCounts();
+			connectionCounts = event.getConnectionCounts();
+			Arrays.sort(nodeCounts);
+			Arrays.sort(connectionCounts);
+		}
+	}
+	
+    /**
+     * Starts serving metrics on all interfaces.
+     * @param port Port to listen on, or 0 for an ephemeral port (see {@link #getPort()}).
+     * @throws IOException If the server cannot be started.
+     */
+	public MetricsExporter(int port) throws IOException {
+		this(new InetSocketAddress(port));
+	}
+	
+    /**
+     * Starts serving metrics.
+     * @param address Address to listen on.
+     * @throws IOException If the server cannot be started.
+     */
+	public MetricsExporter(InetSocketAddress address) throws IOException {
+		server = HttpServer.create(address, 0);
+		server.createContext("/metrics", this::handle);
+		server.start();
+	}
+	
+    /**
+     * @return The port the exporter listens on.
+     */
+	public int getPort() { return server.getAddress().getPort(); }
+	
+    /**
+     * Records one fitness evaluation. Safe to call from any thread.
+     * @param durationNanos Duration of the evaluation in nanoseconds.
+     */
+	public void recordEvaluation(long durationNanos) {
+		evaluations.increment();
+		evaluationLatency.record(durationNanos);
+	}
+	
+    /**
+     * Evaluates an agent, assigns its fitness and records the evaluation. Safe to call from any thread.
+     * @param agent Agent to evaluate.
+     * @param fitnessFunction Fitness function.
+     * @return The assigned fitness.
+     */
+	public double evaluate(Agent agent, ToDoubleFunction<Agent> fitnessFunction) {
+		long start = System.nanoTime();
+		double fitness = fitnessFunction.applyAsDouble(agent);
+		recordEvaluation(System.nanoTime() - start);
+		agent.setFitness(fitness);
+		return fitness;
+	}
+	
+	@Override
+	public void generationEvolved(GenerationEvent event) {
+		long now = System.nanoTime();
+		long evaluated = evaluations.sum();
+		double generationsPerSecond = 0, evaluationsPerSecond = 0;
+		if (lastEventNanos != 0) {
+			double seconds = (now - lastEventNanos)/1e9;
+			generationsPerSecond = 1/seconds;
+			evaluationsPerSecond = (evaluated - lastEvaluations)/seconds;
+		}
+		lastEventNanos = now;
+		lastEvaluations = evaluated;
+		
+		generations.increment();
+		snapshot = new Snapshot(event, generationsPerSecond, evaluationsPerSecond);
+	}
+	
+    /**
+     * Renders all metrics in the Prometheus text exposition format.
+     * @return The metrics page.
+     */
+	public String scrape() {
+		StringBuilder out = new StringBuilder(4096);
+		
+		counter(out, "neat_generations_total", "Generations evolved.", generations.sum());
+		counter(out, "neat_evaluations_total", "Fitness evaluations recorded.", evaluations.sum());
+		evaluationLatency.write(out, "neat_evaluation_duration_seconds", "Duration of fitness evaluations.");
+		
+		Snapshot s = snapshot;
+		if (s != null) {
+			GenerationEvent event = s.event;
+			gauge(out, "neat_generation", "Last evolved generation.", event.getGeneration());
+			gauge(out, "neat_generations_per_second", "Generation rate over the last generation.", s.generationsPerSecond);
+			gauge(out, "neat_evaluations_per_second", "Evaluation rate over the last generation.", s.evaluationsPerSecond);
+			gauge(out, "neat_species", "Number of species in the last generation.", event.getNumberOfSpecies());
+			gauge(out, "neat_compatibility_threshold", "Current compatibility threshold.", event.getCompatibilityThreshold());
+			gauge(out, "neat_population_fitness", "Mean fitness of the last generation.", event.getPopulationFitness());
+			gauge(out, "neat_best_fitness", "Best fitness of the last generation.", event.getBestFitness());
+			gauge(out, "neat_evolve_duration_seconds", "Wall-clock time of the last evolve call.", event.getTotalWallNanos()/1e9);
+			summary(out, "neat_genome_nodes", "Nodes per genome in the last generation.", s.nodeCounts);
+			summary(out, "neat_genome_connections", "Connections per genome in the last generation.", s.connectionCounts);
+		}
+		return out.toString();
+	}
+	
+	private static void counter(StringBuilder out, String name, String help, long value) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(" counter\n");
+		out.append(name).append(' ').append(value).append('\n');
+	}
+	
+	private static void gauge(StringBuilder out, String name, String help, double value) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(" gauge\n");
+		out.append(name).append(' ').append(format(value)).append('\n');
+	}
+	
+	private static void summary(StringBuilder out, String name, String help, int[] sorted) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(" summary\n");
+		long sum = 0;
+		for (int value: sorted)
+			sum += value;
+		if (sorted.length > 0)
+			for (double q: QUANTILES)
+				out.append(name).append("{quantile=\"").append(format(q)).append("\"} ")
+					.append(sorted[(int) Math.min(sorted.length-1, Math.floor(q*sorted.length))]).append('\n');
+		out.append(name).append("_sum ").append(sum).append('\n');
+		out.append(name).append("_count ").append(sorted.length).append('\n');
+	}
+	
+    /**
+     * Formats a sample value or label: {@code +Inf}, {@code -Inf} and {@code NaN} as spelled by
+     * Prometheus, integral values without a fraction, other values as Java formats doubles.
+     */
+	static String format(double value) {
+		if (Double.isNaN(value))
+			return "NaN";
+		if (Double.isInfinite(value))
+			return value > 0 ? "+Inf" : "-Inf";
+		if (value == Math.rint(value) && Math.abs(value) < 1e15)
+			return Long.toString((long) value);
+		return Double.toString(value);
+	}
+	
+	private void handle(HttpExchange exchange) throws IOException {
+		byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+	
+    /**
+     * Stops the HTTP server.
+     */
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+	
+}
@@ -0,0 +1,134 @@
+package main.java.neat.serving;
+
+import main.java.neat.core.Agent;
+import main.java.neat.core.CompiledNetwork;
+import main.java.neat.core.EvolutionListener;
+import main.java.neat.core.GenerationEvent;
+import main.java.neat.core.Genome;
+import main.java.neat.core.Neat;
+
+/**
+ * Publishes the champion of a running {@link Neat} to reader threads without locking.
+ *
+ * <p>After every generation the evolution thread compiles the new {@link Neat#getBest()} into
+ * an immutable {@link Champion} and publishes it with a single volatile write; the network is
+ * only recompiled when the best agent changed. Readers call {@link #get()} and always see a
+ * complete, consistent champion, while the mutable agents inside the run are never touched
+ * outside the evolution thread.
+ *
+ * <p>Example usage:
+ * <pre>
+ * ChampionHolder champion = new ChampionHolder(neat);
+ * InferenceServer server = new InferenceServerBuilder(champion).build();
+ * while (true) {
+ *     evaluate(neat.getPopulation());
+ *     neat.evolve(false); // the server picks up the new champion after this call
+ * }
+ * </pre>
+ *
+ * @author Taher Joudeh
+ */
+public final class ChampionHolder implements EvolutionListener {
+
+	/**
+	 * Immutable snapshot of a published champion.
+	 */
+	public static final class Champion {
+
+		private final CompiledNetwork network;
+		private final double fitness;
+		private final int generation;
+		private final long version;
+
+		private Champion(CompiledNetwork network, double fitness, int generation, long version) {
+			this.network = network;
+			this.fitness = fitness;
+			this.generation = generation;
+			this.version = version;
+		}
+
+	    /**
+	     * @return Compiled network of the champion; safe to share between threads.
+	     */
+		public CompiledNetwork getNetwork() { return network; }
+
+	    /**
+	     * @return Fitness of the champion when it was published.
+	     */
+		public double getFitness() { return fitness; }
+
+	    /**
+	     * @return Generation the champion was published after.
+	     */
+		public int getGeneration() { return generation; }
+
+	    /**
+	     * @return Number of champions published before this one.
+	     */
+		public long getVersion() { return version; }
+
+	}
+
+	private final Neat neat;
+	private volatile Champion champion;
+	private Agent publishedBest;
+
+    /**
+     * Constructs a holder that follows a run. The holder registers itself as an
+     * {@link EvolutionListener} of the run and publishes the run's current best agent, if any.
+     * @param neat The run to follow.
+     */
+	public ChampionHolder(Neat neat) {
+		this.neat = neat;
+		if (neat.getBest() != null)
+			publishBest(neat.getGeneration());
+		neat.addEvolutionListener(this);
+	}
+
+    /**
+     * Constructs a holder with a fixed champion, published as generation 0.
+     * @param network The champion's network.
+     */
+	public ChampionHolder(CompiledNetwork network) {
+		this.neat = null;
+		publish(network, Double.NaN, 0);
+	}
+
+    /**
+     * @return The latest published champion, or null if none was published yet.
+     */
+	public Champion get() { return champion; }
+
+    /**
+     * Publishes a new champion. Only one thread may publish; any thread may read.
+     * @param network The champion's network.
+     * @param fitness The champion's fitness.
+     * @param generation The generation the champion belongs to.
+     */
+	public void publish(CompiledNetwork network, double fitness, int generation) {
+		Champion previous = champion;
+		champion = new Champion(network, fitness, generation, previous == null ? 0 : previous.version+1);
+	}
+
+    /**
+     * Compiles and publishes a genome as the new champion. Only one thread may publish; any thread may read.
+     * @param genome The champion's genome, which must not be modified concurrently.
+     * @param fitness The champion's fitness.
+     * @param generation The generation the champion belongs to.
+     */
+	public void publish(Genome genome, double fitness, int generation) {
+		publish(CompiledNetwork.compile(genome), fitness, generation);
+	}
+
+	@Override
+	public void generationEvolved(GenerationEvent event) {
+		if (neat != null && neat.getBest() != publishedBest)
+			publishBest(event.getGeneration());
+	}
+
+	private void publishBest(int generation) {
+		publishedBest = neat.getBest();
+		publish(publishedBest.getGenome(), publishedBest.getFitness(), generation);
+	}
+
+}
@@ -0,0 +1,361 @@
+package main.java.neat.serving;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import main.java.neat.core.CompiledNetwork;
+import main.java.neat.core.Genome;
+import main.java.neat.core.ParallelNetwork;
+import main.java.neat.io.GenomeFileHandler;
+
+/**
+ * Thread-pooled inference runtime serving the champion of a {@link ChampionHolder}.
+ *
+ * <p>Requests are single input rows. They are queued and picked up by worker threads,
+ * each of which takes every request that is already waiting (up to the maximum batch size)
+ * and evaluates them together with {@link CompiledNetwork#feed(double[][], double[][], int, double[])}.
+ * Batches therefore adapt to the load: an idle server evaluates each request alone without
+ * added latency, a busy one coalesces concurrent requests into larger batches. An optional
+ * batch delay lets a worker wait briefly for a batch to fill. A request evaluated alone on a
+ * network with wide layers is spread over the common fork-join pool with a {@link ParallelNetwork},
+ * so a lightly loaded server still uses several cores for a single large network.
+ *
+ * <p>Every request is evaluated from zeroed node values, so recurrent connections carry no
+ * state between requests. The compiled network is immutable and every worker owns its state
+ * array, so no lock is taken on the evaluation path. Every batch reads the holder's current
+ * champion once, so a champion published while the server runs is picked up by the next
+ * batch, and all rows of a batch are evaluated by the same network.
+ *
+ * <p>Example usage:
+ * <pre>
+ * try (InferenceServer server = new InferenceServerBuilder(neat.getBest().getGenome())
+ *         .setThreads(4)
+ *         .setMaxBatchSize(64)
+ *         .setHttpPort(8080)
+ *         .build()) {
+ *     double[] output = server.predict(input);
+ * }
+ * </pre>
+ * Over HTTP, {@code POST /predict} takes one comma-separated input row per line and answers
+ * with one comma-separated output row per line.
+ *
+ * @author Taher Joudeh
+ */
+public class InferenceServer implements Closeable {
+
+	protected ChampionHolder champion;
+	protected int threads;
+	protected int maxBatchSize;
+	protected long batchDelayNanos;
+	protected int queueCapacity;
+	protected int parallelThreshold;
+	protected InetSocketAddress httpAddress;
+
+	private ArrayBlockingQueue<Request> queue;
+	private ExecutorService workers;
+	private HttpServer httpServer;
+	private volatile boolean closed;
+
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+
+	/**
+	 * A queued input row and the future completed with its output.
+	 */
+	private static final class Request {
+		private final double[] input;
+		private final CompletableFuture<double[]> output = new CompletableFuture<> ();
+
+		private Request(double[] input) {
+			this.input = input;
+		}
+	}
+
+	protected InferenceServer(ChampionHolder champion) {
+		this.champion = champion;
+		threads = Runtime.getRuntime().availableProcessors();
+		maxBatchSize = 64;
+		queueCapacity = 65536;
+		parallelThreshold = ParallelNetwork.DEFAULT_THRESHOLD;
+	}
+
+    /**
+     * Starts the worker threads and, if an address was set, the HTTP endpoint.
+     * @throws IOException If the HTTP server cannot be started.
+     */
+	protected void start() throws IOException {
+		queue = new ArrayBlockingQueue<> (queueCapacity);
+		workers = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "neat-inference");
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (int i = 0; i < threads; i++)
+			workers.execute(this::work);
+
+		if (httpAddress != null) {
+			httpServer = HttpServer.create(httpAddress, 0);
+			httpServer.createContext("/predict", this::handle);
+			httpServer.setExecutor(Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable, "neat-inference-http");
+				thread.setDaemon(true);
+				return thread;
+			}));
+			httpServer.start();
+		}
+	}
+
+    /**
+     * @return The holder of the served champion.
+     */
+	public ChampionHolder getChampionHolder() { return champion; }
+
+    /**
+     * @return The port of the HTTP endpoint, or -1 if it is not enabled.
+     */
+	public int getPort() { return httpServer == null ? -1 : httpServer.getAddress().getPort(); }
+
+    /**
+     * @return Number of requests evaluated so far.
+     */
+	public long getRequests() { return requests.sum(); }
+
+    /**
+     * @return Number of batches evaluated so far; requests per batch is the achieved batching.
+     */
+	public long getBatches() { return batches.sum(); }
+
+    /**
+     * Queues an input row for evaluation. Safe to call from any thread.
+     * @param input Input values matching the network's number of inputs.
+     * @return Future completed with the output values, or exceptionally with a
+     * {@link RejectedExecutionException} if the queue is full, no champion was published yet
+     * or the server is closed.
+     * @throws IllegalArgumentException If the input has the wrong length.
+     */
+	public CompletableFuture<double[]> submit(double[] input) {
+		Request request = new Request(input);
+		ChampionHolder.Champion current = champion.get();
+		if (current == null) {
+			request.output.completeExceptionally(new RejectedExecutionException("No champion published yet"));
+			return request.output;
+		}
+		int inputs = current.getNetwork().getNumberOfInputs();
+		if (input.length != inputs)
+			throw new IllegalArgumentException("Expected " + inputs + " inputs but got " + input.length);
+
+		if (closed || !queue.offer(request))
+			request.output.completeExceptionally(new RejectedExecutionException(closed ? "Server closed" : "Queue full"));
+		else if (closed && queue.remove(request))
+			request.output.completeExceptionally(new RejectedExecutionException("Server closed"));
+		return request.output;
+	}
+
+    /**
+     * Evaluates an input row and waits for its output. Safe to call from any thread.
+     * @param input Input values matching the network's number of inputs.
+     * @return Output values.
+     * @throws RejectedExecutionException If the queue is full, no champion was published yet or the server is closed.
+     * @throws IllegalArgumentException If the input has the wrong length.
+     */
+	public double[] predict(double[] input) {
+		try {
+			return submit(input).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while waiting for the prediction");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private void work() {
+		ArrayList<Request> batch = new ArrayList<> (maxBatchSize);
+		double[][] inputs = new double[maxBatchSize][];
+		double[][] outputs = new double[maxBatchSize][];
+		CompiledNetwork network = null;
+		ParallelNetwork parallel = null;
+		double[] state = null, parallelState = null;
+
+		try {
+			while (!closed) {
+				batch.add(queue.take());
+				queue.drainTo(batch, maxBatchSize - batch.size());
+				if (batchDelayNanos > 0) {
+					long deadline = System.nanoTime() + batchDelayNanos;
+					while (batch.size() < maxBatchSize) {
+						Request request = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+						if (request == null)
+							break;
+						batch.add(request);
+						queue.drainTo(batch, maxBatchSize - batch.size());
+					}
+				}
+
+				CompiledNetwork current = champion.get().getNetwork();
+				if (current != network) {
+					network = current;
+					state = network.newBatchState(maxBatchSize);
+					parallel = new ParallelNetwork(network, ForkJoinPool.commonPool(), parallelThreshold);
+					parallelState = parallel.isParallel() ? parallel.newState() : null;
+				}
+
+				int rows = batch.size();
+				for (int r = 0; r < rows; r++) {
+					inputs[r] = batch.get(r).input;
+					outputs[r] = new double[network.getNumberOfOutputs()];
+				}
+				try {
+					if (rows == 1 && parallelState != null) {
+						Arrays.fill(parallelState, 0);
+						parallel.feed(inputs[0], parallelState, outputs[0]);
+					}else network.feed(inputs, outputs, rows, state);
+					for (int r = 0; r < rows; r++)
+						batch.get(r).output.complete(outputs[r]);
+				} catch (RuntimeException e) {
+					for (Request request: batch)
+						request.output.completeExceptionally(e);
+				}
+				requests.add(rows);
+				batches.increment();
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			for (Request request: batch)
+				request.output.completeExceptionally(new RejectedExecutionException("Server closed"));
+		}
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!exchange.getRequestMethod().equals("POST")) {
+				respond(exchange, 405, "Use POST with one comma-separated input row per line\n");
+				return;
+			}
+
+			ArrayList<CompletableFuture<double[]>> rows = new ArrayList<> ();
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					line = line.trim();
+					if (line.isEmpty())
+						continue;
+					String[] values = line.split(",");
+					double[] input = new double[values.length];
+					for (int i = 0; i < values.length; i++)
+						input[i] = Double.parseDouble(values[i].trim());
+					rows.add(submit(input));
+				}
+			} catch (IllegalArgumentException e) {
+				respond(exchange, 400, e.getMessage() + "\n");
+				return;
+			}
+
+			StringBuilder body = new StringBuilder();
+			for (CompletableFuture<double[]> row: rows) {
+				double[] output;
+				try {
+					output = row.get();
+				} catch (ExecutionException e) {
+					respond(exchange, 503, e.getCause().getMessage() + "\n");
+					return;
+				}
+				for (int i = 0; i < output.length; i++)
+					body.append(i == 0 ? "" : ",").append(output[i]);
+				body.append('\n');
+			}
+			respond(exchange, 200, body.toString());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			respond(exchange, 503, "Interrupted\n");
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+    /**
+     * Stops the HTTP endpoint and the workers. Queued requests that were not evaluated yet
+     * complete exceptionally with a {@link RejectedExecutionException}.
+     */
+	@Override
+	public void close() {
+		closed = true;
+		if (httpServer != null) {
+			httpServer.stop(0);
+			((ExecutorService) httpServer.getExecutor()).shutdownNow();
+		}
+		workers.shutdownNow();
+		Request request;
+		while ((request = queue.poll()) != null)
+			request.output.completeExceptionally(new RejectedExecutionException("Server closed"));
+	}
+
+    /**
+     * Serves a saved champion genome over HTTP.
+     *
+     * <p>Usage (options optional):
+     * <pre>
+     * java main.java.neat.serving.InferenceServer best.neat port=8080 threads=4 batch=64 delay=0
+     * </pre>
+     * {@code delay} is the batch delay in microseconds.
+     * @param args Genome file saved by {@link GenomeFileHandler#saveGenome(Genome, String, String)}, then options.
+     * @throws IOException If the server cannot be started.
+     */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.out.println("Usage: InferenceServer <genome file> [port=8080] [threads=n] [batch=64] [delay=0]");
+			return;
+		}
+		HashMap<String,String> options = new HashMap<> ();
+		for (int i = 1; i < args.length; i++) {
+			String[] option = args[i].split("=", 2);
+			options.put(option[0], option.length > 1 ? option[1] : "");
+		}
+
+		Genome genome = GenomeFileHandler.loadGenome(args[0]);
+		if (genome == null)
+			return;
+
+		InferenceServerBuilder builder = new InferenceServerBuilder(genome)
+				.setHttpPort(Integer.parseInt(options.getOrDefault("port", "8080")))
+				.setMaxBatchSize(Integer.parseInt(options.getOrDefault("batch", "64")))
+				.setBatchDelay(Long.parseLong(options.getOrDefault("delay", "0")), TimeUnit.MICROSECONDS);
+		if (options.containsKey("threads"))
+			builder.setThreads(Integer.parseInt(options.get("threads")));
+		InferenceServer server = builder.build();
+		System.out.println("Serving " + args[0] + " at http://localhost:" + server.getPort() + "/predict");
+	}
+
+}
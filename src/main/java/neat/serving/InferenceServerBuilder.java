@@ -0,0 +1,145 @@
+package main.java.neat.serving;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import main.java.neat.core.CompiledNetwork;
+import main.java.neat.core.Genome;
+import main.java.neat.core.ParallelNetwork;
+
+/**
+ * Builder class for constructing and starting {@link InferenceServer} instances.
+ *
+ * <p>Example usage:
+ * <pre>
+ * InferenceServer server = new InferenceServerBuilder(champion)
+ *     .setThreads(4)
+ *     .setMaxBatchSize(32)
+ *     .setBatchDelay(100, TimeUnit.MICROSECONDS)
+ *     .setHttpPort(8080)
+ *     .build();
+ * </pre>
+ *
+ * @author Taher Joudeh
+ */
+public class InferenceServerBuilder {
+
+	private InferenceServer inferenceServer;
+
+    /**
+     * Constructs a builder serving a genome, which is compiled once here.
+     * @param genome Genome to serve.
+     */
+	public InferenceServerBuilder(Genome genome) {
+		this(CompiledNetwork.compile(genome));
+	}
+
+    /**
+     * Constructs a builder serving a compiled network.
+     * @param network Network to serve.
+     */
+	public InferenceServerBuilder(CompiledNetwork network) {
+		this(new ChampionHolder(network));
+	}
+
+    /**
+     * Constructs a builder serving whatever champion the holder currently publishes.
+     * @param champion Holder of the champion to serve.
+     */
+	public InferenceServerBuilder(ChampionHolder champion) {
+		inferenceServer = new InferenceServer(champion);
+	}
+
+    /**
+     * Sets the number of worker threads. Default is the number of available processors.
+     * @param threads The number of threads (must be at least 1). If not, then the new value will not be set.
+     * @return This builder instance for chaining.
+     */
+	public InferenceServerBuilder setThreads(int threads) {
+		if (threads >= 1)
+			inferenceServer.threads = threads;
+		return this;
+	}
+
+    /**
+     * Sets the largest number of requests evaluated together. Default is 64.
+     * @param maxBatchSize The maximum batch size (must be at least 1). If not, then the new value will not be set.
+     * @return This builder instance for chaining.
+     */
+	public InferenceServerBuilder setMaxBatchSize(int maxBatchSize) {
+		if (maxBatchSize >= 1)
+			inferenceServer.maxBatchSize = maxBatchSize;
+		return this;
+	}
+
+    /**
+     * Sets how long a worker waits for more requests before evaluating a batch that is not full.
+     * Default is 0: a worker evaluates whatever is queued at once, trading batch size for latency.
+     * @param delay The batch delay (must be at least 0). If not, then the new value will not be set.
+     * @param unit Unit of the delay.
+     * @return This builder instance for chaining.
+     */
+	public InferenceServerBuilder setBatchDelay(long delay, TimeUnit unit) {
+		if (delay >= 0)
+			inferenceServer.batchDelayNanos = unit.toNanos(delay);
+		return this;
+	}
+
+    /**
+     * Sets the number of requests that can wait for evaluation; further requests are rejected.
+     * Default is 65536.
+     * @param queueCapacity The queue capacity (must be at least 1). If not, then the new value will not be set.
+     * @return This builder instance for chaining.
+     */
+	public InferenceServerBuilder setQueueCapacity(int queueCapacity) {
+		if (queueCapacity >= 1)
+			inferenceServer.queueCapacity = queueCapacity;
+		return this;
+	}
+
+    /**
+     * Sets the minimum wavefront width at which a request evaluated alone is spread over the
+     * common {@link java.util.concurrent.ForkJoinPool} with a {@link ParallelNetwork}.
+     * Batches of several requests, and networks without a wavefront that wide, are always
+     * evaluated by the worker thread. Default is {@link ParallelNetwork#DEFAULT_THRESHOLD};
+     * {@link Integer#MAX_VALUE} disables parallel evaluation.
+     * @param parallelThreshold The threshold in nodes (must be at least 1). If not, then the new value will not be set.
+     * @return This builder instance for chaining.
+     */
+	public InferenceServerBuilder setParallelThreshold(int parallelThreshold) {
+		if (parallelThreshold >= 1)
+			inferenceServer.parallelThreshold = parallelThreshold;
+		return this;
+	}
+
+    /**
+     * Enables the HTTP endpoint on all interfaces.
+     * @param port Port to listen on, or 0 for an ephemeral port (see {@link InferenceServer#getPort()}).
+     * @return This builder instance for chaining.
+     */
+	public InferenceServerBuilder setHttpPort(int port) {
+		return setHttpAddress(new InetSocketAddress(port));
+	}
+
+    /**
+     * Enables the HTTP endpoint. By default the server is only reachable in-process.
+     * @param address Address to listen on.
+     * @return This builder instance for chaining.
+     */
+	public InferenceServerBuilder setHttpAddress(InetSocketAddress address) {
+		inferenceServer.httpAddress = address;
+		return this;
+	}
+
+    /**
+     * Starts the configured server.
+     * @return The running server.
+     * @throws IOException If the HTTP endpoint cannot be started.
+     */
+	public InferenceServer build() throws IOException {
+		inferenceServer.start();
+		return inferenceServer;
+	}
+
+}
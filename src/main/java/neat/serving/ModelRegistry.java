@@ -0,0 +1,247 @@
+package main.java.neat.serving;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import main.java.neat.core.CompiledNetwork;
+import main.java.neat.core.MappedNetwork;
+
+/**
+ * Memory-mapped file of many compiled networks, addressed by key.
+ *
+ * <p>Opening a registry maps the file and reads its fixed-size header; nothing else is read
+ * or decoded. {@link #get(String)} binary-searches the mapped index and returns a
+ * {@link MappedNetwork} that evaluates the network straight from the mapping, so pages are
+ * loaded by the operating system only when a network is used, and a registry of tens of
+ * thousands of models opens in constant time. A registry is immutable and can be shared
+ * between threads.
+ *
+ * <p>File layout (little endian):
+ * <pre>
+ * int magic, int version, int count, int reserved, long indexOffset, long keysOffset
+ * networks: {@link CompiledNetwork#writeTo(ByteBuffer)} encodings, each at an 8-byte aligned offset
+ * index:    count entries sorted by key bytes:
+ *           int networkOffset, int networkLength, int keyOffset, int keyLength
+ * keys:     UTF-8 key bytes, keyOffset relative to keysOffset
+ * </pre>
+ * The whole file is mapped at once, which limits a registry to 2GB.
+ *
+ * <p>Example usage:
+ * <pre>
+ * ModelRegistry.write(Paths.get("champions.neatreg"), championsByCustomer);
+ * ModelRegistry registry = ModelRegistry.open(Paths.get("champions.neatreg"));
+ * MappedNetwork network = registry.get("customer-42");
+ * double[] output = network.feed(input, network.newState());
+ * </pre>
+ *
+ * @author Taher Joudeh
+ */
+public final class ModelRegistry {
+
+	private static final int MAGIC = 0x4E4D5247;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final int INDEX_ENTRY_SIZE = 16;
+
+	private final ByteBuffer buffer;
+	private final int count, index, keys;
+
+	private ModelRegistry(ByteBuffer buffer, int count, int index, int keys) {
+		this.buffer = buffer;
+		this.count = count;
+		this.index = index;
+		this.keys = keys;
+	}
+
+    /**
+     * Writes a registry. The file is written under a temporary name and moved into place,
+     * so a serving process never maps a partial registry.
+     * @param file Registry file.
+     * @param networks Networks by key.
+     * @throws IOException If writing fails or the registry would exceed 2GB.
+     */
+	public static void write(Path file, Map<String,CompiledNetwork> networks) throws IOException {
+		String[] names = networks.keySet().toArray(new String[0]);
+		byte[][] keyBytes = new byte[names.length][];
+		Integer[] order = new Integer[names.length];
+		for (int i = 0; i < names.length; i++) {
+			keyBytes[i] = names[i].getBytes(StandardCharsets.UTF_8);
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> compare(keyBytes[a], keyBytes[b]));
+
+		long size = HEADER_SIZE;
+		long[] offsets = new long[names.length];
+		for (int i = 0; i < names.length; i++) {
+			offsets[i] = size;
+			size = align(size + networks.get(names[i]).getEncodedSize());
+		}
+		long indexOffset = size;
+		long keysOffset = indexOffset + (long)names.length*INDEX_ENTRY_SIZE;
+		long keysLength = 0;
+		for (byte[] key: keyBytes)
+			keysLength += key.length;
+		if (keysOffset + keysLength > Integer.MAX_VALUE)
+			throw new IOException("Registry exceeds 2GB");
+
+		ByteBuffer buffer = ByteBuffer.allocate((int)(keysOffset + keysLength)).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putInt(names.length);
+		buffer.putInt(0);
+		buffer.putLong(indexOffset);
+		buffer.putLong(keysOffset);
+
+		for (int i = 0; i < names.length; i++) {
+			buffer.position((int)offsets[i]);
+			networks.get(names[i]).writeTo(buffer);
+		}
+
+		int keyOffset = 0;
+		buffer.position((int)indexOffset);
+		for (int i: order) {
+			buffer.putInt((int)offsets[i]);
+			buffer.putInt(networks.get(names[i]).getEncodedSize());
+			buffer.putInt(keyOffset);
+			buffer.putInt(keyBytes[i].length);
+			keyOffset += keyBytes[i].length;
+		}
+		for (int i: order)
+			buffer.put(keyBytes[i]);
+
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			buffer.flip();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			channel.force(true);
+		}
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+    /**
+     * Maps a registry.
+     * @param file Registry file written by {@link #write(Path, Map)}.
+     * @return The mapped registry.
+     * @throws IOException If the file is not a registry or cannot be mapped.
+     */
+	public static ModelRegistry open(Path file) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Registry exceeds 2GB: " + file);
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+			throw new IOException("Not a model registry: " + file);
+		int version = buffer.getInt(4);
+		if (version != VERSION)
+			throw new IOException("Unsupported model registry version: " + version);
+		return new ModelRegistry(buffer, buffer.getInt(8), (int)buffer.getLong(16), (int)buffer.getLong(24));
+	}
+
+    /**
+     * @return Number of networks in the registry.
+     */
+	public int size() { return count; }
+
+    /**
+     * @param position Position in key order, between 0 and {@link #size()}.
+     * @return Key at the position.
+     */
+	public String getKey(int position) {
+		byte[] key = new byte[buffer.getInt(entry(position) + 12)];
+		for (int i = 0; i < key.length; i++)
+			key[i] = buffer.get(keys + buffer.getInt(entry(position) + 8) + i);
+		return new String(key, StandardCharsets.UTF_8);
+	}
+
+    /**
+     * @param position Position in key order, between 0 and {@link #size()}.
+     * @return View of the network at the position.
+     */
+	public MappedNetwork get(int position) {
+		return new MappedNetwork(buffer, buffer.getInt(entry(position)));
+	}
+
+    /**
+     * Looks up a network in O(log n) without decoding any other network.
+     * @param key Key the network was written with.
+     * @return View of the network, or null if the key is not in the registry.
+     */
+	public MappedNetwork get(String key) {
+		int position = find(key.getBytes(StandardCharsets.UTF_8));
+		return position < 0 ? null : get(position);
+	}
+
+    /**
+     * @return Keys of all networks, in key order.
+     */
+	public ArrayList<String> getKeys() {
+		ArrayList<String> keys = new ArrayList<> (count);
+		for (int i = 0; i < count; i++)
+			keys.add(getKey(i));
+		return keys;
+	}
+
+	private int find(byte[] key) {
+		int low = 0, high = count-1;
+		while (low <= high) {
+			int middle = (low+high) >>> 1;
+			int comparison = compareKey(middle, key);
+			if (comparison < 0)
+				low = middle+1;
+			else if (comparison > 0)
+				high = middle-1;
+			else return middle;
+		}
+		return -1;
+	}
+
+    /**
+     * Compares the stored key at a position with a key, as unsigned bytes.
+     */
+	private int compareKey(int position, byte[] key) {
+		int offset = keys + buffer.getInt(entry(position) + 8);
+		int length = buffer.getInt(entry(position) + 12);
+		for (int i = 0; i < Math.min(length, key.length); i++) {
+			int comparison = Integer.compare(buffer.get(offset+i) & 0xFF, key[i] & 0xFF);
+			if (comparison != 0)
+				return comparison;
+		}
+		return Integer.compare(length, key.length);
+	}
+
+	private static int compare(byte[] a, byte[] b) {
+		for (int i = 0; i < Math.min(a.length, b.length); i++) {
+			int comparison = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+			if (comparison != 0)
+				return comparison;
+		}
+		return Integer.compare(a.length, b.length);
+	}
+
+	private int entry(int position) {
+		if (position < 0 || position >= count)
+			throw new IndexOutOfBoundsException("Position " + position + " out of " + count);
+		return index + position*INDEX_ENTRY_SIZE;
+	}
+
+	private static long align(long offset) {
+		return (offset + 7) & ~7L;
+	}
+
+}
@@ -0,0 +1,309 @@
+package main.java.test.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import main.java.neat.config.NEATConfig;
+import main.java.neat.config.NEATConfig.CONNECTIVITY;
+import main.java.neat.config.NEATConfigBuilder;
+import main.java.neat.core.Agent;
+import main.java.neat.core.CompiledNetwork;
+import main.java.neat.core.EvolutionListener;
+import main.java.neat.core.Genome;
+import main.java.neat.core.IncrementalNetwork;
+import main.java.neat.core.Neat;
+import main.java.neat.core.SparseNetwork;
+import main.java.neat.core.GenerationEvent.PHASE;
+
+/**
+ * Benchmarks of the core genome and population operations.
+ *
+ * <p>Genome benchmarks ({@code feed}, {@code feed2}, {@code compiled}, {@code compiled-sparse},
+ * {@code incremental}, {@code sparse}, {@code distance}, {@code crossover}, {@code mutate}, {@code clone}) run for every genome size,
+ * population benchmarks ({@code speciate}, {@code evolve}) for every population size. Every benchmark is warmed up
+ * and then measured over several fixed-time iterations; the report gives the mean time per
+ * operation with its standard deviation and the bytes allocated per operation (measured
+ * through the thread allocation counter of the platform {@code ThreadMXBean}).
+ *
+ * <p>Usage (all arguments optional):
+ * <pre>
+ * java main.java.test.core.CoreBenchmark benchmarks=feed,evolve sizes=10,100,500,2000 populations=150,1000,10000,100000
+ *                                        warmup=3 iterations=5 time=1
+ * </pre>
+ * {@code time} is the length of an iteration in seconds. {@code compiled} feeds the
+ * {@link CompiledNetwork} of the genome, with dense blocks for its densely connected layers;
+ * {@code compiled-sparse} feeds the same network compiled without dense blocks.
+ * {@code incremental} feeds an {@link IncrementalNetwork} of the genome an input of which 1% of
+ * the values (at least one) changed since the previous operation, and {@code sparse} feeds a
+ * {@link SparseNetwork} of the genome an input of which 1% of the values (at least one) are non-zero.
+ * {@code mutate} runs on a fresh clone each time, so it includes the cost of {@code clone}. {@code speciate} is read from the
+ * speciation phase of {@code evolve} through an {@link EvolutionListener}. {@code feed} and {@code feed2}
+ * go through {@link Agent#think(double[])} and {@link Agent#decide(double[])}, the protected genome
+ * operations through {@link GenomeOperations} on genomes owned by the benchmark.
+ *
+ * @author Taher Joudeh
+ */
+public class CoreBenchmark {
+
+	private static final com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	private static final List<String> GENOME_BENCHMARKS = Arrays.asList("feed", "feed2", "compiled", "compiled-sparse", "incremental", "sparse", "distance", "crossover", "mutate", "clone");
+	private static final List<String> POPULATION_BENCHMARKS = Arrays.asList("speciate", "evolve");
+
+	private static double sink;
+
+	private final int warmup, iterations;
+	private final long iterationNanos;
+
+	private CoreBenchmark(int warmup, int iterations, double seconds) {
+		this.warmup = warmup;
+		this.iterations = iterations;
+		this.iterationNanos = (long)(seconds*1e9);
+	}
+
+    /**
+     * Runs the benchmarks.
+     * @param args Options in the form {@code name=value}, see the class documentation.
+     */
+	public static void main(String[] args) {
+		HashMap<String,String> options = new HashMap<> ();
+		for (String arg: args) {
+			String[] option = arg.split("=", 2);
+			options.put(option[0], option.length > 1 ? option[1] : "");
+		}
+
+		List<String> benchmarks = Arrays.asList(options.getOrDefault("benchmarks",
+				String.join(",", GENOME_BENCHMARKS) + "," + String.join(",", POPULATION_BENCHMARKS)).split(","));
+		int[] sizes = parse(options.getOrDefault("sizes", "10,100,500,2000"));
+		int[] populations = parse(options.getOrDefault("populations", "150,1000,10000,100000"));
+		CoreBenchmark benchmark = new CoreBenchmark(
+				Integer.parseInt(options.getOrDefault("warmup", "3")),
+				Integer.parseInt(options.getOrDefault("iterations", "5")),
+				Double.parseDouble(options.getOrDefault("time", "1")));
+
+		System.out.printf("%-12s %-18s %16s %12s %14s%n", "benchmark", "parameter", "time/op", "error", "alloc/op");
+		for (String name: benchmarks) {
+			if (GENOME_BENCHMARKS.contains(name))
+				for (int size: sizes)
+					benchmark.runGenomeBenchmark(name, size);
+			else if (POPULATION_BENCHMARKS.contains(name))
+				for (int population: populations)
+					benchmark.runPopulationBenchmark(name, population);
+			else System.out.println("Unknown benchmark: " + name);
+		}
+		if (sink == 42)
+			System.out.println();
+	}
+
+	private static int[] parse(String values) {
+		return Arrays.stream(values.split(",")).mapToInt(Integer::parseInt).toArray();
+	}
+
+	private void runGenomeBenchmark(String name, int connections) {
+		NEATConfig neatConfig = configure(connections);
+		Agent agent = grow(neatConfig, connections);
+		Genome genome = agent.getGenome();
+		Genome other = GenomeOperations.clone(genome);
+		GenomeOperations.mutate(other);
+		Random random = new Random(connections);
+		double[] input = new double[neatConfig.getNumberOfInputs()];
+		for (int i = 0; i < input.length; i++)
+			input[i] = random.nextGaussian();
+
+		Runnable operation = null;
+		switch (name) {
+		case "feed":
+			operation = () -> sink += agent.think(input)[0];
+			break;
+		case "feed2":
+			operation = () -> sink += agent.decide(input)[0] ? 1 : 0;
+			break;
+		case "compiled":
+		case "compiled-sparse":
+			CompiledNetwork network = CompiledNetwork.compile(genome, name.equals("compiled") ? CompiledNetwork.DEFAULT_DENSE_THRESHOLD : 2);
+			double[] state = network.newState(), output = new double[network.getNumberOfOutputs()];
+			operation = () -> {
+				network.feed(input, state, output);
+				sink += output[0];
+			};
+			break;
+		case "incremental":
+			IncrementalNetwork incremental = new IncrementalNetwork(CompiledNetwork.compile(genome));
+			double[] incrementalOutput = new double[neatConfig.getNumberOfOutputs()];
+			int changed = Math.max(1, input.length/100);
+			int[] next = new int[1];
+			operation = () -> {
+				for (int i = 0; i < changed; i++) {
+					int index = next[0]++ % input.length;
+					input[index] = -input[index];
+				}
+				incremental.feed(input, incrementalOutput);
+				sink += incrementalOutput[0];
+			};
+			break;
+		case "sparse":
+			SparseNetwork sparse = new SparseNetwork(CompiledNetwork.compile(genome));
+			double[] sparseState = sparse.newState(), sparseOutput = new double[neatConfig.getNumberOfOutputs()];
+			int[] indices = new int[Math.max(1, input.length/100)];
+			double[] values = new double[indices.length];
+			for (int i = 0; i < indices.length; i++) {
+				indices[i] = i*input.length/indices.length;
+				values[i] = input[indices[i]];
+			}
+			operation = () -> {
+				sparse.feed(indices, values, indices.length, sparseState, sparseOutput);
+				sink += sparseOutput[0];
+			};
+			break;
+		case "distance":
+			operation = () -> sink += GenomeOperations.distance(genome, other);
+			break;
+		case "crossover":
+			operation = () -> sink += GenomeOperations.crossover(genome, other, false).getNumberOfConnections();
+			break;
+		case "mutate":
+			operation = () -> {
+				Genome clone = GenomeOperations.clone(genome);
+				GenomeOperations.mutate(clone);
+				sink += clone.getNumberOfConnections();
+			};
+			break;
+		case "clone":
+			operation = () -> sink += GenomeOperations.clone(genome).getNumberOfConnections();
+			break;
+		}
+
+		report(name, "connections=" + genome.getNumberOfConnections(), measure(operation));
+	}
+
+    /**
+     * Configures genomes with a fully connected input/output layer holding about three quarters
+     * of the given number of connections.
+     */
+	private static NEATConfig configure(int connections) {
+		int direct = Math.max(1, connections*3/4);
+		int outputs = Math.max(1, Math.min(10, direct/5));
+		int inputs = Math.max(1, direct/outputs);
+
+		return new NEATConfigBuilder(1, inputs, outputs)
+				.setInitConnectivity(CONNECTIVITY.FULL_DIRECT)
+				.setProbAddConnection(1)
+				.setProbAddNode(0.2)
+				.setProbRecurrentConnection(0.1)
+				.build();
+	}
+
+    /**
+     * Builds an agent holding a clone of an initial genome, grown by mutation to at least the
+     * given number of connections.
+     */
+	private static Agent grow(NEATConfig neatConfig, int connections) {
+		Agent agent = new Neat(neatConfig).getPopulation()[0];
+		Genome genome = GenomeOperations.clone(agent.getGenome());
+		while (genome.getNumberOfConnections() < connections)
+			GenomeOperations.mutate(genome);
+		agent.setGenome(genome);
+		return agent;
+	}
+
+	private void runPopulationBenchmark(String name, int populationSize) {
+		NEATConfig neatConfig = new NEATConfigBuilder(populationSize, 8, 2)
+				.setInitConnectivity(CONNECTIVITY.FULL_DIRECT)
+				.setProbAddConnection(0.1)
+				.setProbAddNode(0.05)
+				.setDynamicCompatibilityThreshold(true)
+				.setTargetNumberOfSpecies(Math.max(10, populationSize/100))
+				.build();
+		Neat neat = new Neat(neatConfig);
+		Random random = new Random(populationSize);
+
+		long[] speciation = new long[2];
+		neat.addEvolutionListener(event -> {
+			speciation[0] = event.getWallNanos(PHASE.SPECIATE);
+			speciation[1] = event.getAllocatedBytes(PHASE.SPECIATE);
+		});
+
+		ArrayList<double[]> samples = new ArrayList<> ();
+		for (int i = -warmup; i < iterations; i++) {
+			long deadline = System.nanoTime() + iterationNanos;
+			long nanos = 0, bytes = 0, operations = 0;
+			do {
+				for (Agent agent: neat.getPopulation())
+					agent.setFitness(random.nextDouble());
+
+				long start = System.nanoTime();
+				long allocated = allocatedBytes();
+				neat.evolve(false);
+				if (name.equals("evolve")) {
+					nanos += System.nanoTime() - start;
+					bytes += allocatedBytes() - allocated;
+				}else {
+					nanos += speciation[0];
+					bytes += speciation[1];
+				}
+				operations++;
+			}while (System.nanoTime() < deadline);
+			if (i >= 0)
+				samples.add(new double[] {nanos/(double)operations, bytes/(double)operations});
+		}
+
+		report(name, "population=" + populationSize, samples);
+	}
+
+	private ArrayList<double[]> measure(Runnable operation) {
+		ArrayList<double[]> samples = new ArrayList<> ();
+		for (int i = -warmup; i < iterations; i++) {
+			long operations = 0;
+			long allocated = allocatedBytes();
+			long start = System.nanoTime();
+			long deadline = start + iterationNanos;
+			do {
+				for (int j = 0; j < 64; j++)
+					operation.run();
+				operations += 64;
+			}while (System.nanoTime() < deadline);
+			long nanos = System.nanoTime() - start;
+			long bytes = allocatedBytes() - allocated;
+			if (i >= 0)
+				samples.add(new double[] {nanos/(double)operations, bytes/(double)operations});
+		}
+		return samples;
+	}
+
+	private static long allocatedBytes() {
+		return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static void report(String name, String parameter, ArrayList<double[]> samples) {
+		double mean = 0, bytes = 0;
+		for (double[] sample: samples) {
+			mean += sample[0];
+			bytes += sample[1];
+		}
+		mean /= samples.size();
+		bytes /= samples.size();
+
+		double variance = 0;
+		for (double[] sample: samples)
+			variance += (sample[0]-mean)*(sample[0]-mean);
+		double error = samples.size() > 1 ? Math.sqrt(variance/(samples.size()-1)) : 0;
+
+		System.out.printf("%-12s %-18s %16s %12s %14s%n", name, parameter, format(mean), "+- " + format(error), String.format("%.0f B", bytes));
+	}
+
+	private static String format(double nanos) {
+		if (nanos >= 1e9)
+			return String.format("%.3f s", nanos/1e9);
+		if (nanos >= 1e6)
+			return String.format("%.3f ms", nanos/1e6);
+		if (nanos >= 1e3)
+			return String.format("%.3f us", nanos/1e3);
+		return String.format("%.1f ns", nanos);
+	}
+
+}
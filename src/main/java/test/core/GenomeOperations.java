@@ -0,0 +1,95 @@
+package main.java.test.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+
+import main.java.neat.core.Genome;
+
+/**
+ * Benchmark access to the evolution operations of {@link Genome}, which the library keeps
+ * protected so that only the evolution can change a genome of a population.
+ *
+ * <p>The operations are bound once as method handles, which the JIT inlines like direct calls.
+ * Benchmarks only apply them to genomes they own: clones they made, never the genomes of a
+ * population that is evolving or being checkpointed.
+ *
+ * @author Taher Joudeh
+ */
+final class GenomeOperations {
+
+	private static final MethodHandle CLONE, MUTATE, DISTANCE, CROSSOVER;
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			CLONE = lookup.unreflect(accessible("clone"));
+			MUTATE = lookup.unreflect(accessible("mutate"));
+			DISTANCE = lookup.unreflect(accessible("distance", Genome.class, Genome.class));
+			CROSSOVER = lookup.unreflect(accessible("crossover", Genome.class, Genome.class, boolean.class));
+		}catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private GenomeOperations() {}
+
+	private static Method accessible(String name, Class<?>... parameters) throws NoSuchMethodException {
+		Method method = Genome.class.getDeclaredMethod(name, parameters);
+		method.setAccessible(true);
+		return method;
+	}
+
+    /**
+     * @return A deep copy of the genome.
+     */
+	static Genome clone(Genome genome) {
+		try {
+			return (Genome) CLONE.invokeExact(genome);
+		}catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+    /**
+     * Applies structural and parameter mutations to a genome the caller owns.
+     */
+	static void mutate(Genome genome) {
+		try {
+			MUTATE.invokeExact(genome);
+		}catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+    /**
+     * @return Compatibility distance between two genomes.
+     */
+	static double distance(Genome g1, Genome g2) {
+		try {
+			return (double) DISTANCE.invokeExact(g1, g2);
+		}catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+    /**
+     * @return Offspring of two genomes, the first being the fitter one unless sameFitness is set.
+     */
+	static Genome crossover(Genome g1, Genome g2, boolean sameFitness) {
+		try {
+			return (Genome) CROSSOVER.invokeExact(g1, g2, sameFitness);
+		}catch (Throwable e) {
+			throw rethrow(e);
+		}
+	}
+
+	private static RuntimeException rethrow(Throwable e) {
+		if (e instanceof RuntimeException)
+			return (RuntimeException) e;
+		if (e instanceof Error)
+			throw (Error) e;
+		return new IllegalStateException(e);
+	}
+
+}
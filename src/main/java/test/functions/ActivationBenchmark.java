@@ -0,0 +1,177 @@
+package main.java.test.functions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ToDoubleFunction;
+
+import main.java.neat.functions.FastActivation;
+
+/**
+ * Accuracy check and benchmark of the fast-math activation functions of {@link FastActivation}.
+ *
+ * <p>The accuracy check compares {@link FastActivation#sigmoid(double)} and
+ * {@link FastActivation#tanh(double)} with the exact functions over a dense sweep of
+ * [-{@code range}, {@code range}], random inputs and special values (zeros, infinities, NaN,
+ * the extremes of double), and fails with exit status 1 when an error exceeds
+ * {@link FastActivation#MAX_SIGMOID_ERROR} or {@link FastActivation#MAX_TANH_ERROR}.
+ * The benchmark then measures the time per call of the exact and the fast functions on
+ * Gaussian inputs, warmed up and measured over several fixed-time iterations like
+ * {@code CoreBenchmark}. Every function is timed in its own loop calling it directly, so no
+ * variant pays for dispatch through a shared call site.
+ *
+ * <p>Usage (all arguments optional):
+ * <pre>
+ * java main.java.test.functions.ActivationBenchmark check=true benchmark=true range=20 steps=10000000
+ *                                                   warmup=3 iterations=5 time=1
+ * </pre>
+ * {@code steps} is the number of points of the sweep and {@code time} is the length of an
+ * iteration in seconds.
+ *
+ * @author Taher Joudeh
+ */
+public class ActivationBenchmark {
+
+	private static final DoubleUnaryOperator SIGMOID = x -> 1d/(1d+Math.exp(-x));
+	private static final double[] SPECIAL_VALUES = {0d, -0d, Double.MIN_VALUE, -Double.MIN_VALUE, 1e-300, -1e-300,
+			9, -9, 710, -710, 1e300, -1e300, Double.MAX_VALUE, -Double.MAX_VALUE,
+			Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN};
+
+	private static double sink;
+
+	private final int warmup, iterations;
+	private final long iterationNanos;
+	private final double[] input = new double[1024];
+
+	private ActivationBenchmark(int warmup, int iterations, double seconds) {
+		this.warmup = warmup;
+		this.iterations = iterations;
+		this.iterationNanos = (long)(seconds*1e9);
+		Random random = new Random(0);
+		for (int i = 0; i < input.length; i++)
+			input[i] = 2*random.nextGaussian();
+	}
+
+    /**
+     * Runs the accuracy check and the benchmark.
+     * @param args Options in the form {@code name=value}, see the class documentation.
+     */
+	public static void main(String[] args) {
+		HashMap<String,String> options = new HashMap<> ();
+		for (String arg: args) {
+			String[] option = arg.split("=", 2);
+			options.put(option[0], option.length > 1 ? option[1] : "");
+		}
+
+		if (Boolean.parseBoolean(options.getOrDefault("check", "true"))) {
+			double range = Double.parseDouble(options.getOrDefault("range", "20"));
+			long steps = Long.parseLong(options.getOrDefault("steps", "10000000"));
+			boolean passed = check("sigmoid", SIGMOID, FastActivation::sigmoid, FastActivation.MAX_SIGMOID_ERROR, range, steps);
+			passed &= check("tanh", Math::tanh, FastActivation::tanh, FastActivation.MAX_TANH_ERROR, range, steps);
+			if (!passed)
+				System.exit(1);
+		}
+
+		if (Boolean.parseBoolean(options.getOrDefault("benchmark", "true"))) {
+			ActivationBenchmark benchmark = new ActivationBenchmark(
+					Integer.parseInt(options.getOrDefault("warmup", "3")),
+					Integer.parseInt(options.getOrDefault("iterations", "5")),
+					Double.parseDouble(options.getOrDefault("time", "1")));
+			System.out.printf("%-14s %12s %12s%n", "benchmark", "time/op", "error");
+			benchmark.run("sigmoid", ActivationBenchmark::sumSigmoid);
+			benchmark.run("fast-sigmoid", ActivationBenchmark::sumFastSigmoid);
+			benchmark.run("tanh", ActivationBenchmark::sumTanh);
+			benchmark.run("fast-tanh", ActivationBenchmark::sumFastTanh);
+		}
+		if (sink == 42)
+			System.out.println();
+	}
+
+    /**
+     * Compares an approximation with the exact function and prints the maximum error.
+     * @return True if every error is within the bound and NaN maps to NaN.
+     */
+	private static boolean check(String name, DoubleUnaryOperator exact, DoubleUnaryOperator fast,
+			double bound, double range, long steps) {
+		double maxError = 0, worst = 0;
+		Random random = new Random(1);
+		for (long i = 0; i <= 2*steps; i++) {
+			double x = i <= steps ? -range + 2*range*i/steps : (random.nextDouble()*2-1)*range;
+			double error = Math.abs(fast.applyAsDouble(x) - exact.applyAsDouble(x));
+			if (error > maxError) {
+				maxError = error;
+				worst = x;
+			}
+		}
+
+		boolean passed = maxError <= bound;
+		for (double x: SPECIAL_VALUES) {
+			double expected = exact.applyAsDouble(x), actual = fast.applyAsDouble(x);
+			if (Double.isNaN(expected) != Double.isNaN(actual) || Math.abs(actual - expected) > bound) {
+				System.out.printf("%-14s x=%s: expected %s, got %s%n", name, x, expected, actual);
+				passed = false;
+			}
+		}
+		System.out.printf("%-14s max error %.3e at x=%.6f, bound %.1e: %s%n", name, maxError, worst, bound, passed ? "passed" : "FAILED");
+		return passed;
+	}
+
+	private static double sumSigmoid(double[] input) {
+		double sum = 0;
+		for (double x: input)
+			sum += 1d/(1d+Math.exp(-x));
+		return sum;
+	}
+
+	private static double sumFastSigmoid(double[] input) {
+		double sum = 0;
+		for (double x: input)
+			sum += FastActivation.sigmoid(x);
+		return sum;
+	}
+
+	private static double sumTanh(double[] input) {
+		double sum = 0;
+		for (double x: input)
+			sum += Math.tanh(x);
+		return sum;
+	}
+
+	private static double sumFastTanh(double[] input) {
+		double sum = 0;
+		for (double x: input)
+			sum += FastActivation.tanh(x);
+		return sum;
+	}
+
+    /**
+     * Times a loop applying one function to every input; the loop is called once per
+     * {@code input.length} evaluations, so its own dispatch is negligible.
+     */
+	private void run(String name, ToDoubleFunction<double[]> loop) {
+		ArrayList<Double> samples = new ArrayList<> ();
+		for (int i = -warmup; i < iterations; i++) {
+			long operations = 0;
+			long start = System.nanoTime();
+			long deadline = start + iterationNanos;
+			do {
+				sink += loop.applyAsDouble(input);
+				operations += input.length;
+			}while (System.nanoTime() < deadline);
+			if (i >= 0)
+				samples.add((System.nanoTime() - start)/(double)operations);
+		}
+
+		double mean = 0;
+		for (double sample: samples)
+			mean += sample;
+		mean /= samples.size();
+		double variance = 0;
+		for (double sample: samples)
+			variance += (sample-mean)*(sample-mean);
+		double error = samples.size() > 1 ? Math.sqrt(variance/(samples.size()-1)) : 0;
+		System.out.printf("%-14s %9.2f ns %9s ns%n", name, mean, String.format("+- %.2f", error));
+	}
+
+}
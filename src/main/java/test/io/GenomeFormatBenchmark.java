@@ -0,0 +1,128 @@
+package main.java.test.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import main.java.neat.config.NEATConfig;
+import main.java.neat.config.NEATConfigBuilder;
+import main.java.neat.core.Agent;
+import main.java.neat.core.Genome;
+import main.java.neat.core.GenomeCodec;
+import main.java.neat.core.Neat;
+
+/**
+ * Compares save/load throughput and size of Java serialization against the binary
+ * genome format of {@link GenomeCodec}, raw and compressed.
+ * 
+ * <p>A population is grown for a number of generations under random fitness so the
+ * genomes carry hidden nodes and recurrent connections, then every genome is saved and
+ * loaded repeatedly in memory with each format.
+ * 
+ * @author Taher Joudeh
+ */
+public class GenomeFormatBenchmark {
+
+	private static final int GENERATIONS = 60;
+	private static final int ROUNDS = 20;
+
+    /**
+     * Runs the benchmark.
+     * @param args Command-line arguments (unused).
+     * @throws Exception If a genome cannot be saved or loaded.
+     */
+	public static void main(String[] args) throws Exception {
+		
+		NEATConfig neatConfig = new NEATConfigBuilder(150, 8, 4)
+				.setProbAddConnection(0.3)
+				.setProbAddNode(0.2)
+				.setProbRecurrentConnection(0.2)
+				.build();
+		
+		Neat neat = new Neat(neatConfig);
+		for (int g = 0; g < GENERATIONS; g++) {
+			for (Agent agent: neat.getPopulation())
+				agent.setFitness(Math.random());
+			neat.evolve(false);
+		}
+		
+		Genome[] genomes = new Genome[neatConfig.getPopulationSize()];
+		int connections = 0;
+		for (int i = 0; i < genomes.length; i++) {
+			genomes[i] = neat.getPopulation()[i].getGenome();
+			connections += genomes[i].getNumberOfConnections();
+		}
+		System.out.println(genomes.length + " genomes, " + (connections/genomes.length) + " connections on average\n");
+		
+		long configHash = GenomeCodec.configHash(neatConfig);
+		
+		Format serialization = new Format("java serialization") {
+			byte[] save(Genome genome) throws IOException {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) { oos.writeObject(genome); }
+				return bytes.toByteArray();
+			}
+			Genome load(byte[] bytes) throws IOException {
+				try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+					return (Genome) ois.readObject();
+				} catch (ClassNotFoundException e) { throw new IOException(e); }
+			}
+		};
+		Format binary = new Format("binary") {
+			byte[] save(Genome genome) { return GenomeCodec.encode(genome, configHash, false); }
+			Genome load(byte[] bytes) throws IOException { return GenomeCodec.decode(bytes, neatConfig, configHash); }
+		};
+		Format deflated = new Format("binary + deflate") {
+			byte[] save(Genome genome) { return GenomeCodec.encode(genome, configHash, true); }
+			Genome load(byte[] bytes) throws IOException { return GenomeCodec.decode(bytes, neatConfig, configHash); }
+		};
+		
+		System.out.printf("%-20s %14s %14s %14s%n", "format", "bytes/genome", "saves/s", "loads/s");
+		for (Format format: new Format[] {serialization, binary, deflated})
+			format.run(genomes);
+	}
+	
+	private static abstract class Format {
+		
+		private final String name;
+		
+		Format(String name) { this.name = name; }
+		
+		abstract byte[] save(Genome genome) throws IOException;
+		
+		abstract Genome load(byte[] bytes) throws IOException;
+		
+		void run(Genome[] genomes) throws IOException {
+			byte[][] saved = new byte[genomes.length][];
+			long size = 0;
+			for (int i = 0; i < genomes.length; i++) {
+				saved[i] = save(genomes[i]);
+				size += saved[i].length;
+			}
+			
+			for (int warmup = 0; warmup < ROUNDS; warmup++)
+				for (int i = 0; i < genomes.length; i++)
+					load(save(genomes[i]));
+			
+			long start = System.nanoTime();
+			for (int r = 0; r < ROUNDS; r++)
+				for (int i = 0; i < genomes.length; i++)
+					saved[i] = save(genomes[i]);
+			long saveTime = System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			for (int r = 0; r < ROUNDS; r++)
+				for (int i = 0; i < genomes.length; i++)
+					load(saved[i]);
+			long loadTime = System.nanoTime() - start;
+			
+			double operations = (double) ROUNDS*genomes.length;
+			System.out.printf("%-20s %14d %14.0f %14.0f%n", name, size/genomes.length,
+					operations/(saveTime/1e9), operations/(loadTime/1e9));
+		}
+		
+	}
+	
+}
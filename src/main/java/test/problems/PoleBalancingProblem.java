@@ -0,0 +1,198 @@
+package main.java.test.problems;
+
+import java.util.Random;
+
+import main.java.neat.config.NEATConfig;
+import main.java.neat.config.NEATConfig.CONNECTIVITY;
+import main.java.neat.config.NEATConfig.SELECTION_TYPE;
+import main.java.neat.config.NEATConfig.SPECIES_FITNESS_FUNCTION;
+import main.java.neat.config.NEATConfigBuilder;
+import main.java.neat.core.Agent;
+
+/**
+ * Balancing one or two poles hinged on a cart that moves on a bounded track.
+ *
+ * <p>The cart and poles follow the frictional cart-pole equations of Wieland, integrated
+ * with fourth-order Runge-Kutta in steps of 0.01s; the network acts every 0.02s.
+ * <ul>
+ * <li><b>Single pole</b>: pole of 1m and 0.1kg, bang-bang force of 10N, fails beyond 12 degrees.</li>
+ * <li><b>Double pole</b>: poles of 1m/0.1kg and 0.1m/0.01kg, continuous force up to 10N,
+ * fails when either pole is beyond 36 degrees.</li>
+ * </ul>
+ * Both fail when the cart leaves the 4.8m track. Without velocities the network only sees
+ * the cart position and pole angles, so it has to estimate the velocities itself and
+ * recurrent connections are enabled.
+ *
+ * <p>Fitness is the fraction of {@link #EVALUATION_STEPS} steps balanced; an agent that
+ * balances all of them solves the problem if it also balances {@link #SOLVE_STEPS} steps.
+ * The seed perturbs the initial state.
+ *
+ * @author Taher Joudeh
+ */
+public class PoleBalancingProblem implements Problem {
+
+	/**
+	 * Maximum number of steps of an evaluation.
+	 */
+	public static final int EVALUATION_STEPS = 1000;
+
+	/**
+	 * Number of steps to balance to solve the problem.
+	 */
+	public static final int SOLVE_STEPS = 100000;
+
+	private static final double GRAVITY = -9.8;
+	private static final double CART_MASS = 1;
+	private static final double CART_FRICTION = 0.0005;
+	private static final double POLE_FRICTION = 0.000002;
+	private static final double FORCE = 10;
+	private static final double TRACK_LIMIT = 2.4;
+	private static final double TAU = 0.01;
+
+	private final boolean doublePole, velocities;
+	private final double[] halfLength, mass;
+	private final double failureAngle;
+	private final double[] initialState;
+
+    /**
+     * Constructs the pole balancing problem.
+     * @param doublePole Whether to balance two poles instead of one.
+     * @param velocities Whether the network receives the cart and pole velocities.
+     */
+	public PoleBalancingProblem(boolean doublePole, boolean velocities) {
+		this.doublePole = doublePole;
+		this.velocities = velocities;
+		halfLength = doublePole ? new double[] {0.5, 0.05} : new double[] {0.5};
+		mass = doublePole ? new double[] {0.1, 0.01} : new double[] {0.1};
+		failureAngle = Math.toRadians(doublePole ? 36 : 12);
+		initialState = new double[2 + 2*halfLength.length];
+	}
+
+	@Override
+	public String getName() {
+		return (doublePole ? "double-pole" : "single-pole") + (velocities ? "" : "-nv");
+	}
+
+	@Override
+	public NEATConfig createConfig(int populationSize, long seed) {
+		int inputs = velocities ? initialState.length : initialState.length/2;
+		return new NEATConfigBuilder(populationSize, inputs, 1)
+				.setMaxNumberOfHiddenNodes(20)
+				.setCompatibilityThreshold(3)
+				.setDynamicCompatibilityThreshold(true)
+				.setCompatabilityThresholdAdjustingFactor(0.2)
+				.setTargetNumberOfSpecies(10)
+				.setSpeciesFitnessFunction(SPECIES_FITNESS_FUNCTION.MAX)
+				.setProbAddConnection(0.1)
+				.setProbAddNode(0.03)
+				.setFeedForward(velocities)
+				.setProbRecurrentConnection(velocities ? 0 : 0.3)
+				.setInitConnectivity(CONNECTIVITY.FULL_DIRECT)
+				.setSurvivalThreshold(0.2)
+				.setStagnation(20)
+				.setWeightMaxValue(20)
+				.setWeightMinValue(-20)
+				.setBiasMaxValue(20)
+				.setBiasMinValue(-20)
+				.setSpeciesElitism(1)
+				.setElitism(1)
+				.setSelectionType(SELECTION_TYPE.TOURNAMENT)
+				.setTournamentSize(4)
+				.setSeed(seed)
+				.build();
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		Random random = new Random(seed);
+		for (int i = 0; i < initialState.length; i++)
+			initialState[i] = (random.nextDouble()*2-1)*0.05;
+		if (doublePole)
+			initialState[2] += Math.toRadians(1);
+	}
+
+	@Override
+	public double evaluate(Agent agent) {
+		return balance(agent, EVALUATION_STEPS)/(double)EVALUATION_STEPS;
+	}
+
+	@Override
+	public boolean isSolved(Agent agent, double fitness) {
+		return fitness >= 1 && balance(agent, SOLVE_STEPS) == SOLVE_STEPS;
+	}
+
+    /**
+     * Runs one episode from the initial state.
+     * @param agent Controlling agent.
+     * @param maxSteps Maximum number of steps.
+     * @return Number of steps balanced.
+     */
+	private int balance(Agent agent, int maxSteps) {
+		double[] state = initialState.clone();
+		double[] input = new double[velocities ? state.length : state.length/2];
+		double[][] rk = new double[5][state.length];
+
+		for (int step = 0; step < maxSteps; step++) {
+			for (int i = 0; i < input.length; i++) {
+				int index = velocities ? i : 2*i;
+				input[i] = state[index]/(index == 0 ? 2*TRACK_LIMIT : index == 1 ? 2 : index%2 == 0 ? 0.52 : 2);
+			}
+			double output = agent.think(input)[0];
+			double force = doublePole ? FORCE*(2*output-1) : output > 0.5 ? FORCE : -FORCE;
+
+			for (int i = 0; i < 2; i++)
+				rungeKutta(force, state, rk);
+
+			if (Math.abs(state[0]) > TRACK_LIMIT)
+				return step;
+			for (int pole = 0; pole < halfLength.length; pole++)
+				if (Math.abs(state[2+2*pole]) > failureAngle)
+					return step;
+		}
+		return maxSteps;
+	}
+
+	private void rungeKutta(double force, double[] state, double[][] rk) {
+		double[] k1 = rk[0], k2 = rk[1], k3 = rk[2], k4 = rk[3], temporary = rk[4];
+		derive(force, state, k1);
+		for (int i = 0; i < state.length; i++)
+			temporary[i] = state[i] + TAU/2*k1[i];
+		derive(force, temporary, k2);
+		for (int i = 0; i < state.length; i++)
+			temporary[i] = state[i] + TAU/2*k2[i];
+		derive(force, temporary, k3);
+		for (int i = 0; i < state.length; i++)
+			temporary[i] = state[i] + TAU*k3[i];
+		derive(force, temporary, k4);
+		for (int i = 0; i < state.length; i++)
+			state[i] += TAU/6*(k1[i] + 2*k2[i] + 2*k3[i] + k4[i]);
+	}
+
+    /**
+     * Computes the time derivative of the state
+     * {@code (x, x', theta1, theta1', theta2, theta2')}.
+     */
+	private void derive(double force, double[] state, double[] derivative) {
+		double cartVelocity = state[1];
+		double effectiveForce = 0, effectiveMass = 0;
+		for (int pole = 0; pole < halfLength.length; pole++) {
+			double angle = state[2+2*pole], angularVelocity = state[3+2*pole];
+			double cos = Math.cos(angle), sin = Math.sin(angle);
+			double friction = POLE_FRICTION*angularVelocity/(mass[pole]*halfLength[pole]);
+			effectiveForce += mass[pole]*halfLength[pole]*angularVelocity*angularVelocity*sin
+					+ 0.75*mass[pole]*cos*(friction + GRAVITY*sin);
+			effectiveMass += mass[pole]*(1 - 0.75*cos*cos);
+		}
+
+		double acceleration = (force - CART_FRICTION*Math.signum(cartVelocity) + effectiveForce)/(CART_MASS + effectiveMass);
+		derivative[0] = cartVelocity;
+		derivative[1] = acceleration;
+		for (int pole = 0; pole < halfLength.length; pole++) {
+			double angle = state[2+2*pole], angularVelocity = state[3+2*pole];
+			double friction = POLE_FRICTION*angularVelocity/(mass[pole]*halfLength[pole]);
+			derivative[2+2*pole] = angularVelocity;
+			derivative[3+2*pole] = -0.75*(acceleration*Math.cos(angle) + GRAVITY*Math.sin(angle) + friction)/halfLength[pole];
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+package main.java.test.problems;
+
+import main.java.neat.config.NEATConfig;
+import main.java.neat.core.Agent;
+
+/**
+ * A benchmark problem of the {@link ProblemSuite}.
+ *
+ * <p>A problem supplies its own NEAT configuration and evaluates one agent at a time.
+ * Every randomized part of the environment (initial states, trial order) is drawn from
+ * the seed set with {@link #setSeed(long)}, so a run can be repeated on the same environment.
+ *
+ * @author Taher Joudeh
+ */
+public interface Problem {
+
+    /**
+     * @return Name of the problem as used on the suite's command line.
+     */
+	String getName();
+
+    /**
+     * Creates the NEAT configuration used to solve the problem.
+     * @param populationSize Population size of the run.
+     * @param seed Seed of the evolution of the run.
+     * @return Configuration of the run.
+     */
+	NEATConfig createConfig(int populationSize, long seed);
+
+    /**
+     * Sets the seed of the environment for the next run.
+     * @param seed Seed of the run.
+     */
+	void setSeed(long seed);
+
+    /**
+     * Evaluates an agent on the problem.
+     * @param agent Agent to evaluate.
+     * @return Fitness of the agent; higher is better.
+     */
+	double evaluate(Agent agent);
+
+    /**
+     * Checks whether an evaluated agent solves the problem. This may run additional,
+     * harder trials (e.g. generalization tests), which are not counted as evaluations.
+     * @param agent Agent to check.
+     * @param fitness Fitness returned by {@link #evaluate(Agent)} for the agent.
+     * @return True if the agent solves the problem.
+     */
+	boolean isSolved(Agent agent, double fitness);
+
+}
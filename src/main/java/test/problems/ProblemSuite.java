@@ -0,0 +1,155 @@
+package main.java.test.problems;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+import main.java.neat.core.Agent;
+import main.java.neat.core.Neat;
+
+/**
+ * End-to-end benchmark over the standard NEAT problems.
+ *
+ * <p>Every problem is solved in several runs; run {@code i} seeds both its environment and its
+ * evolution with {@code seed+i} and starts from a cleared innovation history, so every run is
+ * repeated exactly by the same seed, whichever runs precede it. A run ends when an agent solves
+ * the problem or after the generation limit. For each run the suite reports the generations and
+ * evaluations needed to solve the problem and the wall-clock time, and for each problem the
+ * success rate and the mean, median and standard deviation over the solved runs.
+ *
+ * <p>Usage (all arguments optional):
+ * <pre>
+ * java main.java.test.problems.ProblemSuite problems=xor,single-pole,single-pole-nv,double-pole,double-pole-nv,sequence-2
+ *                                           runs=10 seed=1 population=150 generations=500
+ * </pre>
+ *
+ * @author Taher Joudeh
+ */
+public class ProblemSuite {
+
+	private static final LinkedHashMap<String,Problem> PROBLEMS = new LinkedHashMap<> ();
+
+	static {
+		for (Problem problem: new Problem[] {
+				new XORProblem(),
+				new PoleBalancingProblem(false, true),
+				new PoleBalancingProblem(false, false),
+				new PoleBalancingProblem(true, true),
+				new PoleBalancingProblem(true, false),
+				new SequenceMemoryProblem(2)})
+			PROBLEMS.put(problem.getName(), problem);
+	}
+
+    /**
+     * Runs the suite.
+     * @param args Options in the form {@code name=value}, see the class documentation.
+     */
+	public static void main(String[] args) {
+		HashMap<String,String> options = new HashMap<> ();
+		for (String arg: args) {
+			String[] option = arg.split("=", 2);
+			options.put(option[0], option.length > 1 ? option[1] : "");
+		}
+
+		String[] problems = options.getOrDefault("problems", String.join(",", PROBLEMS.keySet())).split(",");
+		int runs = Integer.parseInt(options.getOrDefault("runs", "10"));
+		long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+		int populationSize = Integer.parseInt(options.getOrDefault("population", "150"));
+		int maxGenerations = Integer.parseInt(options.getOrDefault("generations", "500"));
+
+		StringBuilder summary = new StringBuilder(String.format("%n%-16s %8s %24s %30s %26s%n",
+				"problem", "solved", "generations", "evaluations", "time (ms)"));
+		summary.append(String.format("%-16s %8s %24s %30s %26s%n", "", "", "mean / median +- sd", "mean / median +- sd", "mean / median +- sd"));
+		for (String name: problems) {
+			Problem problem = PROBLEMS.get(name);
+			if (problem == null) {
+				System.out.println("Unknown problem: " + name);
+				continue;
+			}
+
+			double[] generations = new double[runs], evaluations = new double[runs], millis = new double[runs];
+			int solved = 0;
+			for (int run = 0; run < runs; run++) {
+				Result result = solve(problem, seed+run, populationSize, maxGenerations);
+				System.out.printf("%-16s run %3d: %s in %d generations, %d evaluations, %.1f ms%n", name, run,
+						result.solved ? "solved" : "unsolved", result.generations, result.evaluations, result.nanos/1e6);
+				if (result.solved) {
+					generations[solved] = result.generations;
+					evaluations[solved] = result.evaluations;
+					millis[solved++] = result.nanos/1e6;
+				}
+			}
+
+			summary.append(String.format("%-16s %8s %24s %30s %26s%n", name, solved + "/" + runs,
+					statistics(generations, solved), statistics(evaluations, solved), statistics(millis, solved)));
+		}
+		System.out.print(summary);
+	}
+
+    /**
+     * Outcome of a single run.
+     */
+	private static class Result {
+		private final boolean solved;
+		private final int generations;
+		private final long evaluations, nanos;
+
+		private Result(boolean solved, int generations, long evaluations, long nanos) {
+			this.solved = solved;
+			this.generations = generations;
+			this.evaluations = evaluations;
+			this.nanos = nanos;
+		}
+	}
+
+    /**
+     * Evolves a population until an agent solves the problem or the generation limit is reached.
+     * @param problem Problem to solve.
+     * @param seed Environment and evolution seed of the run.
+     * @param populationSize Population size.
+     * @param maxGenerations Maximum number of generations evaluated.
+     * @return Outcome of the run; generations and evaluations count up to the solving agent.
+     */
+	private static Result solve(Problem problem, long seed, int populationSize, int maxGenerations) {
+		long start = System.nanoTime();
+		problem.setSeed(seed);
+		Neat.resetInnovationHistory();
+		Neat neat = new Neat(problem.createConfig(populationSize, seed));
+
+		long evaluations = 0;
+		for (int generation = 1; generation <= maxGenerations; generation++) {
+			for (Agent agent: neat.getPopulation()) {
+				double fitness = problem.evaluate(agent);
+				agent.setFitness(fitness);
+				evaluations++;
+				if (problem.isSolved(agent, fitness))
+					return new Result(true, generation, evaluations, System.nanoTime()-start);
+			}
+			neat.evolve(false);
+		}
+		return new Result(false, maxGenerations, evaluations, System.nanoTime()-start);
+	}
+
+    /**
+     * Formats mean, median and standard deviation of the first values.
+     */
+	private static String statistics(double[] values, int count) {
+		if (count == 0)
+			return "-";
+		double[] sorted = Arrays.copyOf(values, count);
+		Arrays.sort(sorted);
+		double median = count%2 == 1 ? sorted[count/2] : (sorted[count/2-1] + sorted[count/2])/2;
+
+		double mean = 0;
+		for (double value: sorted)
+			mean += value;
+		mean /= count;
+		double variance = 0;
+		for (double value: sorted)
+			variance += (value-mean)*(value-mean);
+		double deviation = count > 1 ? Math.sqrt(variance/(count-1)) : 0;
+
+		return String.format("%.1f / %.1f +- %.1f", mean, median, deviation);
+	}
+
+}
@@ -0,0 +1,124 @@
+package main.java.test.problems;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import main.java.neat.config.NEATConfig;
+import main.java.neat.config.NEATConfig.CONNECTIVITY;
+import main.java.neat.config.NEATConfig.SELECTION_TYPE;
+import main.java.neat.config.NEATConfig.SPECIES_FITNESS_FUNCTION;
+import main.java.neat.config.NEATConfigBuilder;
+import main.java.neat.core.Agent;
+
+/**
+ * Recalling a short sequence of bits, which needs recurrent connections.
+ *
+ * <p>The network has two inputs, a value and a recall cue, and one output. A trial presents
+ * the bits of a sequence one per step as values of +1 or -1, then sets the recall cue for as
+ * many steps, during which the output must reproduce the bits in order. Every sequence of the
+ * configured length is one trial; the seed shuffles the order of the trials.
+ *
+ * <p>Fitness is one minus the mean squared recall error; the problem is solved when every
+ * recalled output rounds to the expected bit.
+ *
+ * @author Taher Joudeh
+ */
+public class SequenceMemoryProblem implements Problem {
+
+	private final int length;
+	private final ArrayList<Integer> sequences = new ArrayList<> ();
+
+    /**
+     * Constructs the sequence memory problem.
+     * @param length Number of bits of a sequence.
+     */
+	public SequenceMemoryProblem(int length) {
+		this.length = length;
+		for (int i = 0; i < 1 << length; i++)
+			sequences.add(i);
+	}
+
+	@Override
+	public String getName() { return "sequence-" + length; }
+
+	@Override
+	public NEATConfig createConfig(int populationSize, long seed) {
+		return new NEATConfigBuilder(populationSize, 2, 1)
+				.setMaxNumberOfHiddenNodes(20)
+				.setCompatibilityThreshold(3)
+				.setDynamicCompatibilityThreshold(true)
+				.setCompatabilityThresholdAdjustingFactor(0.2)
+				.setTargetNumberOfSpecies(10)
+				.setSpeciesFitnessFunction(SPECIES_FITNESS_FUNCTION.MAX)
+				.setProbAddConnection(0.15)
+				.setProbAddNode(0.05)
+				.setFeedForward(false)
+				.setProbRecurrentConnection(0.5)
+				.setInitConnectivity(CONNECTIVITY.FULL_DIRECT)
+				.setSurvivalThreshold(0.2)
+				.setStagnation(20)
+				.setWeightMaxValue(20)
+				.setWeightMinValue(-20)
+				.setBiasMaxValue(20)
+				.setBiasMinValue(-20)
+				.setSpeciesElitism(1)
+				.setElitism(1)
+				.setSelectionType(SELECTION_TYPE.TOURNAMENT)
+				.setTournamentSize(4)
+				.setSeed(seed)
+				.build();
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		Collections.sort(sequences);
+		Collections.shuffle(sequences, new Random(seed));
+	}
+
+	@Override
+	public double evaluate(Agent agent) {
+		double error = 0;
+		for (int sequence: sequences) {
+			double[] outputs = recall(agent, sequence);
+			for (int i = 0; i < length; i++) {
+				double difference = outputs[i] - bit(sequence, i);
+				error += difference*difference;
+			}
+		}
+		return 1 - error/(sequences.size()*length);
+	}
+
+	@Override
+	public boolean isSolved(Agent agent, double fitness) {
+		if (fitness <= 0.75)
+			return false;
+		for (int sequence: sequences) {
+			double[] outputs = recall(agent, sequence);
+			for (int i = 0; i < length; i++)
+				if (Math.round(outputs[i]) != bit(sequence, i))
+					return false;
+		}
+		return true;
+	}
+
+	private double[] recall(Agent agent, int sequence) {
+		double[] input = new double[2];
+		for (int i = 0; i < length; i++) {
+			input[0] = bit(sequence, i) == 1 ? 1 : -1;
+			agent.think(input);
+		}
+
+		double[] outputs = new double[length];
+		input[0] = 0;
+		input[1] = 1;
+		for (int i = 0; i < length; i++)
+			outputs[i] = agent.think(input)[0];
+		return outputs;
+	}
+
+	private static int bit(int sequence, int index) {
+		return (sequence >> index) & 1;
+	}
+
+}
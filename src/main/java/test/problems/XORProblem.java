@@ -0,0 +1,82 @@
+package main.java.test.problems;
+
+import main.java.neat.config.NEATConfig;
+import main.java.neat.config.NEATConfig.CONNECTIVITY;
+import main.java.neat.config.NEATConfig.SELECTION_TYPE;
+import main.java.neat.config.NEATConfig.SPECIES_FITNESS_FUNCTION;
+import main.java.neat.config.NEATConfigBuilder;
+import main.java.neat.core.Agent;
+
+/**
+ * The XOR logic gate. Fitness is 4 minus the squared error over the four input
+ * combinations; the problem is solved when every output rounds to the expected value.
+ * The environment is deterministic, so the seed is ignored.
+ *
+ * @author Taher Joudeh
+ */
+public class XORProblem implements Problem {
+
+	private static final double[][] INPUTS = {
+			{0,0}, // -> 0
+			{0,1}, // -> 1
+			{1,0}, // -> 1
+			{1,1}  // -> 0
+	};
+	private static final double[] OUTPUTS = {0, 1, 1, 0};
+
+	@Override
+	public String getName() { return "xor"; }
+
+	@Override
+	public NEATConfig createConfig(int populationSize, long seed) {
+		return new NEATConfigBuilder(populationSize, 2, 1)
+				.setMaxNumberOfHiddenNodes(10)
+				.setCompatibilityExcessCoefficient(1)
+				.setCompatibilityDisjointCoefficient(1)
+				.setCompatibilityWeightCoefficient(0.4)
+				.setCompatibilityThreshold(3)
+				.setDynamicCompatibilityThreshold(true)
+				.setCompatabilityThresholdAdjustingFactor(0.2)
+				.setTargetNumberOfSpecies(10)
+				.setSpeciesFitnessFunction(SPECIES_FITNESS_FUNCTION.MAX)
+				.setProbAddConnection(0.1)
+				.setProbAddNode(0.06)
+				.setInitConnectivity(CONNECTIVITY.FULL_DIRECT)
+				.setSurvivalThreshold(0.2)
+				.setStagnation(15)
+				.setWeightMaxValue(20)
+				.setWeightMinValue(-20)
+				.setBiasMaxValue(20)
+				.setBiasMinValue(-20)
+				.setSpeciesElitism(1)
+				.setElitism(1)
+				.setSelectionType(SELECTION_TYPE.TOURNAMENT)
+				.setTournamentSize(4)
+				.setSeed(seed)
+				.build();
+	}
+
+	@Override
+	public void setSeed(long seed) {}
+
+	@Override
+	public double evaluate(Agent agent) {
+		double error = 0;
+		for (int i = 0; i < INPUTS.length; i++) {
+			double output = agent.think(INPUTS[i])[0];
+			error += (output-OUTPUTS[i])*(output-OUTPUTS[i]);
+		}
+		return INPUTS.length - error;
+	}
+
+	@Override
+	public boolean isSolved(Agent agent, double fitness) {
+		if (fitness <= INPUTS.length - 1)
+			return false;
+		for (int i = 0; i < INPUTS.length; i++)
+			if (Math.round(agent.think(INPUTS[i])[0]) != OUTPUTS[i])
+				return false;
+		return true;
+	}
+
+}